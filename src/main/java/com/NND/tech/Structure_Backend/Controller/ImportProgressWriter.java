@@ -0,0 +1,47 @@
+package com.NND.tech.Structure_Backend.Controller;
+
+import com.NND.tech.Structure_Backend.DTO.ImportChunkReport;
+import com.NND.tech.Structure_Backend.DTO.ImportSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Écriture NDJSON de la progression d'un import : une ligne par lot, envoyée immédiatement,
+ * puis le bilan global (ou l'erreur qui a interrompu l'import).
+ */
+final class ImportProgressWriter {
+
+    private ImportProgressWriter() {
+    }
+
+    static void write(OutputStream out, ObjectMapper objectMapper,
+                      Function<Consumer<ImportChunkReport>, ImportSummary> importer) throws IOException {
+        Object last;
+        try {
+            last = importer.apply(report -> writeLine(out, objectMapper, report));
+        } catch (UncheckedIOException e) {
+            // Client déconnecté : plus rien à lui écrire
+            throw e.getCause();
+        } catch (RuntimeException e) {
+            // Les en-têtes sont déjà partis : l'erreur est rapportée dans le flux
+            last = Map.of("error", e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+        writeLine(out, objectMapper, last);
+    }
+
+    private static void writeLine(OutputStream out, ObjectMapper objectMapper, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.NND.tech.Structure_Backend.Controller;
 
 import com.NND.tech.Structure_Backend.DTO.*;
+import com.NND.tech.Structure_Backend.event.TransactionEventPublisher;
 import com.NND.tech.Structure_Backend.model.entity.Transaction;
 import com.NND.tech.Structure_Backend.model.entity.ServiceEntity;
 import com.NND.tech.Structure_Backend.model.entity.Structure;
@@ -8,6 +9,11 @@ import com.NND.tech.Structure_Backend.Repository.TransactionRepository;
 import com.NND.tech.Structure_Backend.Repository.ServiceRepository;
 import com.NND.tech.Structure_Backend.Repository.StructureRepository;
 import com.NND.tech.Structure_Backend.Service.CampostPaymentService;
+import com.NND.tech.Structure_Backend.Service.PaymentStatusBroadcaster;
+import com.NND.tech.Structure_Backend.Service.PaymentStatusPoller;
+import com.NND.tech.Structure_Backend.Service.TransactionReferenceFilter;
+import com.NND.tech.Structure_Backend.Service.TransactionStatusService;
+import com.NND.tech.Structure_Backend.Service.WebhookIntakeService;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -15,6 +21,8 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -24,19 +32,36 @@ import java.util.*;
 @RequestMapping("/api/paiements")
 public class PaymentController {
 
+    private static final long VERIFY_GRACE_MS = 30_000L;
+
     private final CampostPaymentService campostService;
     private final TransactionRepository transactionRepository;
     private final StructureRepository structureRepository;
     private final ServiceRepository serviceRepository;
+    private final TransactionEventPublisher transactionEventPublisher;
+    private final TransactionReferenceFilter referenceFilter;
+    private final PaymentStatusPoller statusPoller;
+    private final PaymentStatusBroadcaster statusBroadcaster;
+    private final WebhookIntakeService webhookIntake;
 
     public PaymentController(CampostPaymentService campostService,
                              TransactionRepository transactionRepository,
                              StructureRepository structureRepository,
-                             ServiceRepository serviceRepository) {
+                             ServiceRepository serviceRepository,
+                             TransactionEventPublisher transactionEventPublisher,
+                             TransactionReferenceFilter referenceFilter,
+                             PaymentStatusPoller statusPoller,
+                             PaymentStatusBroadcaster statusBroadcaster,
+                             WebhookIntakeService webhookIntake) {
         this.campostService = campostService;
         this.transactionRepository = transactionRepository;
         this.structureRepository = structureRepository;
         this.serviceRepository = serviceRepository;
+        this.transactionEventPublisher = transactionEventPublisher;
+        this.referenceFilter = referenceFilter;
+        this.statusPoller = statusPoller;
+        this.statusBroadcaster = statusBroadcaster;
+        this.webhookIntake = webhookIntake;
     }
 
     @GetMapping("/operators")
@@ -85,42 +110,64 @@ public class PaymentController {
         String finalReference = response.getReference() != null ? response.getReference() : reference;
         t.setReference(finalReference);
         transactionRepository.save(t);
+        transactionEventPublisher.created(t);
 
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    /**
+     * Attente longue du statut final d'une commande : le thread de requête est libéré aussitôt et la
+     * réponse part quand le suivi centralisé résout la commande (statut final ou TIMEOUT).
+     */
     @GetMapping("/verify/{orderId}")
-    public ResponseEntity<Map<String, Object>> verify(@PathVariable String orderId,
-                                                      @RequestParam(name = "timeoutMs", required = false, defaultValue = "300000") long timeoutMs,
-                                                      @RequestParam(name = "intervalMs", required = false, defaultValue = "5000") long intervalMs) {
-        String status = campostService.pollAndUpdateStatus(orderId, timeoutMs, intervalMs);
+    public DeferredResult<ResponseEntity<Map<String, Object>>> verify(@PathVariable String orderId,
+                                                                      @RequestParam(name = "timeoutMs", required = false, defaultValue = "300000") long timeoutMs,
+                                                                      @RequestParam(name = "intervalMs", required = false, defaultValue = "5000") long intervalMs) {
+        // Marge au-delà du délai de suivi : le TIMEOUT est normalement rendu par le suivi lui-même
+        DeferredResult<ResponseEntity<Map<String, Object>>> result = new DeferredResult<>(Math.max(1_000L, timeoutMs) + VERIFY_GRACE_MS);
+        result.onTimeout(() -> result.setResult(ResponseEntity.ok(verifyBody(orderId, TransactionStatusService.TIMEOUT))));
+        statusPoller.watch(orderId, timeoutMs, intervalMs).whenComplete((status, error) -> {
+            if (error != null) {
+                result.setErrorResult(error);
+            } else {
+                result.setResult(ResponseEntity.ok(verifyBody(orderId, status)));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Flux SSE du statut d'une commande : un unique événement "status" est poussé dès que le webhook
+     * (ou, en rattrapage, le suivi) résout la commande, puis le flux est fermé.
+     */
+    @GetMapping(value = "/stream/{orderId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@PathVariable String orderId) {
+        return statusBroadcaster.subscribe(orderId);
+    }
+
+    private static Map<String, Object> verifyBody(String orderId, String status) {
         Map<String, Object> body = new HashMap<>();
         body.put("orderId", orderId);
         body.put("status", status);
         body.put("updatedAt", java.time.OffsetDateTime.now().toString());
-        return ResponseEntity.ok(body);
+        return body;
     }
 
+    /**
+     * Webhook CamPost : vérifié, ajouté au journal local puis acquitté ; le statut est appliqué par
+     * lots en arrière-plan ({@link WebhookIntakeService}). Un renvoi récent est acquitté sans écriture.
+     */
     @PostMapping(value = "/webhooks/campost", consumes = MediaType.APPLICATION_JSON_VALUE)
-    @Transactional
     public ResponseEntity<Void> webhook(@RequestBody String payload, @RequestHeader HttpHeaders headers) {
         String signature = headers.getFirst("X-SIGNATURE");
         if (!campostService.verifyWebhook(payload, signature)) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
         CampostWebhookEvent event = JsonUtils.fromJson(payload, CampostWebhookEvent.class);
-        if (event == null || event.getReference() == null) return ResponseEntity.ok().build();
-        Optional<Transaction> opt = transactionRepository.findAll().stream()
-                .filter(tx -> event.getReference().equals(tx.getReference()))
-                .findFirst();
-        if (opt.isEmpty()) return ResponseEntity.ok().build();
-        Transaction tx = opt.get();
-        if ("SUCCESS".equalsIgnoreCase(event.getStatus())) {
-            tx.confirm();
-        } else if ("FAILED".equalsIgnoreCase(event.getStatus()) || "CANCELLED".equalsIgnoreCase(event.getStatus())) {
-            tx.cancel();
-        }
-        transactionRepository.save(tx);
+        if (event == null || (event.getReference() == null && event.getOrderId() == null)) return ResponseEntity.ok().build();
+        // Référence et orderId inconnus : acquittée sans écriture
+        if (!referenceFilter.mightExist(event.getReference(), event.getOrderId())) return ResponseEntity.ok().build();
+        webhookIntake.accept(event, payload);
         return ResponseEntity.ok().build();
     }
 
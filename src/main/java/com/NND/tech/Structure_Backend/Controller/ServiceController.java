@@ -1,12 +1,19 @@
 package com.NND.tech.Structure_Backend.Controller;
 
 import com.NND.tech.Structure_Backend.DTO.ServiceDto;
+import com.NND.tech.Structure_Backend.Service.BulkImportService;
+import com.NND.tech.Structure_Backend.Service.DataFormat;
 import com.NND.tech.Structure_Backend.Service.ServiceService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.List;
 
@@ -16,6 +23,8 @@ import java.util.List;
 public class ServiceController {
 
     private final ServiceService serviceService;
+    private final BulkImportService bulkImportService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
     public ResponseEntity<List<ServiceDto>> getServicesByStructure(@PathVariable Long structureId) {
@@ -37,6 +46,26 @@ public class ServiceController {
                 .body(created);
     }
 
+    /**
+     * Import en masse des services de la structure (CSV avec en-tête ou NDJSON), avec un bilan
+     * NDJSON par lot puis un bilan global. Les noms déjà présents sont rejetés.
+     */
+    @PostMapping(value = "/import", consumes = {DataFormat.CSV_VALUE, DataFormat.NDJSON_VALUE},
+                 produces = DataFormat.NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importServices(
+            @PathVariable Long structureId,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestParam(required = false) Integer chunkSize,
+            InputStream body) {
+        DataFormat format = DataFormat.fromContentType(contentType);
+        // Vérifiée avant l'envoi de la réponse, pour pouvoir répondre 404
+        bulkImportService.checkServiceImportTarget(structureId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(DataFormat.NDJSON_VALUE))
+                .body(out -> ImportProgressWriter.write(out, objectMapper, progress ->
+                        bulkImportService.importServices(structureId, body, format, chunkSize, progress)));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ServiceDto> updateService(
             @PathVariable Long structureId,
@@ -1,6 +1,12 @@
 package com.NND.tech.Structure_Backend.Controller;
 
+import com.NND.tech.Structure_Backend.DTO.CategoryRevenueDto;
+import com.NND.tech.Structure_Backend.DTO.PeriodComparisonDto;
+import com.NND.tech.Structure_Backend.DTO.PeriodComparisonRequest;
+import com.NND.tech.Structure_Backend.DTO.RevenueCubeDto;
+import com.NND.tech.Structure_Backend.DTO.RevenueCubeRequest;
 import com.NND.tech.Structure_Backend.DTO.StatsDto;
+import com.NND.tech.Structure_Backend.Service.LiveStatsBroadcaster;
 import com.NND.tech.Structure_Backend.Service.StatsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,10 +17,13 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -31,6 +40,7 @@ import java.util.Map;
 public class StatsController {
 
     private final StatsService statsService;
+    private final LiveStatsBroadcaster liveStatsBroadcaster;
 
     /**
      * Récupère les statistiques globales de l'application.
@@ -127,8 +137,8 @@ public class StatsController {
      *
      * @param startDate Date de début de la période
      * @param endDate Date de fin de la période
-     * @param period Période de regroupement (daily, weekly, monthly)
-     * @return Map des périodes avec les montants de revenus
+     * @param period Période de regroupement (hourly, daily, weekly, monthly)
+     * @return Map des périodes avec les montants de revenus, buckets vides inclus
      */
     @GetMapping("/revenue-trend")
     @Operation(
@@ -150,10 +160,7 @@ public class StatsController {
             throw new IllegalArgumentException("La date de début doit être antérieure à la date de fin");
         }
         
-        if (!List.of("daily", "weekly", "monthly").contains(period.toLowerCase())) {
-            throw new IllegalArgumentException("La période doit être 'daily', 'weekly' ou 'monthly'");
-        }
-        
+        // La période est validée par le service (RevenueTrendPeriod)
         return ResponseEntity.ok(statsService.getRevenueTrend(startDate, endDate, period.toLowerCase()));
     }
 
@@ -191,10 +198,34 @@ public class StatsController {
             firstPeriodStart, firstPeriodEnd, secondPeriodStart, secondPeriodEnd));
     }
 
+    /**
+     * Compare un nombre quelconque de périodes (mois sur mois, année sur année...).
+     *
+     * @param request Périodes à comparer, chacune comparée à la précédente
+     * @return Liste des totaux et variations par période, dans l'ordre demandé
+     */
+    @PostMapping("/compare-periods")
+    @Operation(
+        summary = "Comparer plusieurs périodes",
+        description = "Calcule les totaux de N périodes en une seule lecture et les variations de chacune par rapport à la précédente"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Comparaison effectuée avec succès",
+                     content = @Content(array = @ArraySchema(schema = @Schema(implementation = PeriodComparisonDto.class)))),
+        @ApiResponse(responseCode = "400", description = "Périodes invalides"),
+        @ApiResponse(responseCode = "500", description = "Erreur interne du serveur")
+    })
+    public ResponseEntity<List<PeriodComparisonDto>> comparePeriods(
+            @Valid @RequestBody PeriodComparisonRequest request) {
+        return ResponseEntity.ok(statsService.comparePeriods(request.getPeriods()));
+    }
+
     /**
      * Récupère les structures les plus performantes par revenus.
      *
      * @param limit Nombre maximum de structures à retourner (par défaut 5)
+     * @param startDate Date de début de la période (optionnelle)
+     * @param endDate Date de fin de la période (optionnelle)
      * @return Liste des structures avec leurs statistiques de performance
      */
     @GetMapping("/top-structures")
@@ -208,13 +239,15 @@ public class StatsController {
         @ApiResponse(responseCode = "500", description = "Erreur interne du serveur")
     })
     public ResponseEntity<List<Map<String, Object>>> getTopPerformingStructures(
-            @RequestParam(defaultValue = "5") int limit) {
+            @RequestParam(defaultValue = "5") int limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
         
         if (limit <= 0) {
             limit = 5;
         }
         
-        return ResponseEntity.ok(statsService.getTopPerformingStructures(limit));
+        return ResponseEntity.ok(statsService.getTopPerformingStructures(limit, startDate, endDate));
     }
 
     /**
@@ -222,7 +255,8 @@ public class StatsController {
      *
      * @param startDate Date de début de la période
      * @param endDate Date de fin de la période
-     * @return Map des catégories avec leurs revenus respectifs
+     * @param structureId Identifiant de la structure (optionnel)
+     * @return Liste des catégories avec leurs revenus et nombres de transactions
      */
     @GetMapping("/revenue-by-category")
     @Operation(
@@ -231,18 +265,81 @@ public class StatsController {
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Répartition récupérée avec succès",
-                     content = @Content(schema = @Schema(implementation = Map.class))),
+                     content = @Content(array = @ArraySchema(schema = @Schema(implementation = CategoryRevenueDto.class)))),
         @ApiResponse(responseCode = "400", description = "Période invalide"),
         @ApiResponse(responseCode = "500", description = "Erreur interne du serveur")
     })
-    public ResponseEntity<Map<String, Double>> getRevenueByCategory(
+    public ResponseEntity<List<CategoryRevenueDto>> getRevenueByCategory(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long structureId) {
         
         if (startDate.isAfter(endDate)) {
             throw new IllegalArgumentException("La date de début doit être antérieure à la date de fin");
         }
         
-        return ResponseEntity.ok(statsService.getRevenueByCategory(startDate, endDate));
+        return ResponseEntity.ok(statsService.getRevenueByCategory(startDate, endDate, structureId));
+    }
+
+    /**
+     * Cube de revenus : regroupement par plusieurs dimensions en une seule requête.
+     *
+     * @param dimensions Dimensions de regroupement (structure, service, category, period, status)
+     * @param period Granularité de la dimension period (daily, weekly, monthly)
+     * @param startDate Date de début de la période
+     * @param endDate Date de fin de la période
+     * @param structureId Structures à inclure (optionnel, répétable)
+     * @param category Catégories à inclure (optionnel, répétable)
+     * @param status Statuts à inclure (optionnel, répétable)
+     * @return Cube au format colonnes
+     */
+    @GetMapping("/cube")
+    @Operation(
+        summary = "Obtenir un cube de revenus",
+        description = "Agrège le chiffre d'affaires par structure, service, catégorie, période et/ou statut, avec filtres, en un seul appel"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Cube calculé avec succès",
+                     content = @Content(schema = @Schema(implementation = RevenueCubeDto.class))),
+        @ApiResponse(responseCode = "400", description = "Dimension, période ou plage invalide"),
+        @ApiResponse(responseCode = "500", description = "Erreur interne du serveur")
+    })
+    public ResponseEntity<RevenueCubeDto> getRevenueCube(
+            @RequestParam(defaultValue = "") List<String> dimensions,
+            @RequestParam(defaultValue = "daily") String period,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) List<Long> structureId,
+            @RequestParam(required = false) List<String> category,
+            @RequestParam(required = false) List<String> status) {
+
+        return ResponseEntity.ok(statsService.getRevenueCube(RevenueCubeRequest.builder()
+            .dimensions(dimensions)
+            .period(period)
+            .startDate(startDate)
+            .endDate(endDate)
+            .structureIds(structureId)
+            .categories(category)
+            .statuses(status)
+            .build()));
+    }
+
+    /**
+     * Flux en direct des variations du chiffre d'affaires confirmé.
+     *
+     * @param structureId Structure suivie (optionnel, toutes les structures si absent)
+     * @return Flux Server-Sent Events (événements "revenue", un par fenêtre de regroupement)
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+        summary = "Suivre les statistiques en direct",
+        description = "Diffuse, par courtes fenêtres, les variations globales et par structure du nombre de transactions confirmées et du chiffre d'affaires"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Flux ouvert"),
+        @ApiResponse(responseCode = "503", description = "Nombre maximum d'abonnés atteint")
+    })
+    public SseEmitter streamStats(@RequestParam(required = false) Long structureId) {
+        return liveStatsBroadcaster.subscribe(structureId);
     }
 }
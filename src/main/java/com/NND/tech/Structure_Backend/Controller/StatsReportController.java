@@ -0,0 +1,75 @@
+package com.NND.tech.Structure_Backend.Controller;
+
+import com.NND.tech.Structure_Backend.DTO.StatsReportJobDto;
+import com.NND.tech.Structure_Backend.DTO.StatsReportRequest;
+import com.NND.tech.Structure_Backend.Service.StatsReportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.net.URI;
+import java.security.Principal;
+
+/**
+ * Rapports statistiques asynchrones : soumission, suivi (consultation ou flux SSE) et téléchargement.
+ */
+@RestController
+@RequestMapping("/api/stats/reports")
+@RequiredArgsConstructor
+@Tag(name = "Statistics reports", description = "Calcul asynchrone des rapports statistiques lourds")
+public class StatsReportController {
+
+    private final StatsReportService reportService;
+
+    @PostMapping
+    @Operation(summary = "Soumettre un rapport",
+               description = "Met le calcul en file d'attente et retourne immédiatement l'identifiant du rapport")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Rapport accepté",
+                     content = @Content(schema = @Schema(implementation = StatsReportJobDto.class))),
+        @ApiResponse(responseCode = "429", description = "Trop de rapports en cours pour cet utilisateur"),
+        @ApiResponse(responseCode = "503", description = "File des rapports pleine")
+    })
+    public ResponseEntity<StatsReportJobDto> submit(@Valid @RequestBody StatsReportRequest request, Principal principal) {
+        StatsReportJobDto job = reportService.submit(principal.getName(), request);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/stats/reports/" + job.getId()))
+                .body(job);
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Consulter l'état d'un rapport")
+    public ResponseEntity<StatsReportJobDto> getStatus(@PathVariable String id, Principal principal) {
+        return ResponseEntity.ok(reportService.getStatus(principal.getName(), id));
+    }
+
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Suivre la progression d'un rapport (Server-Sent Events)")
+    public SseEmitter streamProgress(@PathVariable String id, Principal principal) {
+        return reportService.subscribe(principal.getName(), id);
+    }
+
+    @GetMapping("/{id}/result")
+    @Operation(summary = "Télécharger le résultat d'un rapport terminé")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Résultat du rapport (JSON)"),
+        @ApiResponse(responseCode = "404", description = "Rapport introuvable ou expiré"),
+        @ApiResponse(responseCode = "409", description = "Rapport en cours ou en échec")
+    })
+    public ResponseEntity<Object> getResult(@PathVariable String id, Principal principal) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"report-" + id + ".json\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(reportService.getResult(principal.getName(), id));
+    }
+}
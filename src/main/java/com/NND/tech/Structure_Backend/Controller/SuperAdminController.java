@@ -3,6 +3,7 @@ package com.NND.tech.Structure_Backend.Controller;
 import com.NND.tech.Structure_Backend.DTO.RegisterAdminRequest;
 import com.NND.tech.Structure_Backend.DTO.StructureDto;
 import com.NND.tech.Structure_Backend.DTO.StructureRequest;
+import com.NND.tech.Structure_Backend.Service.RevenueRollupService;
 import com.NND.tech.Structure_Backend.Service.StructureService;
 import com.NND.tech.Structure_Backend.model.entity.Structure;
 import com.NND.tech.Structure_Backend.model.entity.User;
@@ -12,6 +13,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/superadmin")
 @PreAuthorize("hasAuthority('SUPER_ADMIN')")
@@ -19,9 +22,11 @@ import org.springframework.web.bind.annotation.*;
 public class SuperAdminController {
 
     private final StructureService structureService;
+    private final RevenueRollupService rollupService;
 
-    public SuperAdminController(StructureService structureService) {
+    public SuperAdminController(StructureService structureService, RevenueRollupService rollupService) {
         this.structureService = structureService;
+        this.rollupService = rollupService;
     }
 
     @PostMapping("/structures")
@@ -35,4 +40,10 @@ public class SuperAdminController {
             @Valid @RequestBody RegisterAdminRequest request) {
         return ResponseEntity.ok(structureService.createAdminForStructure(structureId, request));
     }
-}
\ No newline at end of file
+
+    @PostMapping("/stats/rollups/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildRevenueRollups() {
+        long groups = rollupService.rebuild();
+        return ResponseEntity.ok(Map.of("groups", groups));
+    }
+}
@@ -1,14 +1,28 @@
 package com.NND.tech.Structure_Backend.Controller;
 
 import com.NND.tech.Structure_Backend.DTO.TransactionDto;
+import com.NND.tech.Structure_Backend.DTO.TransactionPageDto;
+import com.NND.tech.Structure_Backend.DTO.TransactionSearchRequest;
+import com.NND.tech.Structure_Backend.Service.BulkImportService;
+import com.NND.tech.Structure_Backend.Service.DataFormat;
 import com.NND.tech.Structure_Backend.Service.TransactionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/transactions")
@@ -16,10 +30,76 @@ import java.util.List;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final BulkImportService bulkImportService;
+    private final ObjectMapper objectMapper;
 
+    /**
+     * Recherche filtrée, paginée par curseur : renvoyer {@code nextCursor} pour obtenir la page suivante.
+     */
     @GetMapping
-    public ResponseEntity<List<TransactionDto>> getAllTransactions() {
-        return ResponseEntity.ok(transactionService.findAll());
+    public ResponseEntity<TransactionPageDto> searchTransactions(
+            @RequestParam(required = false) Long structureId,
+            @RequestParam(required = false) Long serviceId,
+            @RequestParam(required = false) List<String> status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(transactionService.search(TransactionSearchRequest.builder()
+                .structureId(structureId)
+                .serviceId(serviceId)
+                .statuses(status)
+                .startDate(startDate)
+                .endDate(endDate)
+                .minAmount(minAmount)
+                .maxAmount(maxAmount)
+                .cursor(cursor)
+                .size(size)
+                .build()));
+    }
+
+    /**
+     * Export en flux (CSV ou NDJSON, éventuellement compressé gzip) des transactions filtrées :
+     * celles de la table du plus récent au plus ancien, puis les mois archivés (voir
+     * {@link TransactionService#export}). La mémoire utilisée ne dépend pas du nombre de lignes.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam(required = false) Long structureId,
+            @RequestParam(required = false) Long serviceId,
+            @RequestParam(required = false) List<String> status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        DataFormat dataFormat = DataFormat.fromName(format);
+        TransactionSearchRequest request = TransactionSearchRequest.builder()
+                .structureId(structureId)
+                .serviceId(serviceId)
+                .statuses(status)
+                .startDate(startDate)
+                .endDate(endDate)
+                .minAmount(minAmount)
+                .maxAmount(maxAmount)
+                .build();
+        String fileName = "transactions." + dataFormat.extension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : dataFormat.mediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(out -> {
+                    if (gzip) {
+                        GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+                        transactionService.export(request, dataFormat, compressed);
+                        compressed.finish();
+                    } else {
+                        transactionService.export(request, dataFormat, out);
+                    }
+                });
     }
 
     @GetMapping("/{id}")
@@ -28,8 +108,15 @@ public class TransactionController {
     }
 
     @GetMapping("/structure/{structureId}")
-    public ResponseEntity<List<TransactionDto>> getTransactionsByStructureId(@PathVariable Long structureId) {
-        return ResponseEntity.ok(transactionService.findByStructureId(structureId));
+    public ResponseEntity<TransactionPageDto> getTransactionsByStructureId(
+            @PathVariable Long structureId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(transactionService.search(TransactionSearchRequest.builder()
+                .structureId(structureId)
+                .cursor(cursor)
+                .size(size)
+                .build()));
     }
 
     @PostMapping
@@ -40,6 +127,23 @@ public class TransactionController {
                 .body(created);
     }
 
+    /**
+     * Import en masse (CSV avec en-tête ou NDJSON). La réponse NDJSON contient le bilan de chaque
+     * lot dès sa validation, puis le bilan global.
+     */
+    @PostMapping(value = "/import", consumes = {DataFormat.CSV_VALUE, DataFormat.NDJSON_VALUE},
+                 produces = DataFormat.NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importTransactions(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestParam(required = false) Integer chunkSize,
+            InputStream body) {
+        DataFormat format = DataFormat.fromContentType(contentType);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(DataFormat.NDJSON_VALUE))
+                .body(out -> ImportProgressWriter.write(out, objectMapper, progress ->
+                        bulkImportService.importTransactions(body, format, chunkSize, progress)));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<TransactionDto> updateTransaction(
             @PathVariable Long id,
@@ -0,0 +1,17 @@
+package com.NND.tech.Structure_Backend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryRevenueDto {
+    private String category;
+    private Double revenue;
+    private Long revenueMinor;
+    private Long transactionCount;
+}
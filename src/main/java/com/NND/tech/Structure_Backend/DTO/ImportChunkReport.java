@@ -0,0 +1,35 @@
+package com.NND.tech.Structure_Backend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Bilan d'un lot d'import, émis dès que le lot est validé (ou annulé)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportChunkReport {
+    private int chunk;
+    private long firstLine;
+    private long lastLine;
+    private int imported;
+    private int rejected;
+    private boolean committed;
+    private long durationMs;
+    // Erreurs ligne par ligne, tronquées au-delà d'un maximum par lot
+    private List<LineError> errors;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineError {
+        private long line;
+        private String message;
+    }
+}
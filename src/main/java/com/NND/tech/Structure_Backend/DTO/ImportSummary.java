@@ -0,0 +1,24 @@
+package com.NND.tech.Structure_Backend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Bilan global d'un import, émis après le dernier lot
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportSummary {
+    @Builder.Default
+    private boolean summary = true;
+    private long lines;
+    private long imported;
+    private long rejected;
+    private int chunks;
+    private long durationMs;
+    private long rowsPerSecond;
+}
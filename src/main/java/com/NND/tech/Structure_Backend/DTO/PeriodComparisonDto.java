@@ -0,0 +1,31 @@
+package com.NND.tech.Structure_Backend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Totaux d'une période et variations par rapport à la période précédente de la comparaison
+ * (variations nulles pour la première période).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PeriodComparisonDto {
+    private String label;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Double revenue;
+    private Long revenueMinor;
+    private Long transactionCount;
+
+    private Double revenueDelta;
+    private Long revenueDeltaMinor;
+    private Double revenueChange;
+    private Long transactionsDelta;
+    private Double transactionsChange;
+}
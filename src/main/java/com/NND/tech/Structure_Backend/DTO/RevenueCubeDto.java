@@ -0,0 +1,24 @@
+package com.NND.tech.Structure_Backend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cube de revenus au format colonnes : la valeur de la ligne i de chaque colonne
+ * se trouve à l'indice i de la liste correspondante.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueCubeDto {
+    private List<String> dimensions;
+    private String period;
+    private int rowCount;
+    private Map<String, List<Object>> columns;
+}
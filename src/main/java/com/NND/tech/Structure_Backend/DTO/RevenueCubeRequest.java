@@ -0,0 +1,27 @@
+package com.NND.tech.Structure_Backend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Paramètres du cube de revenus : dimensions de regroupement
+ * (structure, service, category, period, status), granularité de la période et filtres.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueCubeRequest {
+    private List<String> dimensions;
+    private String period;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private List<Long> structureIds;
+    private List<String> categories;
+    private List<String> statuses;
+}
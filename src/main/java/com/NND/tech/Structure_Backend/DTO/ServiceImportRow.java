@@ -0,0 +1,26 @@
+package com.NND.tech.Structure_Backend.DTO;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Ligne d'import de service d'une structure (objet NDJSON ou ligne CSV avec en-tête)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ServiceImportRow {
+    private String name;
+    private String category;
+    private String description;
+    private BigDecimal price;
+    private Integer duration;
+    private Boolean active;
+}
@@ -14,12 +14,15 @@ import java.math.BigDecimal;
 public class StatsDto {
     private Long totalTransactions;
     private Double totalRevenue;
+    // Montant exact en unités mineures (centimes)
+    private Long totalRevenueMinor;
     private Long totalStructures;
     private Long totalUsers;
     
     // Pour les statistiques par période
     private Long transactionsInPeriod;
     private Double revenueInPeriod;
+    private Long revenueInPeriodMinor;
     
     // Pour les statistiques par structure
     private Long structureId;
@@ -33,10 +36,12 @@ public class StatsDto {
     public static class StatsDtoBuilder {
         private Long totalTransactions = 0L;
         private Double totalRevenue = 0.0;
+        private Long totalRevenueMinor = 0L;
         private Long totalStructures = 0L;
         private Long totalUsers = 0L;
         private Long transactionsInPeriod = 0L;
         private Double revenueInPeriod = 0.0;
+        private Long revenueInPeriodMinor = 0L;
         private Long structureId;
         private String structureName;
         
@@ -50,6 +55,11 @@ public class StatsDto {
             return this;
         }
         
+        public StatsDtoBuilder totalRevenueMinor(Long totalRevenueMinor) {
+            this.totalRevenueMinor = totalRevenueMinor != null ? totalRevenueMinor : 0L;
+            return this;
+        }
+        
         public StatsDtoBuilder totalStructures(Long totalStructures) {
             this.totalStructures = totalStructures != null ? totalStructures : 0L;
             return this;
@@ -70,6 +80,11 @@ public class StatsDto {
             return this;
         }
         
+        public StatsDtoBuilder revenueInPeriodMinor(Long revenueInPeriodMinor) {
+            this.revenueInPeriodMinor = revenueInPeriodMinor != null ? revenueInPeriodMinor : 0L;
+            return this;
+        }
+        
         public StatsDtoBuilder structureId(Long structureId) {
             this.structureId = structureId;
             return this;
@@ -85,10 +100,12 @@ public class StatsDto {
             // Assign fields directly to avoid reliance on Lombok-generated setters
             statsDto.totalTransactions = this.totalTransactions;
             statsDto.totalRevenue = this.totalRevenue;
+            statsDto.totalRevenueMinor = this.totalRevenueMinor;
             statsDto.totalStructures = this.totalStructures;
             statsDto.totalUsers = this.totalUsers;
             statsDto.transactionsInPeriod = this.transactionsInPeriod;
             statsDto.revenueInPeriod = this.revenueInPeriod;
+            statsDto.revenueInPeriodMinor = this.revenueInPeriodMinor;
             statsDto.structureId = this.structureId;
             statsDto.structureName = this.structureName;
             return statsDto;
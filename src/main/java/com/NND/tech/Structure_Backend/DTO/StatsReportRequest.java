@@ -0,0 +1,42 @@
+package com.NND.tech.Structure_Backend.DTO;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Rapport statistique à calculer en arrière-plan. Seuls les champs utiles au type choisi sont lus :
+ * <ul>
+ *     <li>REVENUE_TREND : startDate, endDate, period ;</li>
+ *     <li>COMPARE_PERIODS : periods ;</li>
+ *     <li>TOP_STRUCTURES : limit, startDate et endDate optionnelles ;</li>
+ *     <li>REVENUE_CUBE : cube.</li>
+ * </ul>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatsReportRequest {
+
+    public enum Type {
+        REVENUE_TREND,
+        COMPARE_PERIODS,
+        TOP_STRUCTURES,
+        REVENUE_CUBE
+    }
+
+    @NotNull
+    private Type type;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private String period;
+    private Integer limit;
+    private List<PeriodComparisonRequest.Period> periods;
+    private RevenueCubeRequest cube;
+}
@@ -32,4 +32,7 @@ public class TransactionDto {
     private String description;
     private String metadata;
     private boolean active = true;
+
+    // Relue dans un segment d'archive : en lecture seule
+    private boolean archived;
 }
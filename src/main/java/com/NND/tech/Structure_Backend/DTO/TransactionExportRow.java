@@ -0,0 +1,36 @@
+package com.NND.tech.Structure_Backend.DTO;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Ligne d'export de transaction. Les noms de colonnes reprennent ceux de
+ * {@link TransactionImportRow} : un export peut être réimporté tel quel.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonPropertyOrder({"id", "reference", "orderId", "amount", "transactionDate", "createdAt", "status",
+        "description", "serviceId", "structureId", "confirmed", "confirmationDate"})
+public class TransactionExportRow {
+    private Long id;
+    private String reference;
+    private String orderId;
+    private BigDecimal amount;
+    private LocalDate transactionDate;
+    private LocalDateTime createdAt;
+    private String status;
+    private String description;
+    private Long serviceId;
+    private Long structureId;
+    private boolean confirmed;
+    private LocalDate confirmationDate;
+}
@@ -0,0 +1,32 @@
+package com.NND.tech.Structure_Backend.DTO;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Ligne d'import de transaction (objet NDJSON ou ligne CSV avec en-tête).
+ * La structure est déduite du service ; si elle est fournie, elle doit correspondre.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TransactionImportRow {
+    private String reference;
+    private String orderId;
+    private BigDecimal amount;
+    private LocalDate transactionDate;
+    private LocalDateTime createdAt;
+    private String status;
+    private String description;
+    private Long serviceId;
+    private Long structureId;
+}
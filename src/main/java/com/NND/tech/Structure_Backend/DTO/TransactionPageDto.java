@@ -0,0 +1,23 @@
+package com.NND.tech.Structure_Backend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Page de résultats d'une recherche de transactions.
+ * {@code nextCursor} est à renvoyer tel quel pour obtenir la page suivante (nul sur la dernière page).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionPageDto {
+    private List<TransactionDto> items;
+    private int size;
+    private boolean hasMore;
+    private String nextCursor;
+}
@@ -0,0 +1,29 @@
+package com.NND.tech.Structure_Backend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Critères de recherche de transactions ; les critères absents ne filtrent pas.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionSearchRequest {
+    private Long structureId;
+    private Long serviceId;
+    private List<String> statuses;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+    private String cursor;
+    private Integer size;
+}
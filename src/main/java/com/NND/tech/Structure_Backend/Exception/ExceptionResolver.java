@@ -28,6 +28,8 @@ public class ExceptionResolver extends ResponseEntityExceptionHandler {
             return createProblemDetail(403, exception.getMessage(), "The JWT signature is invalid");
         } else if (exception instanceof ExpiredJwtException) {
             return createProblemDetail(403, exception.getMessage(), "The JWT token has expired");
+        } else if (exception instanceof IllegalArgumentException) {
+            return createProblemDetail(400, exception.getMessage(), "The request parameters are invalid");
         } else {
             return createProblemDetail(500, exception.getMessage(), "Unknown internal server error.");
         }
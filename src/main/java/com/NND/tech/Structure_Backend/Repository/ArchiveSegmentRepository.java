@@ -0,0 +1,33 @@
+package com.NND.tech.Structure_Backend.Repository;
+
+import com.NND.tech.Structure_Backend.model.entity.ArchiveSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ArchiveSegmentRepository extends JpaRepository<ArchiveSegment, Long> {
+
+    /**
+     * Segments dont les mois recouvrent la plage, du mois le plus récent au plus ancien
+     * @param startMonth premier jour du premier mois
+     * @param endMonth premier jour du dernier mois
+     */
+    @Query("SELECT s FROM ArchiveSegment s WHERE s.month BETWEEN :startMonth AND :endMonth ORDER BY s.month DESC, s.id DESC")
+    List<ArchiveSegment> findByMonthRange(@Param("startMonth") LocalDate startMonth, @Param("endMonth") LocalDate endMonth);
+
+    /**
+     * Segments dont la plage d'identifiants contient {@code id}
+     */
+    @Query("SELECT s FROM ArchiveSegment s WHERE s.minId <= :id AND s.maxId >= :id")
+    List<ArchiveSegment> findContainingId(@Param("id") long id);
+
+    /**
+     * Tous les segments, par plus petit identifiant de transaction croissant
+     */
+    List<ArchiveSegment> findAllByOrderByMinIdAsc();
+}
@@ -0,0 +1,25 @@
+package com.NND.tech.Structure_Backend.Repository;
+
+import com.NND.tech.Structure_Backend.model.entity.ArchiveSegmentSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.stream.Stream;
+
+@Repository
+public interface ArchiveSegmentSummaryRepository extends JpaRepository<ArchiveSegmentSummary, Long> {
+
+    /**
+     * Agrège les résumés de tous les segments selon la clé des rollups journaliers
+     * (reconstruction de {@code daily_revenue_rollups}). Le flux doit être consommé dans une transaction.
+     */
+    @Query("""
+        SELECT s.structureId AS structureId, s.serviceId AS serviceId,
+               s.day AS day, s.status AS status,
+               SUM(s.transactionCount) AS transactionCount, SUM(s.amountMinor) AS amountMinor
+        FROM ArchiveSegmentSummary s
+        GROUP BY s.structureId, s.serviceId, s.day, s.status
+    """)
+    Stream<TransactionRepository.RollupSource> aggregateByRollupKey();
+}
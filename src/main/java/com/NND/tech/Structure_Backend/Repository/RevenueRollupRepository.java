@@ -0,0 +1,151 @@
+package com.NND.tech.Structure_Backend.Repository;
+
+import com.NND.tech.Structure_Backend.model.entity.DailyRevenueRollup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface RevenueRollupRepository extends JpaRepository<DailyRevenueRollup, Long>, RevenueRollupRepositoryCustom {
+
+    /**
+     * Totaux (nombre, chiffre d'affaires en unités mineures) sur tout l'historique
+     */
+    @Query("""
+        SELECT COALESCE(SUM(r.transactionCount), 0) AS transactionCount, COALESCE(SUM(r.amountMinor), 0) AS amountMinor
+        FROM DailyRevenueRollup r
+    """)
+    RevenueTotal getTotals();
+
+    /**
+     * Totaux (nombre, chiffre d'affaires en unités mineures) pour une plage de dates
+     */
+    @Query("""
+        SELECT COALESCE(SUM(r.transactionCount), 0) AS transactionCount, COALESCE(SUM(r.amountMinor), 0) AS amountMinor
+        FROM DailyRevenueRollup r
+        WHERE r.day BETWEEN :startDate AND :endDate
+    """)
+    RevenueTotal getTotalsByDateRange(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    /**
+     * Totaux (nombre, chiffre d'affaires en unités mineures) pour une structure
+     */
+    @Query("""
+        SELECT COALESCE(SUM(r.transactionCount), 0) AS transactionCount, COALESCE(SUM(r.amountMinor), 0) AS amountMinor
+        FROM DailyRevenueRollup r
+        WHERE r.structureId = :structureId
+    """)
+    RevenueTotal getTotalsByStructureId(@Param("structureId") Long structureId);
+
+    /**
+     * Chiffre d'affaires et nombre de transactions par jour
+     * @return une ligne par jour ayant au moins une transaction
+     */
+    @Query("""
+        SELECT r.day AS day, SUM(r.amountMinor) AS amountMinor, SUM(r.transactionCount) AS transactionCount
+        FROM DailyRevenueRollup r
+        WHERE r.day BETWEEN :startDate AND :endDate
+        GROUP BY r.day
+    """)
+    List<DailyRevenue> getDailyRevenue(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    /**
+     * Classe les structures par chiffre d'affaires ; tri et limite appliqués par la base.
+     * @param startDate date de début
+     * @param endDate date de fin
+     * @param pageable nombre de structures à retourner
+     */
+    @Query("""
+        SELECT s.id AS structureId, s.name AS structureName,
+               SUM(r.amountMinor) AS amountMinor, SUM(r.transactionCount) AS transactionCount
+        FROM DailyRevenueRollup r JOIN Structure s ON s.id = r.structureId
+        WHERE r.day BETWEEN :startDate AND :endDate
+        GROUP BY s.id, s.name
+        HAVING SUM(r.amountMinor) > 0
+        ORDER BY SUM(r.amountMinor) DESC, s.id
+    """)
+    List<StructureRevenue> findTopStructuresByRevenue(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            Pageable pageable);
+
+    /**
+     * Chiffre d'affaires et nombre de transactions par catégorie de service (catégorie courante),
+     * toutes structures confondues
+     */
+    @Query("""
+        SELECT sv.category AS category, SUM(r.amountMinor) AS amountMinor, SUM(r.transactionCount) AS transactionCount
+        FROM DailyRevenueRollup r JOIN ServiceEntity sv ON sv.id = r.serviceId
+        WHERE r.day BETWEEN :startDate AND :endDate
+        GROUP BY sv.category
+        HAVING SUM(r.transactionCount) > 0
+        ORDER BY SUM(r.amountMinor) DESC
+    """)
+    List<CategoryRevenue> getRevenueByCategory(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    /**
+     * Chiffre d'affaires et nombre de transactions par catégorie de service (catégorie courante)
+     * pour une structure
+     * @param structureId l'ID de la structure
+     */
+    @Query("""
+        SELECT sv.category AS category, SUM(r.amountMinor) AS amountMinor, SUM(r.transactionCount) AS transactionCount
+        FROM DailyRevenueRollup r JOIN ServiceEntity sv ON sv.id = r.serviceId
+        WHERE r.structureId = :structureId
+        AND r.day BETWEEN :startDate AND :endDate
+        GROUP BY sv.category
+        HAVING SUM(r.transactionCount) > 0
+        ORDER BY SUM(r.amountMinor) DESC
+    """)
+    List<CategoryRevenue> getRevenueByCategoryAndStructureId(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("structureId") Long structureId);
+
+    /**
+     * Projection de totaux (nombre, chiffre d'affaires)
+     */
+    interface RevenueTotal {
+        Long getTransactionCount();
+        Long getAmountMinor();
+    }
+
+    /**
+     * Projection d'un agrégat journalier de revenus
+     */
+    interface DailyRevenue {
+        LocalDate getDay();
+        Long getAmountMinor();
+        Long getTransactionCount();
+    }
+
+    /**
+     * Projection du chiffre d'affaires agrégé d'une catégorie
+     */
+    interface CategoryRevenue {
+        String getCategory();
+        Long getAmountMinor();
+        Long getTransactionCount();
+    }
+
+    /**
+     * Projection du chiffre d'affaires agrégé d'une structure
+     */
+    interface StructureRevenue {
+        Long getStructureId();
+        String getStructureName();
+        Long getAmountMinor();
+        Long getTransactionCount();
+    }
+}
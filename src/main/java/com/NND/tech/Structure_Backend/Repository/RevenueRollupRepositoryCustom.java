@@ -0,0 +1,84 @@
+package com.NND.tech.Structure_Backend.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Requêtes des rollups dont la forme dépend de la demande (dimensions et filtres choisis par l'appelant).
+ */
+public interface RevenueRollupRepositoryCustom {
+
+    /**
+     * Agrège les rollups selon les dimensions demandées, en une seule requête groupée.
+     * @param dimensions dimensions de regroupement, dans l'ordre des colonnes retournées
+     * @param filter plage de dates (obligatoire) et filtres optionnels
+     * @param maxRows nombre maximum de lignes lues
+     * @return une ligne par cellule : valeurs des dimensions, puis nombre de transactions et montant en unités mineures
+     */
+    List<Object[]> aggregateCube(List<Dimension> dimensions, CubeFilter filter, int maxRows);
+
+    /**
+     * Ajoute des deltas (nombre, montant en unités mineures) aux lignes d'agrégat, en les créant si nécessaire.
+     * Upserts atomiques envoyés en un lot JDBC : deux transactions concurrentes sur la même clé ne se perdent pas.
+     */
+    void applyDeltas(Collection<RollupDelta> deltas);
+
+    /**
+     * Verrou partagé des écritures de rollups, tenu jusqu'à la fin de la transaction courante.
+     * Plusieurs écritures le partagent ; une reconstruction en cours les fait attendre.
+     */
+    void lockForDeltas();
+
+    /**
+     * Verrou exclusif des rollups, tenu jusqu'à la fin de la transaction courante : attend la fin
+     * des écritures en cours et bloque les suivantes.
+     */
+    void lockForRebuild();
+
+    /**
+     * Delta d'une ligne d'agrégat ; statut déjà normalisé (jamais null)
+     */
+    record RollupDelta(
+            Long structureId,
+            Long serviceId,
+            LocalDate day,
+            String status,
+            long count,
+            long amountMinor) {
+    }
+
+    /**
+     * Dimensions autorisées et expression JPQL correspondante (liste fermée : rien n'est concaténé
+     * depuis la requête HTTP).
+     */
+    enum Dimension {
+        STRUCTURE("r.structureId"),
+        SERVICE("r.serviceId"),
+        // Jointure sur services ajoutée par la requête
+        CATEGORY("sv.category"),
+        DAY("r.day"),
+        STATUS("r.status");
+
+        private final String expression;
+
+        Dimension(String expression) {
+            this.expression = expression;
+        }
+
+        public String expression() {
+            return expression;
+        }
+    }
+
+    /**
+     * Filtres du cube ; une collection nulle ou vide n'est pas appliquée.
+     */
+    record CubeFilter(
+            LocalDate startDate,
+            LocalDate endDate,
+            Collection<Long> structureIds,
+            Collection<String> categories,
+            Collection<String> statuses) {
+    }
+}
@@ -0,0 +1,110 @@
+package com.NND.tech.Structure_Backend.Repository;
+
+import com.NND.tech.Structure_Backend.model.entity.RollupLock;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.Session;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class RevenueRollupRepositoryCustomImpl implements RevenueRollupRepositoryCustom {
+
+    private static final String UPSERT = """
+        INSERT INTO daily_revenue_rollups
+            (structure_id, service_id, rollup_date, status, transaction_count, amount_minor)
+        VALUES (?, ?, ?, ?, ?, ?)
+        ON DUPLICATE KEY UPDATE
+            transaction_count = transaction_count + VALUES(transaction_count),
+            amount_minor = amount_minor + VALUES(amount_minor)
+    """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Object[]> aggregateCube(List<Dimension> dimensions, CubeFilter filter, int maxRows) {
+        String groupBy = dimensions.stream().map(Dimension::expression).collect(Collectors.joining(", "));
+
+        StringBuilder jpql = new StringBuilder("SELECT ");
+        if (!dimensions.isEmpty()) {
+            jpql.append(groupBy).append(", ");
+        }
+        jpql.append("SUM(r.transactionCount), SUM(r.amountMinor) FROM DailyRevenueRollup r");
+        if (dimensions.contains(Dimension.CATEGORY) || isPresent(filter.categories())) {
+            // Catégorie courante du service, jamais figée dans les rollups
+            jpql.append(" JOIN ServiceEntity sv ON sv.id = r.serviceId");
+        }
+        jpql.append(" WHERE r.day BETWEEN :startDate AND :endDate");
+        if (isPresent(filter.structureIds())) {
+            jpql.append(" AND r.structureId IN :structureIds");
+        }
+        if (isPresent(filter.categories())) {
+            jpql.append(" AND sv.category IN :categories");
+        }
+        if (isPresent(filter.statuses())) {
+            jpql.append(" AND r.status IN :statuses");
+        }
+        if (!dimensions.isEmpty()) {
+            jpql.append(" GROUP BY ").append(groupBy)
+                .append(" HAVING SUM(r.transactionCount) <> 0")
+                .append(" ORDER BY ").append(groupBy);
+        }
+
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql.toString(), Object[].class)
+            .setParameter("startDate", filter.startDate())
+            .setParameter("endDate", filter.endDate())
+            .setMaxResults(maxRows);
+        if (isPresent(filter.structureIds())) {
+            query.setParameter("structureIds", filter.structureIds());
+        }
+        if (isPresent(filter.categories())) {
+            query.setParameter("categories", filter.categories());
+        }
+        if (isPresent(filter.statuses())) {
+            query.setParameter("statuses", filter.statuses());
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public void applyDeltas(Collection<RollupDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(UPSERT)) {
+                for (RollupDelta delta : deltas) {
+                    statement.setLong(1, delta.structureId());
+                    statement.setLong(2, delta.serviceId());
+                    statement.setDate(3, Date.valueOf(delta.day()));
+                    statement.setString(4, delta.status());
+                    statement.setLong(5, delta.count());
+                    statement.setLong(6, delta.amountMinor());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    @Override
+    public void lockForDeltas() {
+        // FOR SHARE sur MySQL ; les dialectes sans verrou partagé se rabattent sur FOR UPDATE
+        entityManager.find(RollupLock.class, RollupLock.DAILY_REVENUE_ROLLUPS, LockModeType.PESSIMISTIC_READ);
+    }
+
+    @Override
+    public void lockForRebuild() {
+        entityManager.find(RollupLock.class, RollupLock.DAILY_REVENUE_ROLLUPS, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    private static boolean isPresent(Collection<?> values) {
+        return values != null && !values.isEmpty();
+    }
+}
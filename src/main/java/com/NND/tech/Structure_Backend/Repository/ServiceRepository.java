@@ -2,8 +2,11 @@ package com.NND.tech.Structure_Backend.Repository;
 
 import com.NND.tech.Structure_Backend.model.entity.ServiceEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,4 +21,24 @@ public interface ServiceRepository extends JpaRepository<ServiceEntity, Long> {
     List<ServiceEntity> findByStructure(com.NND.tech.Structure_Backend.model.entity.Structure structure);
     List<ServiceEntity> findByCategory(String category);
     List<ServiceEntity> findByStructureAndActiveTrue(com.NND.tech.Structure_Backend.model.entity.Structure structure);
+
+    /**
+     * Structure des services donnés, sans charger les entités (imports en masse)
+     */
+    @Query("SELECT s.id AS id, s.structure.id AS structureId FROM ServiceEntity s WHERE s.id IN :ids")
+    List<ImportTarget> findImportTargets(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Noms des services d'une structure (actifs ou non)
+     */
+    @Query("SELECT s.name FROM ServiceEntity s WHERE s.structure.id = :structureId")
+    List<String> findNamesByStructureId(@Param("structureId") Long structureId);
+
+    /**
+     * Projection d'un service cible d'une transaction importée
+     */
+    interface ImportTarget {
+        Long getId();
+        Long getStructureId();
+    }
 }
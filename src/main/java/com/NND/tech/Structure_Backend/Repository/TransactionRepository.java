@@ -1,90 +1,199 @@
 package com.NND.tech.Structure_Backend.Repository;
 
 import com.NND.tech.Structure_Backend.model.entity.Transaction;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionRepositoryCustom {
     
     /**
-     * Calcule le chiffre d'affaires total
-     * @return le montant total des transactions
-     */
-    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t")
-    double getTotalRevenue();
-    
-    /**
-     * Calcule le chiffre d'affaires pour une plage de dates
+     * Agrège le chiffre d'affaires et le nombre de transactions par jour et par heure de création
      * @param startDate date de début
      * @param endDate date de fin
-     * @return le montant total des transactions dans l'intervalle
+     * @return une ligne par heure ayant au moins une transaction
      */
-    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t WHERE t.transactionDate BETWEEN :startDate AND :endDate")
-    double getTotalRevenueByDateRange(
+    @Query("""
+        SELECT t.transactionDate AS day, HOUR(t.createdAt) AS hour, CAST(SUM(t.amount * 100) AS long) AS amountMinor, COUNT(t) AS transactionCount
+        FROM Transaction t
+        WHERE t.transactionDate BETWEEN :startDate AND :endDate
+        GROUP BY t.transactionDate, HOUR(t.createdAt)
+    """)
+    List<HourlyRevenue> getHourlyRevenue(
             @Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate);
-    
+
+    java.util.Optional<Transaction> findFirstByOrderId(String orderId);
+
     /**
-     * Calcule le chiffre d'affaires pour une structure spécifique
-     * @param structureId l'ID de la structure
-     * @return le montant total des transactions pour cette structure
+     * Parmi les références données, celles déjà portées par une transaction (index unique)
      */
-    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t WHERE t.structure.id = :structureId")
-    double getTotalRevenueByStructureId(@Param("structureId") Long structureId);
-    
+    @Query("SELECT t.reference FROM Transaction t WHERE t.reference IN :references")
+    List<String> findExistingReferences(@Param("references") Collection<String> references);
+
     /**
-     * Compte le nombre de transactions pour une structure spécifique
-     * @param structureId l'ID de la structure
-     * @return le nombre de transactions pour cette structure
+     * Lit le statut courant en base, sans passer par le contexte de persistance
      */
-    long countByStructureId(Long structureId);
-    
+    @Query("SELECT t.id AS id, t.status AS status FROM Transaction t WHERE t.id = :id")
+    java.util.Optional<StatusRow> findStatusById(@Param("id") Long id);
+
     /**
-     * Récupère les transactions entre deux dates
-     * @param startDate date de début
-     * @param endDate date de fin
-     * @return liste des transactions dans l'intervalle
+     * Charge et verrouille (SELECT ... FOR UPDATE) les transactions données, par identifiant croissant
+     * pour que deux lots concurrents prennent les verrous dans le même ordre
      */
-    List<Transaction> findByTransactionDateBetween(LocalDate startDate, LocalDate endDate);
-    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transaction t WHERE t.id IN :ids ORDER BY t.id")
+    List<Transaction> lockAllById(@Param("ids") Collection<Long> ids);
+
     /**
-     * Compte le nombre de transactions entre deux dates
-     * @param startDate date de début
-     * @param endDate date de fin
-     * @return le nombre de transactions dans l'intervalle
+     * Identifiants des transactions portant les références données (webhooks traités par lot)
      */
-    long countByTransactionDateBetween(LocalDate startDate, LocalDate endDate);
-    
+    @Query("SELECT t.id AS id, t.reference AS reference, t.orderId AS orderId FROM Transaction t WHERE t.reference IN :references")
+    List<PaymentKey> findKeysByReferenceIn(@Param("references") Collection<String> references);
+
     /**
-     * Calcule le chiffre d'affaires pour une catégorie spécifique dans une plage de dates
-     * @param category la catégorie de service
-     * @param startDate date de début
-     * @param endDate date de fin
-     * @return le montant total des transactions pour cette catégorie dans l'intervalle
+     * Identifiants des transactions portant les identifiants de commande donnés, par identifiant croissant
+     */
+    @Query("SELECT t.id AS id, t.reference AS reference, t.orderId AS orderId FROM Transaction t WHERE t.orderId IN :orderIds ORDER BY t.id")
+    List<PaymentKey> findKeysByOrderIdIn(@Param("orderIds") Collection<String> orderIds);
+
+    /**
+     * Change le statut seulement s'il vaut encore {@code expected} (chaîne vide pour un statut nul) :
+     * une écriture concurrente intervenue depuis la lecture fait échouer la mise à jour au lieu
+     * d'être écrasée.
+     * @return 1 si la transition est appliquée, 0 sinon
      */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
     @Query("""
-        SELECT COALESCE(SUM(t.amount), 0) 
-        FROM Transaction t 
-        WHERE t.service.category = :category 
-        AND t.transactionDate BETWEEN :startDate AND :endDate
+        UPDATE Transaction t
+        SET t.status = :status, t.isConfirmed = :confirmed, t.confirmationDate = :confirmationDate
+        WHERE t.id = :id AND COALESCE(t.status, '') = :expected
     """)
-    double getTotalRevenueByCategoryAndDateRange(
-            @Param("category") String category,
-            @Param("startDate") LocalDate startDate,
-            @Param("endDate") LocalDate endDate);
-    
+    int compareAndSetStatus(
+            @Param("id") Long id,
+            @Param("expected") String expected,
+            @Param("status") String status,
+            @Param("confirmed") boolean confirmed,
+            @Param("confirmationDate") LocalDate confirmationDate);
+
     /**
-     * Récupère les transactions pour une structure spécifique
-     * @param structureId l'ID de la structure
-     * @return liste des transactions pour cette structure
+     * Date de la plus ancienne transaction confirmée antérieure à la date donnée (archivage)
+     * @return la date, ou null s'il n'y a rien à archiver
      */
-    List<Transaction> findByStructureId(Long structureId);
+    @Query("SELECT MIN(t.transactionDate) FROM Transaction t WHERE t.isConfirmed = true AND t.transactionDate < :cutoff")
+    LocalDate findOldestArchivableDate(@Param("cutoff") LocalDate cutoff);
 
-    java.util.Optional<Transaction> findFirstByOrderId(String orderId);
+    /**
+     * Supprime des transactions archivées ; une transaction déconfirmée entre-temps est conservée
+     * @return le nombre de lignes supprimées
+     */
+    @Modifying
+    @Query("DELETE FROM Transaction t WHERE t.id IN :ids AND t.isConfirmed = true")
+    int deleteArchived(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Parcourt les références et orderId de toutes les transactions, pour le chargement du filtre
+     * des références connues. Le flux doit être consommé dans une transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t.reference AS reference, t.orderId AS orderId FROM Transaction t")
+    Stream<ReferenceKey> streamReferenceKeys();
+
+    /**
+     * Agrège les transactions selon la clé des rollups journaliers (reconstruction de
+     * {@code daily_revenue_rollups}). Le flux doit être consommé dans une transaction.
+     */
+    @Query("""
+        SELECT t.structure.id AS structureId, t.service.id AS serviceId,
+               t.transactionDate AS day, t.status AS status,
+               COUNT(t) AS transactionCount, CAST(SUM(t.amount * 100) AS long) AS amountMinor
+        FROM Transaction t
+        GROUP BY t.structure.id, t.service.id, t.transactionDate, t.status
+    """)
+    Stream<RollupSource> aggregateByRollupKey();
+
+    /**
+     * Parcourt les transactions par id croissant, sans matérialiser d'entités, pour le
+     * chargement de l'index analytique. Le flux doit être consommé dans une transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+        SELECT t.id AS id, t.transactionDate AS day, t.structure.id AS structureId,
+               t.service.id AS serviceId, CAST(t.amount * 100 AS long) AS amountMinor, t.status AS status
+        FROM Transaction t
+        ORDER BY t.id
+    """)
+    Stream<AnalyticsFact> streamAnalyticsFacts();
+
+    /**
+     * Projection d'un agrégat horaire de revenus (heure nulle pour les transactions sans horodatage)
+     */
+    interface HourlyRevenue {
+        LocalDate getDay();
+        Integer getHour();
+        Long getAmountMinor();
+        Long getTransactionCount();
+    }
+
+    /**
+     * Projection d'une transaction réduite aux colonnes de l'index analytique
+     */
+    interface AnalyticsFact {
+        Long getId();
+        LocalDate getDay();
+        Long getStructureId();
+        Long getServiceId();
+        Long getAmountMinor();
+        String getStatus();
+    }
+
+    /**
+     * Projection des identifiants interne et externes d'une transaction
+     */
+    interface PaymentKey {
+        Long getId();
+        String getReference();
+        String getOrderId();
+    }
+
+    /**
+     * Projection du statut d'une transaction
+     */
+    interface StatusRow {
+        Long getId();
+        String getStatus();
+    }
+
+    /**
+     * Projection des identifiants externes d'une transaction
+     */
+    interface ReferenceKey {
+        String getReference();
+        String getOrderId();
+    }
+
+    /**
+     * Projection d'un groupe de transactions partageant la même clé de rollup
+     */
+    interface RollupSource {
+        Long getStructureId();
+        Long getServiceId();
+        LocalDate getDay();
+        String getStatus();
+        Long getTransactionCount();
+        Long getAmountMinor();
+    }
 }
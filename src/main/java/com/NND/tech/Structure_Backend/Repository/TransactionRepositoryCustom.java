@@ -0,0 +1,63 @@
+package com.NND.tech.Structure_Backend.Repository;
+
+import com.NND.tech.Structure_Backend.model.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Recherche de transactions dont la forme dépend de la demande (filtres choisis par l'appelant).
+ */
+public interface TransactionRepositoryCustom {
+
+    /**
+     * Recherche paginée par clé (seek) sur {@code (transaction_date, id)}, du plus récent au plus ancien :
+     * la page suivante reprend strictement après la dernière ligne lue, sans OFFSET, d'où un coût
+     * constant quelle que soit la page.
+     * @param filter filtres optionnels
+     * @param after position de reprise (nulle pour la première page)
+     * @param limit nombre maximum de lignes lues
+     */
+    List<Transaction> search(SearchFilter filter, SeekPosition after, int limit);
+
+    /**
+     * Parcours en avant seulement (curseur serveur, lecture par blocs) des transactions filtrées,
+     * dans l'ordre de {@link #search}. Les entités lues sont en lecture seule ; l'appelant vide le
+     * contexte de persistance au fil de la lecture. Le flux doit être consommé et fermé dans une
+     * transaction.
+     * @param filter filtres optionnels
+     */
+    Stream<Transaction> stream(SearchFilter filter);
+
+    /**
+     * Parcours en avant seulement des transactions confirmées d'une plage de dates, par
+     * {@code (transaction_date, id)} croissant, pour l'archivage. Le flux doit être consommé
+     * et fermé dans une transaction.
+     * @param from premier jour inclus
+     * @param to dernier jour exclu
+     * @param limit nombre maximum de lignes lues
+     */
+    Stream<Transaction> streamArchivable(LocalDate from, LocalDate to, int limit);
+
+    /**
+     * Filtres de recherche ; un critère nul (ou une collection vide) n'est pas appliqué.
+     */
+    record SearchFilter(
+            Long structureId,
+            Long serviceId,
+            Collection<String> statuses,
+            LocalDate startDate,
+            LocalDate endDate,
+            BigDecimal minAmount,
+            BigDecimal maxAmount) {
+    }
+
+    /**
+     * Clé de tri de la dernière ligne d'une page
+     */
+    record SeekPosition(LocalDate transactionDate, Long id) {
+    }
+}
@@ -0,0 +1,96 @@
+package com.NND.tech.Structure_Backend.Repository;
+
+import com.NND.tech.Structure_Backend.model.entity.Transaction;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class TransactionRepositoryCustomImpl implements TransactionRepositoryCustom {
+
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Transaction> search(SearchFilter filter, SeekPosition after, int limit) {
+        return createQuery(filter, after)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+
+    @Override
+    public Stream<Transaction> stream(SearchFilter filter) {
+        return createQuery(filter, null)
+            .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+            .setHint(HibernateHints.HINT_READ_ONLY, true)
+            .getResultStream();
+    }
+
+    @Override
+    public Stream<Transaction> streamArchivable(LocalDate from, LocalDate to, int limit) {
+        return entityManager.createQuery("""
+                SELECT t FROM Transaction t
+                WHERE t.isConfirmed = true AND t.transactionDate >= :from AND t.transactionDate < :to
+                ORDER BY t.transactionDate, t.id
+                """, Transaction.class)
+            .setParameter("from", from)
+            .setParameter("to", to)
+            .setMaxResults(limit)
+            .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+            .setHint(HibernateHints.HINT_READ_ONLY, true)
+            .getResultStream();
+    }
+
+    private TypedQuery<Transaction> createQuery(SearchFilter filter, SeekPosition after) {
+        StringBuilder jpql = new StringBuilder("SELECT t FROM Transaction t WHERE 1 = 1");
+        Map<String, Object> parameters = new LinkedHashMap<>();
+
+        if (filter.structureId() != null) {
+            jpql.append(" AND t.structure.id = :structureId");
+            parameters.put("structureId", filter.structureId());
+        }
+        if (filter.serviceId() != null) {
+            jpql.append(" AND t.service.id = :serviceId");
+            parameters.put("serviceId", filter.serviceId());
+        }
+        if (filter.statuses() != null && !filter.statuses().isEmpty()) {
+            jpql.append(" AND t.status IN :statuses");
+            parameters.put("statuses", filter.statuses());
+        }
+        if (filter.startDate() != null) {
+            jpql.append(" AND t.transactionDate >= :startDate");
+            parameters.put("startDate", filter.startDate());
+        }
+        if (filter.endDate() != null) {
+            jpql.append(" AND t.transactionDate <= :endDate");
+            parameters.put("endDate", filter.endDate());
+        }
+        if (filter.minAmount() != null) {
+            jpql.append(" AND t.amount >= :minAmount");
+            parameters.put("minAmount", filter.minAmount());
+        }
+        if (filter.maxAmount() != null) {
+            jpql.append(" AND t.amount <= :maxAmount");
+            parameters.put("maxAmount", filter.maxAmount());
+        }
+        if (after != null) {
+            // Reprise strictement après la dernière ligne de la page précédente
+            jpql.append(" AND (t.transactionDate < :afterDate OR (t.transactionDate = :afterDate AND t.id < :afterId))");
+            parameters.put("afterDate", after.transactionDate());
+            parameters.put("afterId", after.id());
+        }
+        jpql.append(" ORDER BY t.transactionDate DESC, t.id DESC");
+
+        TypedQuery<Transaction> query = entityManager.createQuery(jpql.toString(), Transaction.class);
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+}
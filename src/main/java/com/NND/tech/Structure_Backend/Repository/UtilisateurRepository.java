@@ -3,6 +3,8 @@ package com.NND.tech.Structure_Backend.Repository;
 import com.NND.tech.Structure_Backend.model.entity.User;
 import com.NND.tech.Structure_Backend.model.entity.RoleType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,7 +14,9 @@ import java.util.Optional;
 public interface UtilisateurRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     List<User> findByRole(RoleType role);
-    List<User> findByStructureId(Long structureId);
+    // Filtre sur la clé étrangère, sans jointure externe vers structures (association optionnelle)
+    @Query("SELECT u FROM User u WHERE u.structure.id = :structureId")
+    List<User> findByStructureId(@Param("structureId") Long structureId);
     List<User> findByActiveTrue();
     Optional<User> findByIdAndActiveTrue(Long id);
     boolean existsByEmail(String email);
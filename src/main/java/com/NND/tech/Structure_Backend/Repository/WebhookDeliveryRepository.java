@@ -0,0 +1,30 @@
+package com.NND.tech.Structure_Backend.Repository;
+
+import com.NND.tech.Structure_Backend.model.entity.WebhookDelivery;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WebhookDeliveryRepository extends JpaRepository<WebhookDelivery, String> {
+
+    /**
+     * Parmi les clés données, celles déjà enregistrées (clé primaire)
+     */
+    @Query("SELECT d.deliveryKey FROM WebhookDelivery d WHERE d.deliveryKey IN :keys")
+    List<String> findExistingKeys(@Param("keys") Collection<String> keys);
+
+    /**
+     * Purge les livraisons reçues avant la date donnée (index sur received_at)
+     * @return le nombre de lignes supprimées
+     */
+    @Modifying
+    @Query("DELETE FROM WebhookDelivery d WHERE d.receivedAt < :before")
+    int deleteReceivedBefore(@Param("before") LocalDateTime before);
+}
@@ -32,6 +32,7 @@ public class AuthenticationService {
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
     private final PasswordEncoder passwordEncoder;
+    private final GlobalStatsCounters globalCounters;
 
     public AuthenticationResponse authenticate(AuthenticationRequest request) {
         logger.info("=== Début de l'authentification pour: " + request.getEmail() + " ===");
@@ -124,6 +125,7 @@ public class AuthenticationService {
             // Association de structure non gérée ici (RegisterRequest ne contient pas de structureId)
 
             User savedUser = userRepository.save(user);
+            globalCounters.userCreated();
 
             // Générer le token après l'enregistrement
             UserDetails springUser = org.springframework.security.core.userdetails.User
@@ -0,0 +1,388 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.DTO.ImportChunkReport;
+import com.NND.tech.Structure_Backend.DTO.ImportSummary;
+import com.NND.tech.Structure_Backend.DTO.ServiceImportRow;
+import com.NND.tech.Structure_Backend.DTO.TransactionImportRow;
+import com.NND.tech.Structure_Backend.Exception.ResourceNotFoundException;
+import com.NND.tech.Structure_Backend.Repository.ServiceRepository;
+import com.NND.tech.Structure_Backend.Repository.StructureRepository;
+import com.NND.tech.Structure_Backend.Repository.TransactionRepository;
+import com.NND.tech.Structure_Backend.event.TransactionChange;
+import com.NND.tech.Structure_Backend.event.TransactionEventPublisher;
+import com.NND.tech.Structure_Backend.event.TransactionSnapshot;
+import com.NND.tech.Structure_Backend.model.entity.ServiceEntity;
+import com.NND.tech.Structure_Backend.model.entity.Structure;
+import com.NND.tech.Structure_Backend.model.entity.Transaction;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Imports en masse de transactions et de services à partir de flux NDJSON ou CSV.
+ * <p>
+ * Le flux est lu ligne à ligne et découpé en lots ; chaque lot est validé dans sa propre
+ * transaction (identifiants réservés par blocs, inserts JDBC par lots) puis signalé à l'appelant.
+ * Une ligne invalide est rejetée sans bloquer son lot ; un lot en échec est annulé sans bloquer
+ * les suivants.
+ */
+@Slf4j
+@Service
+public class BulkImportService {
+
+    public static final int MAX_CHUNK_SIZE = 10_000;
+
+    // Au-delà, les erreurs d'un lot sont comptées mais pas détaillées
+    private static final int MAX_ERRORS_PER_CHUNK = 50;
+    private static final Set<String> IMPORT_STATUSES = Set.of("PENDING", "SUCCESS", "FAILED");
+
+    private final TransactionRepository transactionRepository;
+    private final ServiceRepository serviceRepository;
+    private final StructureRepository structureRepository;
+    private final TransactionEventPublisher transactionEventPublisher;
+    private final TransactionArchiveService archiveService;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate chunkTransaction;
+    private final int defaultChunkSize;
+
+    public BulkImportService(TransactionRepository transactionRepository,
+                             ServiceRepository serviceRepository,
+                             StructureRepository structureRepository,
+                             TransactionEventPublisher transactionEventPublisher,
+                             TransactionArchiveService archiveService,
+                             EntityManager entityManager,
+                             ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.imports.chunk-size:1000}") int defaultChunkSize) {
+        this.transactionRepository = transactionRepository;
+        this.serviceRepository = serviceRepository;
+        this.structureRepository = structureRepository;
+        this.transactionEventPublisher = transactionEventPublisher;
+        this.archiveService = archiveService;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.defaultChunkSize = defaultChunkSize;
+    }
+
+    /**
+     * Vérifie avant toute lecture du flux que la structure peut recevoir des services importés
+     * @throws ResourceNotFoundException si la structure n'existe pas ou est désactivée
+     */
+    public void checkServiceImportTarget(Long structureId) {
+        if (structureRepository.findByIdAndActiveTrue(structureId).isEmpty()) {
+            throw new ResourceNotFoundException("Structure non trouvée avec l'id : " + structureId);
+        }
+    }
+
+    /**
+     * Importe des transactions. La structure est celle du service ; les transactions SUCCESS
+     * sont importées confirmées. Une ligne datée d'un mois archivé est aussi vérifiée contre les
+     * références des segments de ce mois, chargées une fois par import (réimport d'un export).
+     * @param chunkSize taille des lots (optionnelle)
+     * @param progress reçoit le bilan de chaque lot dès sa validation
+     */
+    public ImportSummary importTransactions(InputStream input, DataFormat format, Integer chunkSize,
+                                            Consumer<ImportChunkReport> progress) {
+        Map<Long, ServiceTarget> services = new HashMap<>();
+        Map<YearMonth, Set<String>> archived = new HashMap<>();
+        return run(input, format, chunkSize, TransactionImportRow.class, progress,
+                (rows, report) -> writeTransactions(rows, report, services, archived));
+    }
+
+    /**
+     * Importe des services dans une structure ; les noms déjà présents sont rejetés.
+     * @param chunkSize taille des lots (optionnelle)
+     * @param progress reçoit le bilan de chaque lot dès sa validation
+     */
+    public ImportSummary importServices(Long structureId, InputStream input, DataFormat format, Integer chunkSize,
+                                        Consumer<ImportChunkReport> progress) {
+        checkServiceImportTarget(structureId);
+        Set<String> names = new HashSet<>(serviceRepository.findNamesByStructureId(structureId));
+        return run(input, format, chunkSize, ServiceImportRow.class, progress,
+                (rows, report) -> writeServices(structureId, rows, report, names));
+    }
+
+    private <T> ImportSummary run(InputStream input, DataFormat format, Integer chunkSize, Class<T> rowType,
+                                  Consumer<ImportChunkReport> progress, ChunkWriter<T> writer) {
+        int size = chunkSize == null ? defaultChunkSize : chunkSize;
+        if (size < 1 || size > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("La taille de lot doit être comprise entre 1 et " + MAX_CHUNK_SIZE);
+        }
+        long start = System.currentTimeMillis();
+        ImportRowReader reader = new ImportRowReader(input, format, objectMapper);
+        ImportSummary summary = ImportSummary.builder().build();
+
+        List<Row<T>> rows = new ArrayList<>(size);
+        ImportChunkReport report = newReport(1);
+        ImportRowReader.Line line;
+        while ((line = reader.next()) != null) {
+            summary.setLines(summary.getLines() + 1);
+            if (report.getFirstLine() == 0) {
+                report.setFirstLine(line.number());
+            }
+            report.setLastLine(line.number());
+            if (line.error() != null) {
+                reject(report, line.number(), line.error());
+            } else {
+                try {
+                    rows.add(new Row<>(line.number(), objectMapper.convertValue(line.values(), rowType)));
+                } catch (IllegalArgumentException e) {
+                    reject(report, line.number(), "Valeur invalide : " + rootMessage(e));
+                }
+            }
+            if (rows.size() + report.getRejected() >= size) {
+                complete(rows, report, writer, summary, progress);
+                rows = new ArrayList<>(size);
+                report = newReport(report.getChunk() + 1);
+            }
+        }
+        if (report.getFirstLine() != 0) {
+            complete(rows, report, writer, summary, progress);
+        }
+
+        summary.setDurationMs(System.currentTimeMillis() - start);
+        summary.setRowsPerSecond(summary.getImported() * 1000 / Math.max(1, summary.getDurationMs()));
+        log.info("Import {} : {} lignes, {} importées, {} rejetées en {} lots et {} ms ({} lignes/s)",
+                rowType.getSimpleName(), summary.getLines(), summary.getImported(), summary.getRejected(),
+                summary.getChunks(), summary.getDurationMs(), summary.getRowsPerSecond());
+        return summary;
+    }
+
+    private <T> void complete(List<Row<T>> rows, ImportChunkReport report, ChunkWriter<T> writer,
+                              ImportSummary summary, Consumer<ImportChunkReport> progress) {
+        long start = System.currentTimeMillis();
+        int rejectedBefore = report.getRejected();
+        List<ImportChunkReport.LineError> errorsBefore = new ArrayList<>(report.getErrors());
+        try {
+            chunkTransaction.executeWithoutResult(status -> writer.write(rows, report));
+            report.setCommitted(true);
+        } catch (RuntimeException e) {
+            // Lot annulé : toutes ses lignes valides sont rejetées, les suivants continuent
+            log.warn("Lot d'import {} (lignes {} à {}) annulé", report.getChunk(), report.getFirstLine(),
+                    report.getLastLine(), e);
+            report.setImported(0);
+            report.setRejected(rejectedBefore);
+            report.setErrors(errorsBefore);
+            for (Row<T> row : rows) {
+                reject(report, row.line(), "Lot annulé : " + rootMessage(e));
+            }
+        }
+        report.getErrors().sort(Comparator.comparingLong(ImportChunkReport.LineError::getLine));
+        report.setDurationMs(System.currentTimeMillis() - start);
+        summary.setChunks(summary.getChunks() + 1);
+        summary.setImported(summary.getImported() + report.getImported());
+        summary.setRejected(summary.getRejected() + report.getRejected());
+        progress.accept(report);
+    }
+
+    private void writeTransactions(List<Row<TransactionImportRow>> rows, ImportChunkReport report,
+                                   Map<Long, ServiceTarget> services, Map<YearMonth, Set<String>> archived) {
+        // Services et références existantes chargés en une requête chacun pour tout le lot
+        Set<Long> unknownServices = new HashSet<>();
+        Set<String> references = new HashSet<>();
+        for (Row<TransactionImportRow> row : rows) {
+            if (row.value().getServiceId() != null && !services.containsKey(row.value().getServiceId())) {
+                unknownServices.add(row.value().getServiceId());
+            }
+            if (row.value().getReference() != null) {
+                references.add(row.value().getReference().trim());
+            }
+        }
+        if (!unknownServices.isEmpty()) {
+            serviceRepository.findImportTargets(unknownServices).forEach(target ->
+                    services.put(target.getId(), new ServiceTarget(target.getStructureId())));
+        }
+        Set<String> taken = references.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(transactionRepository.findExistingReferences(references));
+
+        List<TransactionChange> changes = new ArrayList<>(rows.size());
+        for (Row<TransactionImportRow> row : rows) {
+            TransactionImportRow value = row.value();
+            String error = validate(value, services);
+            String reference = value.getReference() == null ? null : value.getReference().trim();
+            if (error == null && !taken.add(reference)) {
+                error = "Référence déjà utilisée : " + reference;
+            }
+            if (error == null && archived.computeIfAbsent(YearMonth.from(value.getTransactionDate()),
+                    archiveService::findArchivedReferences).contains(reference)) {
+                error = "Référence déjà archivée : " + reference;
+            }
+            if (error != null) {
+                reject(report, row.line(), error);
+                continue;
+            }
+
+            ServiceTarget target = services.get(value.getServiceId());
+            Transaction tx = new Transaction();
+            tx.setReference(reference);
+            tx.setOrderId(value.getOrderId());
+            tx.setAmount(value.getAmount());
+            tx.setTransactionDate(value.getTransactionDate());
+            tx.setCreatedAt(value.getCreatedAt());
+            tx.setDescription(value.getDescription());
+            tx.setStatus(value.getStatus() == null ? "PENDING" : value.getStatus().trim().toUpperCase(Locale.ROOT));
+            if ("SUCCESS".equals(tx.getStatus())) {
+                tx.confirm();
+            }
+            // Références sans chargement : seules les clés étrangères sont écrites
+            tx.setService(entityManager.getReference(ServiceEntity.class, value.getServiceId()));
+            tx.setStructure(entityManager.getReference(Structure.class, target.structureId()));
+            entityManager.persist(tx);
+
+            changes.add(new TransactionChange(null, new TransactionSnapshot(
+                    tx.getId(), target.structureId(), value.getServiceId(), tx.getTransactionDate(), tx.getStatus(),
+                    tx.getAmount(), tx.getReference(), tx.getOrderId())));
+            report.setImported(report.getImported() + 1);
+        }
+        // Lot écrit puis détaché : les requêtes des agrégats ne revérifient pas chaque entité.
+        // Un seul événement par lot, les agrégats appliquent leurs deltas en une passe.
+        entityManager.flush();
+        entityManager.clear();
+        transactionEventPublisher.publish(changes);
+    }
+
+    private static String validate(TransactionImportRow row, Map<Long, ServiceTarget> services) {
+        if (row.getReference() == null || row.getReference().isBlank()) {
+            return "La référence est requise";
+        }
+        if (row.getAmount() == null || row.getAmount().signum() < 0) {
+            return "Le montant est requis et doit être positif";
+        }
+        if (row.getTransactionDate() == null) {
+            return "La date de transaction est requise";
+        }
+        if (row.getStatus() != null && !IMPORT_STATUSES.contains(row.getStatus().trim().toUpperCase(Locale.ROOT))) {
+            return "Statut invalide : " + row.getStatus();
+        }
+        if (row.getServiceId() == null) {
+            return "Le service est requis";
+        }
+        ServiceTarget target = services.get(row.getServiceId());
+        if (target == null) {
+            return "Service non trouvé avec l'id : " + row.getServiceId();
+        }
+        if (row.getStructureId() != null && !row.getStructureId().equals(target.structureId())) {
+            return "Le service " + row.getServiceId() + " n'appartient pas à la structure " + row.getStructureId();
+        }
+        return null;
+    }
+
+    private void writeServices(Long structureId, List<Row<ServiceImportRow>> rows, ImportChunkReport report,
+                               Set<String> names) {
+        Structure structure = entityManager.getReference(Structure.class, structureId);
+        List<String> added = new ArrayList<>();
+        // Noms retirés si le lot est annulé, pour ne pas rejeter à tort les lignes suivantes ;
+        // enregistré avant l'écriture, qui peut échouer dès le flush
+        onRollback(() -> names.removeAll(added));
+        for (Row<ServiceImportRow> row : rows) {
+            ServiceImportRow value = row.value();
+            String error = validate(value);
+            String name = value.getName() == null ? null : value.getName().trim();
+            if (error == null && names.contains(name)) {
+                error = "Un service avec ce nom existe déjà pour cette structure : " + name;
+            }
+            if (error != null) {
+                reject(report, row.line(), error);
+                continue;
+            }
+
+            ServiceEntity service = new ServiceEntity();
+            service.setName(name);
+            service.setCategory(value.getCategory().trim());
+            service.setDescription(value.getDescription());
+            service.setPrice(value.getPrice());
+            service.setDuration(value.getDuration() == null ? 0 : value.getDuration());
+            service.setActive(value.getActive() == null || value.getActive());
+            service.setStructure(structure);
+            entityManager.persist(service);
+            names.add(name);
+            added.add(name);
+            report.setImported(report.getImported() + 1);
+        }
+        entityManager.flush();
+    }
+
+    private static String validate(ServiceImportRow row) {
+        if (row.getName() == null || row.getName().isBlank()) {
+            return "Le nom est requis";
+        }
+        if (row.getCategory() == null || row.getCategory().isBlank()) {
+            return "La catégorie est requise";
+        }
+        if (row.getPrice() != null && row.getPrice().compareTo(BigDecimal.ZERO) < 0) {
+            return "Le prix doit être positif";
+        }
+        if (row.getDuration() != null && row.getDuration() < 0) {
+            return "La durée doit être positive";
+        }
+        return null;
+    }
+
+    private static void onRollback(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private static ImportChunkReport newReport(int chunk) {
+        return ImportChunkReport.builder().chunk(chunk).errors(new ArrayList<>()).build();
+    }
+
+    private static void reject(ImportChunkReport report, long line, String message) {
+        report.setRejected(report.getRejected() + 1);
+        if (report.getErrors().size() < MAX_ERRORS_PER_CHUNK) {
+            report.getErrors().add(new ImportChunkReport.LineError(line, message));
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        if (root instanceof JsonProcessingException json) {
+            // Sans la position dans la source, sans intérêt pour une ligne convertie
+            return json.getOriginalMessage();
+        }
+        return root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter<T> {
+        void write(List<Row<T>> rows, ImportChunkReport report);
+    }
+
+    private record Row<T>(long line, T value) {
+    }
+
+    private record ServiceTarget(Long structureId) {
+    }
+}
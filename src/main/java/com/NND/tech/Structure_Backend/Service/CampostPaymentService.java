@@ -1,7 +1,6 @@
 package com.NND.tech.Structure_Backend.Service;
 
 import com.NND.tech.Structure_Backend.DTO.*;
-import com.NND.tech.Structure_Backend.Repository.TransactionRepository;
 import com.NND.tech.Structure_Backend.config.CampostProperties;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
@@ -17,12 +16,10 @@ import java.util.*;
 public class CampostPaymentService {
     private final RestTemplate restTemplate;
     private final CampostProperties props;
-    private final TransactionRepository transactionRepository;
 
-    public CampostPaymentService(RestTemplate restTemplate, CampostProperties props, TransactionRepository transactionRepository) {
+    public CampostPaymentService(RestTemplate restTemplate, CampostProperties props) {
         this.restTemplate = restTemplate;
         this.props = props;
-        this.transactionRepository = transactionRepository;
     }
 
     private HttpHeaders defaultHeaders(boolean withPrivateKey) {
@@ -30,7 +27,6 @@ public class CampostPaymentService {
         headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
         headers.set("X-PUBLIC-KEY", props.getPublicKey());
         headers.set("User-Agent", "Structure-Backend/1.0 (Spring RestTemplate)");
-        headers.set("Connection", "close");
         if (withPrivateKey) {
             headers.set("X-PRIVATE-KEY", props.getPrivateKey());
         }
@@ -38,7 +34,7 @@ public class CampostPaymentService {
     }
 
     public String initReference() {
-        String url = props.getApiBaseUrl() + "/transaction/init";
+        String url = "/transaction/init";
         HttpEntity<Void> entity = new HttpEntity<>(defaultHeaders(false));
         ResponseEntity<Map> response = exchangeWithRetry(url, HttpMethod.GET, entity, Map.class);
         Object ref = response.getBody() != null ? response.getBody().get("reference") : null;
@@ -47,7 +43,7 @@ public class CampostPaymentService {
     }
 
     public InitiatePaymentResponse createPaymentLink(InitiatePaymentRequest req, String reference) {
-        String url = props.getApiBaseUrl() + "/paymentLink";
+        String url = "/paymentLink";
         HttpHeaders headers = defaultHeaders(false);
         headers.setContentType(MediaType.APPLICATION_JSON);
         Map<String, Object> body = new HashMap<>();
@@ -72,7 +68,7 @@ public class CampostPaymentService {
     }
 
     public List<OperatorDto> getOperators() {
-        String url = props.getApiBaseUrl() + "/operator/list";
+        String url = "/operator/list";
         HttpEntity<Void> entity = new HttpEntity<>(defaultHeaders(false));
         ResponseEntity<Map> response = exchangeWithRetry(url, HttpMethod.GET, entity, Map.class);
         Map body = response.getBody();
@@ -92,23 +88,21 @@ public class CampostPaymentService {
     }
 
     public BalanceDto getBalance() {
-        String url = props.getApiBaseUrl() + "/balance";
+        String url = "/balance";
         HttpEntity<Void> entity = new HttpEntity<>(defaultHeaders(true));
         ResponseEntity<BalanceDto> response = exchangeWithRetry(url, HttpMethod.GET, entity, BalanceDto.class);
         return response.getBody();
     }
 
     public FindResponse findByOrderId(String orderId) {
-        String url = props.getApiBaseUrl() + "/find/" + orderId;
         HttpEntity<Void> entity = new HttpEntity<>(defaultHeaders(false));
-        ResponseEntity<FindResponse> response = exchangeWithRetry(url, HttpMethod.GET, entity, FindResponse.class);
+        ResponseEntity<FindResponse> response = exchangeWithRetry("/find/{orderId}", HttpMethod.GET, entity, FindResponse.class, orderId);
         return response.getBody();
     }
 
     public Map<String, Object> getStatusByReference(String reference) {
-        String url = props.getApiBaseUrl() + "/status/" + reference;
         HttpEntity<Void> entity = new HttpEntity<>(defaultHeaders(false));
-        ResponseEntity<Map> response = exchangeWithRetry(url, HttpMethod.GET, entity, Map.class);
+        ResponseEntity<Map> response = exchangeWithRetry("/status/{reference}", HttpMethod.GET, entity, Map.class, reference);
         return response.getBody();
     }
 
@@ -118,11 +112,13 @@ public class CampostPaymentService {
         return constantTimeEquals(expected, signature);
     }
 
-    private <T> ResponseEntity<T> exchangeWithRetry(String url, HttpMethod method, HttpEntity<?> entity, Class<T> responseType) {
+    // Gabarits d'URL relatifs à campost.api-base-url : la latence est mesurée par gabarit, pas par identifiant
+    private <T> ResponseEntity<T> exchangeWithRetry(String url, HttpMethod method, HttpEntity<?> entity, Class<T> responseType,
+                                                    Object... uriVariables) {
         RestClientException last = null;
         for (int i = 0; i < 2; i++) {
             try {
-                return restTemplate.exchange(url, method, entity, responseType);
+                return restTemplate.exchange(url, method, entity, responseType, uriVariables);
             } catch (RestClientException ex) {
                 last = ex;
                 sleepQuiet(500L);
@@ -175,66 +171,26 @@ public class CampostPaymentService {
     }
 
     /**
-     * Poll CamPost for a given orderId until a terminal state or timeout, then update the local transaction.
+     * Ask CamPost once for the current status of an order, by provider reference when known
+     * (otherwise by orderId). Polling schedules are handled by {@link PaymentStatusPoller}.
      * @param orderId merchant order identifier
-     * @param maxWaitMs maximum time to wait (default 300_000 ms)
-     * @param intervalMs polling interval (default 5_000 ms)
-     * @return final status: SUCCESS, FAILED, CANCELLED, INSUFFICIENT_FUNDS, or TIMEOUT
+     * @param providerRef provider reference, optional
+     * @return upper-cased provider status, or null if CamPost does not know the order yet
      */
-    public String pollAndUpdateStatus(String orderId, long maxWaitMs, long intervalMs) {
-        long deadline = System.currentTimeMillis() + Math.max(1_000L, maxWaitMs);
-        long interval = Math.max(1_000L, intervalMs);
-        String finalStatus = "TIMEOUT";
-
-        // Try to use provider reference if we already have it locally
-        Optional<com.NND.tech.Structure_Backend.model.entity.Transaction> localTxOpt = transactionRepository.findFirstByOrderId(orderId);
-        String providerRef = localTxOpt.map(com.NND.tech.Structure_Backend.model.entity.Transaction::getReference).orElse(null);
-
-        while (System.currentTimeMillis() < deadline) {
-            try {
-                String status = null;
-                if (providerRef != null && !providerRef.isBlank()) {
-                    Map<String, Object> map = getStatusByReference(providerRef);
-                    if (map != null) {
-                        Object st = map.get("status");
-                        if (st != null) status = st.toString();
-                    }
-                } else {
-                    FindResponse fr = findByOrderId(orderId);
-                    if (fr != null && fr.getTransactions() != null && !fr.getTransactions().isEmpty()) {
-                        status = fr.getTransactions().get(0).getStatus();
-                    }
-                }
-                if (status != null) {
-                    String s = status.toUpperCase(Locale.ROOT);
-                    // Option A: loop only while status == CREATED, stop when != CREATED
-                    if (!s.equals("CREATED")) {
-                        finalStatus = s; // persist exactly provider status
-                        break;
-                    }
-                }
-            } catch (RestClientException ignored) {
-                // transient failure, continue polling
+    public String fetchStatus(String orderId, String providerRef) {
+        String status = null;
+        if (providerRef != null && !providerRef.isBlank()) {
+            Map<String, Object> map = getStatusByReference(providerRef);
+            if (map != null) {
+                Object st = map.get("status");
+                if (st != null) status = st.toString();
             }
-            sleepQuiet(interval);
-        }
-
-        final String statusToPersist = finalStatus;
-        transactionRepository.findFirstByOrderId(orderId).ifPresent(tx -> {
-            if ("SUCCESS".equals(statusToPersist)) {
-                tx.confirm(); // sets status=SUCCESS, isConfirmed=true, date
-            } else if ("TIMEOUT".equals(statusToPersist)) {
-                tx.setConfirmed(false);
-                tx.setStatus("TIMEOUT");
-                tx.setConfirmationDate(null);
-            } else if (statusToPersist != null) {
-                // For CREATED/FAILED/CANCELLED/INSUFFICIENT_FUNDS or any other provider status
-                tx.setConfirmed(false);
-                tx.setStatus(statusToPersist);
-                tx.setConfirmationDate(null);
+        } else {
+            FindResponse fr = findByOrderId(orderId);
+            if (fr != null && fr.getTransactions() != null && !fr.getTransactions().isEmpty()) {
+                status = fr.getTransactions().get(0).getStatus();
             }
-            transactionRepository.save(tx);
-        });
-        return finalStatus;
+        }
+        return status != null ? status.toUpperCase(Locale.ROOT) : null;
     }
 }
@@ -0,0 +1,52 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Formats des imports et exports en masse de lignes
+ */
+public enum DataFormat {
+    NDJSON,
+    CSV;
+
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final String CSV_VALUE = "text/csv";
+
+    public String mediaType() {
+        return this == CSV ? CSV_VALUE : NDJSON_VALUE;
+    }
+
+    public String extension() {
+        return this == CSV ? "csv" : "ndjson";
+    }
+
+    /**
+     * @param name nom du format, sans tenir compte de la casse (csv, ndjson)
+     * @throws IllegalArgumentException si le format est inconnu
+     */
+    public static DataFormat fromName(String name) {
+        for (DataFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Format non supporté : " + name);
+    }
+
+    /**
+     * @param contentType en-tête Content-Type de la requête
+     * @throws IllegalArgumentException si le type n'est ni CSV ni NDJSON
+     */
+    public static DataFormat fromContentType(String contentType) {
+        if (contentType != null) {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            if (mediaType.isCompatibleWith(MediaType.parseMediaType(CSV_VALUE))) {
+                return CSV;
+            }
+            if (mediaType.isCompatibleWith(MediaType.parseMediaType(NDJSON_VALUE))) {
+                return NDJSON;
+            }
+        }
+        throw new IllegalArgumentException("Format d'import non supporté : " + contentType);
+    }
+}
@@ -0,0 +1,123 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.Repository.RevenueRollupRepository;
+import com.NND.tech.Structure_Backend.Repository.StructureRepository;
+import com.NND.tech.Structure_Backend.Repository.UserRepository;
+import com.NND.tech.Structure_Backend.event.TransactionChange;
+import com.NND.tech.Structure_Backend.event.TransactionChangedEvent;
+import com.NND.tech.Structure_Backend.event.TransactionSnapshot;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compteurs globaux (transactions, chiffre d'affaires, structures, utilisateurs) servis en temps constant.
+ * Initialisés une fois au démarrage, mis à jour après commit par les chemins d'écriture, puis
+ * réconciliés périodiquement avec la base pour corriger une éventuelle dérive.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GlobalStatsCounters {
+
+    private final RevenueRollupRepository rollupRepository;
+    private final StructureRepository structureRepository;
+    private final UserRepository userRepository;
+
+    private final LongAdder transactions = new LongAdder();
+    private final LongAdder revenueMinor = new LongAdder();
+    private final LongAdder structures = new LongAdder();
+    private final LongAdder users = new LongAdder();
+    private volatile boolean seeded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        reconcile();
+        seeded = true;
+    }
+
+    /**
+     * Aligne les compteurs sur la base. Une écriture validée pendant la lecture peut être comptée
+     * deux fois ; l'écart est corrigé au passage suivant.
+     */
+    @Scheduled(fixedDelayString = "${app.stats.counters.reconcile-interval:PT10M}",
+               initialDelayString = "${app.stats.counters.reconcile-interval:PT10M}")
+    public void reconcile() {
+        RevenueRollupRepository.RevenueTotal totals = rollupRepository.getTotals();
+        correct("transactions", transactions, totals.getTransactionCount());
+        correct("revenueMinor", revenueMinor, totals.getAmountMinor());
+        correct("structures", structures, structureRepository.count());
+        correct("users", users, userRepository.count());
+    }
+
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    public Totals totals() {
+        return new Totals(transactions.sum(), revenueMinor.sum(), structures.sum(), users.sum());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        for (TransactionChange change : event.changes()) {
+            count(change.before(), -1);
+            count(change.after(), 1);
+        }
+    }
+
+    public void structureCreated() {
+        afterCommit(structures::increment);
+    }
+
+    public void userCreated() {
+        afterCommit(users::increment);
+    }
+
+    public void userDeleted() {
+        afterCommit(users::decrement);
+    }
+
+    // Mêmes règles que les rollups, source de la réconciliation
+    private void count(TransactionSnapshot snapshot, int sign) {
+        if (snapshot != null && snapshot.isAggregated()) {
+            transactions.add(sign);
+            revenueMinor.add(sign * snapshot.amountMinor());
+        }
+    }
+
+    private void correct(String name, LongAdder counter, long expected) {
+        long drift = expected - counter.sum();
+        if (drift != 0) {
+            counter.add(drift);
+            if (seeded) {
+                log.warn("Compteur global {} réconcilié avec la base (écart {})", name, drift);
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    public record Totals(long transactions, long revenueMinor, long structures, long users) {
+    }
+}
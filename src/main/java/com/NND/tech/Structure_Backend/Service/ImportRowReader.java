@@ -0,0 +1,132 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lecture ligne à ligne d'un flux d'import, sans le charger en mémoire : NDJSON (un objet JSON
+ * par ligne) ou CSV avec ligne d'en-tête (séparateur virgule, guillemets doubles, pas de champ
+ * sur plusieurs lignes). Les lignes vides sont ignorées ; une ligne illisible est rendue avec
+ * son erreur sans interrompre la lecture.
+ */
+final class ImportRowReader {
+
+    private static final TypeReference<Map<String, Object>> JSON_OBJECT = new TypeReference<>() {
+    };
+
+    private final BufferedReader reader;
+    private final DataFormat format;
+    private final ObjectMapper objectMapper;
+    private List<String> header;
+    private long lineNumber;
+
+    ImportRowReader(InputStream input, DataFormat format, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return la ligne suivante, ou null en fin de flux
+     */
+    Line next() {
+        String text;
+        while ((text = readLine()) != null) {
+            lineNumber++;
+            if (text.isBlank()) {
+                continue;
+            }
+            if (format == DataFormat.CSV && header == null) {
+                header = splitCsv(text).stream().map(String::trim).toList();
+                continue;
+            }
+            try {
+                return new Line(lineNumber, format == DataFormat.CSV ? csvValues(text) : jsonValues(text), null);
+            } catch (IllegalArgumentException e) {
+                return new Line(lineNumber, null, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private String readLine() {
+        try {
+            return reader.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lecture du flux d'import interrompue", e);
+        }
+    }
+
+    private Map<String, Object> jsonValues(String text) {
+        try {
+            return objectMapper.readValue(text, JSON_OBJECT);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("JSON invalide : " + e.getOriginalMessage());
+        }
+    }
+
+    // Les cellules vides sont omises : le champ correspondant reste nul
+    private Map<String, Object> csvValues(String text) {
+        List<String> cells = splitCsv(text);
+        if (cells.size() > header.size()) {
+            throw new IllegalArgumentException("Nombre de colonnes supérieur à l'en-tête (" + header.size() + ")");
+        }
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int i = 0; i < cells.size(); i++) {
+            String cell = cells.get(i).trim();
+            if (!cell.isEmpty()) {
+                values.put(header.get(i), cell);
+            }
+        }
+        return values;
+    }
+
+    static List<String> splitCsv(String text) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Guillemet non fermé");
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    /**
+     * Ligne lue : valeurs par nom de colonne, ou message d'erreur si la ligne est illisible
+     */
+    record Line(long number, Map<String, Object> values, String error) {
+    }
+}
@@ -0,0 +1,253 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.event.TransactionChange;
+import com.NND.tech.Structure_Backend.event.TransactionChangedEvent;
+import com.NND.tech.Structure_Backend.event.TransactionSnapshot;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Diffusion en direct (SSE) des variations du chiffre d'affaires confirmé.
+ * <p>
+ * Les variations validées sont accumulées dans une fenêtre courte puis diffusées en un seul
+ * message : le JSON est sérialisé une fois par fenêtre (et par structure suivie), puis écrit
+ * tel quel sur chaque connexion, sans requête ni calcul par abonné.
+ * <p>
+ * Les écritures sur les connexions se font sur un thread dédié, hors du pool {@code @Scheduled}
+ * partagé : tant qu'une diffusion est en cours, la fenêtre suivante continue d'accumuler.
+ * Un abonné qui n'a rien reçu depuis {@code app.stats.stream.heartbeat} reçoit un commentaire
+ * de maintien de connexion, même si d'autres structures sont actives.
+ */
+@Component
+public class LiveStatsBroadcaster {
+
+    static final String CONFIRMED_STATUS = "SUCCESS";
+
+    private final ObjectMapper objectMapper;
+    private final int maxSubscribers;
+    private final long emitterTimeoutMs;
+    private final long heartbeatIntervalMs;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService sender;
+    private final AtomicBoolean sending = new AtomicBoolean();
+
+    // Fenêtre en cours, protégée par son propre verrou
+    private final Object windowLock = new Object();
+    private Window window = new Window();
+
+    public LiveStatsBroadcaster(ObjectMapper objectMapper,
+                                @Value("${app.stats.stream.max-subscribers:5000}") int maxSubscribers,
+                                @Value("${app.stats.stream.emitter-timeout:PT30M}") Duration emitterTimeout,
+                                @Value("${app.stats.stream.heartbeat:PT15S}") Duration heartbeat) {
+        this.objectMapper = objectMapper;
+        this.maxSubscribers = maxSubscribers;
+        this.emitterTimeoutMs = emitterTimeout.toMillis();
+        this.heartbeatIntervalMs = heartbeat.toMillis();
+        this.sender = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "live-stats-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param structureId structure suivie (optionnelle, toutes les structures si nulle)
+     * @throws ResponseStatusException 503 si le nombre maximum d'abonnés est atteint
+     */
+    public SseEmitter subscribe(Long structureId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Trop d'abonnés au flux des statistiques");
+        }
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, structureId, System.currentTimeMillis());
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        synchronized (windowLock) {
+            for (TransactionChange change : event.changes()) {
+                window.add(change.before(), -1);
+                window.add(change.after(), 1);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.stats.stream.window:PT1S}")
+    public void flush() {
+        // Diffusion précédente pas terminée : la fenêtre en cours reste ouverte et continue d'accumuler
+        if (!sending.compareAndSet(false, true)) {
+            return;
+        }
+        Window closed;
+        synchronized (windowLock) {
+            closed = window;
+            window = new Window();
+        }
+        if (subscribers.isEmpty()) {
+            sending.set(false);
+            return;
+        }
+
+        // Sérialisation unique : un message global et un message par structure modifiée
+        Instant to = Instant.now();
+        String global = null;
+        Map<Long, String> byStructure = new HashMap<>();
+        if (!closed.isEmpty()) {
+            global = toJson(closed.payload(null, to));
+            for (Long structureId : closed.structures.keySet()) {
+                byStructure.put(structureId, toJson(closed.payload(structureId, to)));
+            }
+        }
+        String globalData = global;
+        try {
+            sender.execute(() -> {
+                try {
+                    deliver(globalData, byStructure);
+                } finally {
+                    sending.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Arrêt en cours
+            sending.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+
+    private void deliver(String global, Map<Long, String> byStructure) {
+        long now = System.currentTimeMillis();
+        for (Subscriber subscriber : subscribers) {
+            String data = subscriber.structureId == null ? global : byStructure.get(subscriber.structureId);
+            if (data != null) {
+                send(subscriber, SseEmitter.event().name("revenue").data(data, MediaType.APPLICATION_JSON), now);
+            } else if (now - subscriber.lastSentAt >= heartbeatIntervalMs) {
+                send(subscriber, SseEmitter.event().comment("heartbeat"), now);
+            }
+        }
+    }
+
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event, long now) {
+        try {
+            subscriber.emitter.send(event);
+            subscriber.lastSentAt = now;
+        } catch (IOException | IllegalStateException e) {
+            // Connexion fermée côté client
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Sérialisation du flux des statistiques impossible", e);
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final Long structureId;
+        // Dernier envoi sur cette connexion, pour le maintien de connexion
+        private volatile long lastSentAt;
+
+        Subscriber(SseEmitter emitter, Long structureId, long lastSentAt) {
+            this.emitter = emitter;
+            this.structureId = structureId;
+            this.lastSentAt = lastSentAt;
+        }
+    }
+
+    /**
+     * Variations (nombre, montant en unités mineures) du chiffre d'affaires confirmé sur une fenêtre
+     */
+    private static final class Window {
+        private final Instant from = Instant.now();
+        private long count;
+        private long amountMinor;
+        private final Map<Long, long[]> structures = new HashMap<>();
+
+        // Seules les transactions confirmées comptent : une confirmation ajoute, une annulation retire
+        void add(TransactionSnapshot snapshot, int sign) {
+            if (snapshot == null || !CONFIRMED_STATUS.equals(snapshot.status())) {
+                return;
+            }
+            long amount = sign * snapshot.amountMinor();
+            count += sign;
+            amountMinor += amount;
+            if (snapshot.structureId() != null) {
+                long[] totals = structures.computeIfAbsent(snapshot.structureId(), id -> new long[2]);
+                totals[0] += sign;
+                totals[1] += amount;
+            }
+        }
+
+        boolean isEmpty() {
+            return count == 0 && amountMinor == 0
+                    && structures.values().stream().allMatch(totals -> totals[0] == 0 && totals[1] == 0);
+        }
+
+        Map<String, Object> payload(Long structureId, Instant to) {
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("from", from.toString());
+            payload.put("to", to.toString());
+            if (structureId == null) {
+                payload.put("countDelta", count);
+                payload.put("revenueDeltaMinor", amountMinor);
+                payload.put("revenueDelta", MinorUnits.toMajor(amountMinor));
+                List<Map<String, Object>> rows = new ArrayList<>(structures.size());
+                structures.forEach((id, totals) -> rows.add(structureDelta(id, totals)));
+                payload.put("structures", rows);
+            } else {
+                payload.putAll(structureDelta(structureId, structures.get(structureId)));
+            }
+            return payload;
+        }
+
+        private static Map<String, Object> structureDelta(Long structureId, long[] totals) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("structureId", structureId);
+            row.put("countDelta", totals[0]);
+            row.put("revenueDeltaMinor", totals[1]);
+            row.put("revenueDelta", MinorUnits.toMajor(totals[1]));
+            return row;
+        }
+    }
+}
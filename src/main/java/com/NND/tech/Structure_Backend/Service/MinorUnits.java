@@ -0,0 +1,37 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions des montants entre {@link BigDecimal} (colonne {@code transactions.amount}, échelle 2)
+ * et unités mineures en {@code long}. Les agrégations sont faites en unités mineures : sommes exactes,
+ * sans allocation, et conversion en unités principales uniquement à l'exposition.
+ */
+public final class MinorUnits {
+
+    public static final int SCALE = 2;
+    public static final long PER_MAJOR = 100L;
+
+    private MinorUnits() {
+    }
+
+    /**
+     * @return le montant en unités mineures (0 pour un montant nul)
+     * @throws ArithmeticException si le montant dépasse la capacité d'un {@code long}
+     */
+    public static long of(BigDecimal amount) {
+        if (amount == null) {
+            return 0L;
+        }
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static double toMajor(long amountMinor) {
+        return amountMinor / (double) PER_MAJOR;
+    }
+
+    public static BigDecimal toDecimal(long amountMinor) {
+        return BigDecimal.valueOf(amountMinor, SCALE);
+    }
+}
@@ -0,0 +1,172 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Notification (SSE) du statut final d'une commande, pour remplacer l'interrogation répétée de
+ * {@code /verify} par les clients.
+ * <p>
+ * Les abonnés sont rangés par commande ; chaque connexion ouverte n'est qu'un émetteur en attente
+ * (requête asynchrone), sans thread associé. La résolution vient du suivi centralisé
+ * ({@link PaymentStatusPoller}) : webhook en temps normal, interrogation de CamPost en rattrapage
+ * seulement après {@code app.payments.stream.reconcile-after}. Le statut est sérialisé une fois par
+ * commande puis envoyé à tous ses abonnés, dont les connexions sont ensuite fermées.
+ */
+@Component
+public class PaymentStatusBroadcaster {
+
+    private static final long TIMEOUT_GRACE_MS = Duration.ofSeconds(30).toMillis();
+
+    private final PaymentStatusPoller statusPoller;
+    private final ObjectMapper objectMapper;
+    private final int maxSubscribers;
+    private final long timeoutMs;
+    private final long reconcileAfterMs;
+    private final long reconcileIntervalMs;
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    public PaymentStatusBroadcaster(PaymentStatusPoller statusPoller,
+                                    ObjectMapper objectMapper,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.payments.stream.max-subscribers:50000}") int maxSubscribers,
+                                    @Value("${app.payments.stream.timeout:PT15M}") Duration timeout,
+                                    @Value("${app.payments.stream.reconcile-after:PT1M}") Duration reconcileAfter,
+                                    @Value("${app.payments.stream.reconcile-interval:PT30S}") Duration reconcileInterval) {
+        this.statusPoller = statusPoller;
+        this.objectMapper = objectMapper;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMs = timeout.toMillis();
+        this.reconcileAfterMs = reconcileAfter.toMillis();
+        this.reconcileIntervalMs = reconcileInterval.toMillis();
+        Gauge.builder("payments.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Connexions ouvertes en attente du statut d'une commande")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Abonne le client au statut final d'une commande ; un statut déjà final est envoyé aussitôt
+     * @param orderId identifiant de commande
+     * @throws ResponseStatusException 503 si le nombre maximum d'abonnés est atteint
+     */
+    public SseEmitter subscribe(String orderId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Trop d'abonnés au statut des paiements");
+        }
+        // Marge au-delà du délai de suivi : le TIMEOUT est normalement envoyé par le suivi lui-même
+        SseEmitter emitter = new SseEmitter(timeoutMs + TIMEOUT_GRACE_MS);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> remove(orderId, subscriber));
+        emitter.onTimeout(() -> remove(orderId, subscriber));
+        emitter.onError(error -> remove(orderId, subscriber));
+        subscribers.computeIfAbsent(orderId, key -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        // Enregistré avant le suivi : une résolution immédiate trouve déjà l'abonné
+        statusPoller.watch(orderId, timeoutMs, reconcileIntervalMs, reconcileAfterMs)
+                .whenComplete((status, error) -> publish(orderId, status, error));
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /**
+     * Garde les connexions ouvertes à travers les proxys qui coupent les flux inactifs
+     */
+    @Scheduled(fixedDelayString = "${app.payments.stream.heartbeat:PT30S}")
+    public void heartbeat() {
+        subscribers.forEach((orderId, group) -> {
+            for (Subscriber subscriber : group) {
+                send(orderId, subscriber, SseEmitter.event().comment("heartbeat"));
+            }
+        });
+    }
+
+    private void publish(String orderId, String status, Throwable error) {
+        Set<Subscriber> group = subscribers.remove(orderId);
+        if (group == null) {
+            return;
+        }
+        String data = error == null ? toJson(orderId, status) : null;
+        for (Subscriber subscriber : group) {
+            subscriber.release();
+            if (error != null) {
+                subscriber.emitter().completeWithError(error);
+            } else if (send(orderId, subscriber, SseEmitter.event().name("status").data(data, MediaType.APPLICATION_JSON))) {
+                subscriber.emitter().complete();
+            }
+        }
+    }
+
+    private boolean send(String orderId, Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        try {
+            subscriber.emitter().send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Connexion fermée côté client
+            remove(orderId, subscriber);
+            subscriber.emitter().completeWithError(e);
+            return false;
+        }
+    }
+
+    private void remove(String orderId, Subscriber subscriber) {
+        // Entrée vide supprimée dans la même opération atomique qu'un ajout concurrent
+        subscribers.computeIfPresent(orderId, (key, group) -> group.remove(subscriber) && group.isEmpty() ? null : group);
+        subscriber.release();
+    }
+
+    private String toJson(String orderId, String status) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("orderId", orderId);
+        body.put("status", status);
+        body.put("updatedAt", OffsetDateTime.now().toString());
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Sérialisation du statut de paiement impossible", e);
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicBoolean open = new AtomicBoolean(true);
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        SseEmitter emitter() {
+            return emitter;
+        }
+
+        // Décompte unique, quel que soit le chemin de fermeture (publication, client, délai)
+        void release() {
+            if (open.compareAndSet(true, false)) {
+                subscriberCount.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.Repository.TransactionRepository;
+import com.NND.tech.Structure_Backend.event.TransactionChange;
+import com.NND.tech.Structure_Backend.event.TransactionChangedEvent;
+import com.NND.tech.Structure_Backend.model.entity.Transaction;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.client.RestClientException;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Suivi centralisé des commandes en attente de paiement : une seule roue temporelle porte les
+ * échéances de toutes les commandes suivies, au lieu d'une boucle bloquante par requête.
+ * <p>
+ * À chaque tick, les commandes dont l'échéance est atteinte sont interrogées chez CamPost par lot
+ * (taille bornée, appels en parallèle sur un petit exécuteur dédié). L'intervalle entre deux
+ * interrogations d'une même commande croît tant que CamPost la dit en cours (CREATED), jusqu'à
+ * {@code app.payments.polling.max-interval}. Une commande est résolue dès que CamPost rend un autre
+ * statut, qu'un statut final est enregistré par ailleurs (webhook), ou passe en TIMEOUT à son délai.
+ * <p>
+ * Les demandes de suivi concurrentes d'une même commande partagent le même résultat.
+ */
+@Slf4j
+@Service
+public class PaymentStatusPoller {
+
+    private final CampostPaymentService campostService;
+    private final TransactionRepository transactionRepository;
+    private final TransactionStatusService statusService;
+    private final ExecutorService executor;
+    private final long maxIntervalMs;
+    private final long maxWaitMs;
+    private final int batchSize;
+
+    // État protégé par this
+    private final TimingWheel<PendingOrder> wheel;
+    private final Map<String, PendingOrder> pending = new HashMap<>();
+    private int inFlight;
+
+    public PaymentStatusPoller(CampostPaymentService campostService,
+                               TransactionRepository transactionRepository,
+                               TransactionStatusService statusService,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.payments.polling.tick:PT0.25S}") Duration tick,
+                               @Value("${app.payments.polling.max-interval:PT30S}") Duration maxInterval,
+                               @Value("${app.payments.polling.max-wait:PT30M}") Duration maxWait,
+                               @Value("${app.payments.polling.batch-size:100}") int batchSize,
+                               @Value("${app.payments.polling.threads:8}") int threads) {
+        this.campostService = campostService;
+        this.transactionRepository = transactionRepository;
+        this.statusService = statusService;
+        this.maxIntervalMs = maxInterval.toMillis();
+        this.maxWaitMs = maxWait.toMillis();
+        this.batchSize = batchSize;
+        // 512 cases : un tour couvre plus de deux minutes au tick par défaut
+        this.wheel = new TimingWheel<>(tick.toMillis(), 512, System.currentTimeMillis());
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "payment-status-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("payments.polling.pending", this, PaymentStatusPoller::pendingCount)
+                .description("Commandes suivies en attente d'un statut final")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Suit une commande jusqu'à son statut final ou son délai, sans bloquer l'appelant
+     * @param orderId identifiant de commande
+     * @param maxWaitMs délai avant TIMEOUT (borné par {@code app.payments.polling.max-wait})
+     * @param intervalMs intervalle initial entre deux interrogations de CamPost
+     * @return le statut final, tel qu'enregistré localement si la transaction existe
+     */
+    public CompletableFuture<String> watch(String orderId, long maxWaitMs, long intervalMs) {
+        return watch(orderId, maxWaitMs, intervalMs, 0);
+    }
+
+    /**
+     * Variante dont la première interrogation de CamPost est différée, pour les suivis qui comptent
+     * d'abord sur le webhook et n'interrogent CamPost qu'en rattrapage
+     * @param firstCheckDelayMs délai avant la première interrogation
+     */
+    public CompletableFuture<String> watch(String orderId, long maxWaitMs, long intervalMs, long firstCheckDelayMs) {
+        Optional<Transaction> local = transactionRepository.findFirstByOrderId(orderId);
+        if (local.isPresent() && TransactionStatusService.isFinal(local.get().getStatus())) {
+            return CompletableFuture.completedFuture(local.get().getStatus());
+        }
+        long now = System.currentTimeMillis();
+        long deadline = now + Math.min(Math.max(1_000L, maxWaitMs), this.maxWaitMs);
+        long interval = Math.max(1_000L, intervalMs);
+        synchronized (this) {
+            PendingOrder order = pending.get(orderId);
+            if (order != null) {
+                order.deadline = Math.max(order.deadline, deadline);
+                order.interval = Math.min(order.interval, interval);
+                return order.result;
+            }
+            order = new PendingOrder(orderId, local.map(Transaction::getId).orElse(null),
+                    local.map(Transaction::getReference).orElse(null), deadline, interval);
+            pending.put(orderId, order);
+            // Première interrogation au prochain tick, ou après le délai demandé
+            schedule(order, Math.min(now + Math.max(0, firstCheckDelayMs), deadline));
+            return order.result;
+        }
+    }
+
+    /**
+     * Avance la roue et lance les interrogations ou les TIMEOUT échus, par lot borné
+     */
+    @Scheduled(fixedDelayString = "${app.payments.polling.tick:PT0.25S}")
+    public void tick() {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            List<PendingOrder> due = wheel.advance(now);
+            for (PendingOrder order : due) {
+                if (order.result.isDone() || order.running || order.nextCheckAt > now) {
+                    // Résolue, en cours, ou replanifiée plus tard entre-temps
+                    continue;
+                }
+                if (inFlight >= batchSize) {
+                    // Lot plein : reportée au tick suivant
+                    schedule(order, now);
+                    continue;
+                }
+                order.running = true;
+                inFlight++;
+                executor.execute(() -> check(order));
+            }
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        if (pendingCount() == 0) {
+            return;
+        }
+        for (TransactionChange change : event.changes()) {
+            if (change.after() != null && change.after().orderId() != null
+                    && TransactionStatusService.isFinal(change.after().status())) {
+                PendingOrder order;
+                synchronized (this) {
+                    order = pending.get(change.after().orderId());
+                }
+                if (order != null) {
+                    resolve(order, change.after().status());
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void check(PendingOrder order) {
+        try {
+            boolean expired;
+            synchronized (this) {
+                expired = System.currentTimeMillis() >= order.deadline;
+            }
+            if (expired) {
+                String stored = order.transactionId == null ? null
+                        : statusService.transition(order.transactionId, TransactionStatusService.TIMEOUT).orElse(null);
+                resolve(order, stored != null ? stored : TransactionStatusService.TIMEOUT);
+                return;
+            }
+            String status = TransactionStatusService.normalize(fetchQuietly(order));
+            if (TransactionStatusService.isFinal(status)) {
+                // Statut normalisé comme pour le webhook ; un statut final déjà enregistré l'emporte
+                String stored = order.transactionId == null ? null
+                        : statusService.transition(order.transactionId, status).orElse(null);
+                resolve(order, stored != null ? stored : status);
+                return;
+            }
+            synchronized (this) {
+                schedule(order, Math.min(System.currentTimeMillis() + order.interval, order.deadline));
+                order.interval = Math.min(maxIntervalMs, order.interval * 3 / 2);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Suivi du paiement {} interrompu", order.orderId, e);
+            order.result.completeExceptionally(e);
+            forget(order);
+        } finally {
+            synchronized (this) {
+                order.running = false;
+                inFlight--;
+            }
+        }
+    }
+
+    private String fetchQuietly(PendingOrder order) {
+        try {
+            return campostService.fetchStatus(order.orderId, order.reference);
+        } catch (RestClientException e) {
+            // Erreur transitoire : nouvelle tentative à la prochaine échéance
+            log.debug("Statut CamPost indisponible pour {}", order.orderId, e);
+            return null;
+        }
+    }
+
+    private void resolve(PendingOrder order, String status) {
+        forget(order);
+        order.result.complete(status);
+    }
+
+    private synchronized void forget(PendingOrder order) {
+        pending.remove(order.orderId, order);
+    }
+
+    // Appelée sous le verrou
+    private void schedule(PendingOrder order, long dueMillis) {
+        order.nextCheckAt = dueMillis;
+        wheel.schedule(order, dueMillis);
+    }
+
+    private synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    private static final class PendingOrder {
+        private final String orderId;
+        private final Long transactionId;
+        private final String reference;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        // Champs suivants protégés par le verrou du poller
+        private long deadline;
+        private long interval;
+        private long nextCheckAt;
+        private boolean running;
+
+        private PendingOrder(String orderId, Long transactionId, String reference, long deadline, long interval) {
+            this.orderId = orderId;
+            this.transactionId = transactionId;
+            this.reference = reference;
+            this.deadline = deadline;
+            this.interval = interval;
+        }
+    }
+}
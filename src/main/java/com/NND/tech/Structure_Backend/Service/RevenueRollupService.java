@@ -0,0 +1,128 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.Repository.ArchiveSegmentSummaryRepository;
+import com.NND.tech.Structure_Backend.Repository.RevenueRollupRepository;
+import com.NND.tech.Structure_Backend.Repository.RevenueRollupRepositoryCustom.RollupDelta;
+import com.NND.tech.Structure_Backend.Repository.TransactionRepository;
+import com.NND.tech.Structure_Backend.event.TransactionChange;
+import com.NND.tech.Structure_Backend.event.TransactionChangedEvent;
+import com.NND.tech.Structure_Backend.event.TransactionSnapshot;
+import com.NND.tech.Structure_Backend.model.entity.DailyRevenueRollup;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Maintient la table {@code daily_revenue_rollups} à partir des écritures de transactions.
+ * Les deltas sont appliqués de façon synchrone, dans la transaction de l'écriture, de sorte
+ * qu'un rollback annule aussi la mise à jour des agrégats.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RevenueRollupService {
+
+    // Aligné sur hibernate.jdbc.batch_size
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private final RevenueRollupRepository rollupRepository;
+    private final TransactionRepository transactionRepository;
+    private final ArchiveSegmentSummaryRepository archiveSummaryRepository;
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        // Regroupe les deltas par clé : une écriture qui ne change pas la clé s'annule
+        Map<RollupKey, Delta> deltas = new LinkedHashMap<>();
+        for (TransactionChange change : event.changes()) {
+            accumulate(deltas, change.before(), -1);
+            accumulate(deltas, change.after(), 1);
+        }
+        List<RollupDelta> changed = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> {
+            if (!delta.isZero()) {
+                changed.add(key.delta(delta.count, delta.amountMinor));
+            }
+        });
+        if (!changed.isEmpty()) {
+            // Attend la fin d'une reconstruction en cours : le delta serait sinon compté deux fois
+            rollupRepository.lockForDeltas();
+            rollupRepository.applyDeltas(changed);
+        }
+    }
+
+    /**
+     * Reconstruit entièrement les agrégats à partir de la table {@code transactions} et des
+     * résumés des segments archivés.
+     * Le verrou exclusif des rollups est pris d'abord : la reconstruction attend la fin des écritures
+     * en cours, et les écritures suivantes attendent la sienne (aucun delta compté deux fois ni perdu).
+     * Les groupes sont écrits par lots de {@value #REBUILD_BATCH_SIZE} upserts.
+     * @return le nombre de groupes agrégés
+     */
+    @Transactional
+    public long rebuild() {
+        long start = System.currentTimeMillis();
+        rollupRepository.lockForRebuild();
+        rollupRepository.deleteAllInBatch();
+        AtomicLong groups = new AtomicLong();
+        List<RollupDelta> batch = new ArrayList<>(REBUILD_BATCH_SIZE);
+        try (Stream<TransactionRepository.RollupSource> rows = transactionRepository.aggregateByRollupKey();
+             Stream<TransactionRepository.RollupSource> archived = archiveSummaryRepository.aggregateByRollupKey()) {
+            // Un mois peut être en partie archivé : les deux sources s'additionnent sur la même clé (upsert)
+            Stream.concat(rows, archived).forEach(row -> {
+                RollupKey key = RollupKey.of(row.getStructureId(), row.getServiceId(), row.getDay(), row.getStatus());
+                batch.add(key.delta(row.getTransactionCount(), row.getAmountMinor()));
+                if (batch.size() == REBUILD_BATCH_SIZE) {
+                    rollupRepository.applyDeltas(batch);
+                    batch.clear();
+                }
+                groups.incrementAndGet();
+            });
+        }
+        rollupRepository.applyDeltas(batch);
+        log.info("Rollups de revenus reconstruits : {} groupes en {} ms", groups.get(), System.currentTimeMillis() - start);
+        return groups.get();
+    }
+
+    private static void accumulate(Map<RollupKey, Delta> deltas, TransactionSnapshot snapshot, int sign) {
+        if (snapshot == null || !snapshot.isAggregated()) {
+            return;
+        }
+        RollupKey key = RollupKey.of(snapshot.structureId(), snapshot.serviceId(), snapshot.transactionDate(),
+                snapshot.status());
+        Delta delta = deltas.computeIfAbsent(key, k -> new Delta());
+        delta.count += sign;
+        delta.amountMinor += sign * snapshot.amountMinor();
+    }
+
+    // Sans catégorie : elle est jointe à la lecture, un changement de catégorie ne décale pas les deltas
+    private record RollupKey(Long structureId, Long serviceId, LocalDate day, String status) {
+        static RollupKey of(Long structureId, Long serviceId, LocalDate day, String status) {
+            return new RollupKey(structureId, serviceId, day, status != null ? status : DailyRevenueRollup.NO_STATUS);
+        }
+
+        RollupDelta delta(long count, long amountMinor) {
+            return new RollupDelta(structureId, serviceId, day, status, count, amountMinor);
+        }
+    }
+
+    private static final class Delta {
+        private long count;
+        private long amountMinor;
+
+        boolean isZero() {
+            return count == 0 && amountMinor == 0;
+        }
+    }
+}
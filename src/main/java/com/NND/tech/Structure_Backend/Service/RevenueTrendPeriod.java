@@ -0,0 +1,65 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * Granularité de regroupement des tendances de revenus.
+ * Chaque valeur sait calculer le début du bucket contenant un instant donné,
+ * le bucket suivant et le libellé exposé par l'API.
+ */
+public enum RevenueTrendPeriod {
+    HOURLY,
+    DAILY,
+    WEEKLY,
+    MONTHLY;
+
+    /**
+     * Convertit la valeur reçue par l'API (insensible à la casse)
+     * @throws IllegalArgumentException si la période n'est pas supportée
+     */
+    public static RevenueTrendPeriod from(String value) {
+        if (value == null) {
+            return DAILY;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("La période doit être 'hourly', 'daily', 'weekly' ou 'monthly'");
+        }
+    }
+
+    /**
+     * Début du bucket contenant l'instant donné.
+     * @param instant instant à classer
+     * @param origin premier jour de la plage demandée (les semaines sont alignées sur ce jour)
+     */
+    public LocalDateTime bucketStart(LocalDateTime instant, LocalDate origin) {
+        return switch (this) {
+            case HOURLY -> instant.truncatedTo(ChronoUnit.HOURS);
+            case DAILY -> instant.toLocalDate().atStartOfDay();
+            case WEEKLY -> origin.plusWeeks(ChronoUnit.DAYS.between(origin, instant.toLocalDate()) / 7).atStartOfDay();
+            case MONTHLY -> instant.toLocalDate().withDayOfMonth(1).atStartOfDay();
+        };
+    }
+
+    public LocalDateTime next(LocalDateTime bucketStart) {
+        return switch (this) {
+            case HOURLY -> bucketStart.plusHours(1);
+            case DAILY -> bucketStart.plusDays(1);
+            case WEEKLY -> bucketStart.plusWeeks(1);
+            case MONTHLY -> bucketStart.plusMonths(1);
+        };
+    }
+
+    public String label(LocalDateTime bucketStart) {
+        return switch (this) {
+            case HOURLY -> bucketStart.toLocalDate() + String.format(" %02d:00", bucketStart.getHour());
+            case DAILY -> bucketStart.toLocalDate().toString();
+            case WEEKLY -> "Semaine du " + bucketStart.toLocalDate();
+            case MONTHLY -> bucketStart.getMonth().toString() + " " + bucketStart.getYear();
+        };
+    }
+}
@@ -0,0 +1,97 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.config.CacheConfig;
+import com.NND.tech.Structure_Backend.event.TransactionChange;
+import com.NND.tech.Structure_Backend.event.TransactionChangedEvent;
+import com.NND.tech.Structure_Backend.event.TransactionSnapshot;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Invalide, après commit d'une écriture de transactions, uniquement les entrées du cache
+ * des statistiques concernées : la clé de chaque structure touchée et les plages de dates
+ * couvrant une date touchée. Les autres entrées restent chaudes. Les statistiques globales
+ * ne sont pas en cache : elles sont servies par {@link GlobalStatsCounters}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StatsCacheInvalidator {
+
+    private final CacheManager cacheManager;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        Cache cache = cacheManager.getCache(CacheConfig.STATS_CACHE);
+        if (cache == null) {
+            return;
+        }
+
+        Set<Long> structureIds = new HashSet<>();
+        Set<LocalDate> dates = new HashSet<>();
+        boolean undatedChange = false;
+        for (TransactionChange change : event.changes()) {
+            for (TransactionSnapshot snapshot : new TransactionSnapshot[]{change.before(), change.after()}) {
+                if (snapshot == null) {
+                    continue;
+                }
+                if (snapshot.structureId() != null) {
+                    structureIds.add(snapshot.structureId());
+                }
+                if (snapshot.transactionDate() != null) {
+                    dates.add(snapshot.transactionDate());
+                } else {
+                    undatedChange = true;
+                }
+            }
+        }
+
+        structureIds.forEach(id -> cache.evict(CacheConfig.STRUCTURE_STATS_KEY_PREFIX + id));
+        for (Object key : dateRangeKeys(cache)) {
+            if (undatedChange || coversAny(key.toString(), dates)) {
+                cache.evict(key);
+            }
+        }
+    }
+
+    // Copie des clés de plage de dates présentes dans le cache Caffeine sous-jacent
+    private static List<Object> dateRangeKeys(Cache cache) {
+        List<Object> keys = new ArrayList<>();
+        if (cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+            for (Object key : nativeCache.asMap().keySet()) {
+                if (key.toString().startsWith(CacheConfig.DATE_RANGE_STATS_KEY_PREFIX)) {
+                    keys.add(key);
+                }
+            }
+        }
+        return keys;
+    }
+
+    // Clé au format dateRangeStats_<début>_<fin> ; une clé illisible est invalidée par prudence
+    private static boolean coversAny(String key, Set<LocalDate> dates) {
+        String[] bounds = key.substring(CacheConfig.DATE_RANGE_STATS_KEY_PREFIX.length()).split("_");
+        if (bounds.length != 2) {
+            return true;
+        }
+        try {
+            LocalDate start = LocalDate.parse(bounds[0]);
+            LocalDate end = LocalDate.parse(bounds[1]);
+            return dates.stream().anyMatch(date -> !date.isBefore(start) && !date.isAfter(end));
+        } catch (DateTimeParseException e) {
+            log.warn("Clé de cache de statistiques inattendue : {}", key);
+            return true;
+        }
+    }
+}
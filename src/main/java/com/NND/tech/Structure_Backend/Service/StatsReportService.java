@@ -0,0 +1,289 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.DTO.StatsReportJobDto;
+import com.NND.tech.Structure_Backend.DTO.StatsReportRequest;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Calcul des rapports statistiques lourds (tendances pluriannuelles, comparaisons, cubes) hors des
+ * threads de requête : exécuteur borné, nombre de rapports actifs limité par utilisateur et
+ * résultats conservés pendant une durée limitée. Au-delà de {@code max-retained} rapports terminés,
+ * les plus anciens sont oubliés sans attendre la fin de leur rétention.
+ */
+@Slf4j
+@Service
+public class StatsReportService {
+
+    public static final String STATUS_QUEUED = "QUEUED";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_SUCCEEDED = "SUCCEEDED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private static final long EMITTER_TIMEOUT_MS = Duration.ofMinutes(10).toMillis();
+
+    private final StatsService statsService;
+    private final ThreadPoolExecutor executor;
+    private final int maxActiveJobsPerUser;
+    private final Duration retention;
+    private final int maxRetainedJobs;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> activeJobsByUser = new ConcurrentHashMap<>();
+    // Rapports terminés, du plus ancien au plus récent
+    private final Deque<Job> finishedJobs = new ArrayDeque<>();
+
+    public StatsReportService(StatsService statsService,
+                              @Value("${app.stats.reports.threads:2}") int threads,
+                              @Value("${app.stats.reports.queue-capacity:50}") int queueCapacity,
+                              @Value("${app.stats.reports.max-active-per-user:2}") int maxActiveJobsPerUser,
+                              @Value("${app.stats.reports.retention:PT1H}") Duration retention,
+                              @Value("${app.stats.reports.max-retained:200}") int maxRetainedJobs) {
+        this.statsService = statsService;
+        this.maxActiveJobsPerUser = maxActiveJobsPerUser;
+        this.retention = retention;
+        this.maxRetainedJobs = maxRetainedJobs;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "stats-report-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Met un rapport en file d'attente
+     * @param owner utilisateur propriétaire du rapport
+     * @return l'état initial du rapport
+     * @throws ResponseStatusException 429 si l'utilisateur a trop de rapports actifs, 503 si la file est pleine
+     */
+    public StatsReportJobDto submit(String owner, StatsReportRequest request) {
+        if (request.getType() == null) {
+            throw new IllegalArgumentException("Le type de rapport est requis");
+        }
+        AtomicInteger active = activeJobsByUser.computeIfAbsent(owner, key -> new AtomicInteger());
+        if (active.incrementAndGet() > maxActiveJobsPerUser) {
+            active.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Nombre maximum de rapports en cours atteint (" + maxActiveJobsPerUser + ")");
+        }
+
+        Job job = new Job(UUID.randomUUID().toString(), owner, request);
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job, active));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            active.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "File des rapports pleine, réessayez plus tard");
+        }
+        return job.toDto();
+    }
+
+    /**
+     * @throws ResponseStatusException 404 si le rapport n'existe pas, a expiré ou appartient à un autre utilisateur
+     */
+    public StatsReportJobDto getStatus(String owner, String jobId) {
+        return find(owner, jobId).toDto();
+    }
+
+    /**
+     * @return le résultat d'un rapport terminé avec succès
+     * @throws ResponseStatusException 409 si le rapport n'est pas (ou pas correctement) terminé
+     */
+    public Object getResult(String owner, String jobId) {
+        Job job = find(owner, jobId);
+        synchronized (job) {
+            if (!STATUS_SUCCEEDED.equals(job.status)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Rapport non disponible (statut " + job.status + ")");
+            }
+            return job.result;
+        }
+    }
+
+    /**
+     * Flux SSE de progression : l'état courant est envoyé immédiatement, puis à chaque changement ;
+     * le flux se termine avec le rapport.
+     */
+    public SseEmitter subscribe(String owner, String jobId) {
+        Job job = find(owner, jobId);
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        emitter.onCompletion(() -> job.emitters.remove(emitter));
+        emitter.onTimeout(() -> job.emitters.remove(emitter));
+        synchronized (job) {
+            send(emitter, job.toDto());
+            if (job.isFinished()) {
+                emitter.complete();
+            } else {
+                job.emitters.add(emitter);
+            }
+        }
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "PT1M")
+    public void purgeExpiredJobs() {
+        LocalDateTime threshold = LocalDateTime.now().minus(retention);
+        synchronized (finishedJobs) {
+            while (!finishedJobs.isEmpty() && finishedJobs.peekFirst().finishedAt.isBefore(threshold)) {
+                jobs.remove(finishedJobs.pollFirst().id);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(Job job, AtomicInteger active) {
+        try {
+            job.update(STATUS_RUNNING, 10, null, null);
+            notifySubscribers(job);
+            Object result = compute(job.request);
+            job.update(STATUS_SUCCEEDED, 100, result, null);
+        } catch (RuntimeException e) {
+            log.warn("Échec du rapport {} ({}) : {}", job.id, job.request.getType(), e.getMessage());
+            job.update(STATUS_FAILED, 100, null, e.getMessage());
+        } finally {
+            active.decrementAndGet();
+            notifySubscribers(job);
+            retain(job);
+        }
+    }
+
+    // Borne le nombre de résultats gardés en mémoire : le plus ancien rapport terminé est oublié
+    private void retain(Job job) {
+        synchronized (finishedJobs) {
+            finishedJobs.addLast(job);
+            while (finishedJobs.size() > maxRetainedJobs) {
+                jobs.remove(finishedJobs.pollFirst().id);
+            }
+        }
+    }
+
+    private Object compute(StatsReportRequest request) {
+        return switch (request.getType()) {
+            case REVENUE_TREND -> statsService.getRevenueTrend(
+                    request.getStartDate(), request.getEndDate(), request.getPeriod());
+            case COMPARE_PERIODS -> statsService.comparePeriods(request.getPeriods());
+            case TOP_STRUCTURES -> statsService.getTopPerformingStructures(
+                    request.getLimit() != null && request.getLimit() > 0 ? request.getLimit() : 5,
+                    request.getStartDate(), request.getEndDate());
+            case REVENUE_CUBE -> {
+                if (request.getCube() == null) {
+                    throw new IllegalArgumentException("La définition du cube est requise");
+                }
+                yield statsService.getRevenueCube(request.getCube());
+            }
+        };
+    }
+
+    private Job find(String owner, String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null || !job.owner.equals(owner)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Rapport introuvable : " + jobId);
+        }
+        return job;
+    }
+
+    private void notifySubscribers(Job job) {
+        synchronized (job) {
+            StatsReportJobDto state = job.toDto();
+            for (SseEmitter emitter : job.emitters) {
+                send(emitter, state);
+                if (job.isFinished()) {
+                    emitter.complete();
+                }
+            }
+            if (job.isFinished()) {
+                job.emitters.clear();
+            }
+        }
+    }
+
+    private static void send(SseEmitter emitter, StatsReportJobDto state) {
+        try {
+            emitter.send(SseEmitter.event().name("progress").data(state));
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    private static final class Job {
+        private final String id;
+        private final String owner;
+        private final StatsReportRequest request;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+        private String status = STATUS_QUEUED;
+        private int progress;
+        private LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private Object result;
+        private String error;
+
+        Job(String id, String owner, StatsReportRequest request) {
+            this.id = id;
+            this.owner = owner;
+            this.request = request;
+        }
+
+        synchronized void update(String status, int progress, Object result, String error) {
+            this.status = status;
+            this.progress = progress;
+            this.result = result;
+            this.error = error;
+            if (STATUS_RUNNING.equals(status)) {
+                startedAt = LocalDateTime.now();
+            } else if (isFinished()) {
+                finishedAt = LocalDateTime.now();
+            }
+        }
+
+        synchronized boolean isFinished() {
+            return STATUS_SUCCEEDED.equals(status) || STATUS_FAILED.equals(status);
+        }
+
+        synchronized StatsReportJobDto toDto() {
+            return StatsReportJobDto.builder()
+                    .id(id)
+                    .type(request.getType())
+                    .status(status)
+                    .progress(progress)
+                    .submittedAt(submittedAt)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .error(error)
+                    .build();
+        }
+    }
+}
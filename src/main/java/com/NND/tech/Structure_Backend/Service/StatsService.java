@@ -1,6 +1,11 @@
 package com.NND.tech.Structure_Backend.Service;
 
 import com.NND.tech.Structure_Backend.config.CacheConfig;
+import com.NND.tech.Structure_Backend.DTO.CategoryRevenueDto;
+import com.NND.tech.Structure_Backend.DTO.PeriodComparisonDto;
+import com.NND.tech.Structure_Backend.DTO.PeriodComparisonRequest;
+import com.NND.tech.Structure_Backend.DTO.RevenueCubeDto;
+import com.NND.tech.Structure_Backend.DTO.RevenueCubeRequest;
 import com.NND.tech.Structure_Backend.DTO.StatsDto;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
@@ -14,7 +19,6 @@ public interface StatsService {
      * Récupère les statistiques globales de l'application
      * @return DTO contenant les statistiques globales
      */
-    @Cacheable(value = CacheConfig.STATS_CACHE, key = "T(com.NND.tech.Structure_Backend.config.CacheConfig).GLOBAL_STATS_KEY")
     StatsDto getGlobalStats();
     
     /**
@@ -24,7 +28,7 @@ public interface StatsService {
      * @return DTO contenant les statistiques pour la période spécifiée
      * @throws IllegalArgumentException si la date de début est postérieure à la date de fin
      */
-    @Cacheable(value = CacheConfig.STATS_CACHE, 
+    @Cacheable(value = CacheConfig.STATS_CACHE, sync = true,
                key = "T(com.NND.tech.Structure_Backend.config.CacheConfig).DATE_RANGE_STATS_KEY_PREFIX + #startDate.toString() + '_' + #endDate.toString()")
     StatsDto getStatsByDateRange(LocalDate startDate, LocalDate endDate);
     
@@ -34,7 +38,7 @@ public interface StatsService {
      * @return DTO contenant les statistiques de la structure
      * @throws IllegalArgumentException si aucune structure n'est trouvée avec l'ID fourni
      */
-    @Cacheable(value = CacheConfig.STATS_CACHE, 
+    @Cacheable(value = CacheConfig.STATS_CACHE, sync = true,
                key = "T(com.NND.tech.Structure_Backend.config.CacheConfig).STRUCTURE_STATS_KEY_PREFIX + #structureId")
     StatsDto getStatsByStructure(Long structureId);
     
@@ -48,8 +52,8 @@ public interface StatsService {
      * Obtient les tendances de revenus sur une période donnée
      * @param startDate Date de début
      * @param endDate Date de fin
-     * @param period Période de regroupement (daily, weekly, monthly)
-     * @return Map des dates/périodes avec les montants de revenus
+     * @param period Période de regroupement (hourly, daily, weekly, monthly)
+     * @return Map ordonnée des dates/périodes avec les montants de revenus, buckets vides inclus
      */
     Map<String, Double> getRevenueTrend(LocalDate startDate, LocalDate endDate, String period);
     
@@ -64,19 +68,39 @@ public interface StatsService {
     Map<String, Object> comparePeriods(
         LocalDate firstPeriodStart, LocalDate firstPeriodEnd,
         LocalDate secondPeriodStart, LocalDate secondPeriodEnd);
+
+    /**
+     * Compare un nombre quelconque de périodes à partir d'une seule lecture des agrégats journaliers
+     * @param periods Périodes à comparer, chacune étant comparée à la précédente
+     * @return Totaux et variations de chaque période, dans l'ordre demandé
+     * @throws IllegalArgumentException si la liste est vide, trop longue ou si une période est invalide
+     */
+    List<PeriodComparisonDto> comparePeriods(List<PeriodComparisonRequest.Period> periods);
     
     /**
      * Obtient les structures les plus performantes par revenus
      * @param limit Nombre maximum de structures à retourner
+     * @param startDate Date de début (optionnelle)
+     * @param endDate Date de fin (optionnelle)
      * @return Liste des structures avec leurs statistiques de performance
      */
-    List<Map<String, Object>> getTopPerformingStructures(int limit);
+    List<Map<String, Object>> getTopPerformingStructures(int limit, LocalDate startDate, LocalDate endDate);
     
     /**
      * Obtient la répartition des revenus par catégorie
      * @param startDate Date de début
      * @param endDate Date de fin
-     * @return Map des catégories avec leurs revenus respectifs
+     * @param structureId Identifiant de la structure (optionnel, toutes les structures si null)
+     * @return Liste des catégories avec leurs revenus et nombres de transactions, par revenu décroissant
+     */
+    List<CategoryRevenueDto> getRevenueByCategory(LocalDate startDate, LocalDate endDate, Long structureId);
+
+    /**
+     * Agrège le chiffre d'affaires selon plusieurs dimensions (structure, service, catégorie, période, statut)
+     * en une seule requête groupée sur les rollups
+     * @param request Dimensions, granularité de la période (daily, weekly, monthly) et filtres
+     * @return Cube au format colonnes
+     * @throws IllegalArgumentException si une dimension est inconnue, la plage invalide ou le cube trop grand
      */
-    Map<String, Double> getRevenueByCategory(LocalDate startDate, LocalDate endDate);
+    RevenueCubeDto getRevenueCube(RevenueCubeRequest request);
 }
@@ -1,81 +1,124 @@
 package com.NND.tech.Structure_Backend.Service;
 
 import com.NND.tech.Structure_Backend.config.CacheConfig;
+import com.NND.tech.Structure_Backend.DTO.CategoryRevenueDto;
+import com.NND.tech.Structure_Backend.DTO.PeriodComparisonDto;
+import com.NND.tech.Structure_Backend.DTO.PeriodComparisonRequest;
+import com.NND.tech.Structure_Backend.DTO.RevenueCubeDto;
+import com.NND.tech.Structure_Backend.DTO.RevenueCubeRequest;
 import com.NND.tech.Structure_Backend.DTO.StatsDto;
 import com.NND.tech.Structure_Backend.model.entity.Structure;
+import com.NND.tech.Structure_Backend.Repository.RevenueRollupRepository;
+import com.NND.tech.Structure_Backend.Repository.RevenueRollupRepositoryCustom.CubeFilter;
+import com.NND.tech.Structure_Backend.Repository.RevenueRollupRepositoryCustom.Dimension;
 import com.NND.tech.Structure_Backend.Repository.StructureRepository;
 import com.NND.tech.Structure_Backend.Repository.TransactionRepository;
 import com.NND.tech.Structure_Backend.Repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
 
+/**
+ * Statistiques calculées à partir des rollups journaliers ({@link RevenueRollupRepository}) :
+ * le coût des requêtes dépend du nombre de jours couverts, pas du nombre de transactions.
+ * Lorsque l'index analytique en mémoire ({@link TransactionAnalyticsIndex}) est activé et chargé,
+ * les totaux, la tendance journalière et le classement des structures sont lus dans l'index.
+ */
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class StatsServiceImpl implements StatsService {
 
+    // Borne le nombre de buckets horaires renvoyés (et donc la taille de la réponse)
+    private static final int MAX_HOURLY_TREND_DAYS = 93;
+    private static final int MAX_COMPARED_PERIODS = 36;
+    // Nombre maximum de lignes de rollups lues pour un cube (coût borné quelle que soit la demande)
+    private static final int MAX_CUBE_ROWS = 50_000;
+    // Bornes d'une plage ouverte : un BETWEEN reste exploitable par l'index des dates
+    private static final LocalDate OPEN_RANGE_START = LocalDate.of(1970, 1, 1);
+    private static final LocalDate OPEN_RANGE_END = LocalDate.of(9999, 12, 31);
+
     private final TransactionRepository transactionRepository;
+    private final RevenueRollupRepository rollupRepository;
     private final StructureRepository structureRepository;
     private final UserRepository userRepository;
+    private final TransactionAnalyticsIndex analyticsIndex;
+    private final GlobalStatsCounters globalCounters;
+    private final TransactionArchiveService archiveService;
 
     @Override
-    @Cacheable(value = CacheConfig.STATS_CACHE, 
-               key = "T(com.NND.tech.Structure_Backend.config.CacheConfig).GLOBAL_STATS_KEY")
     public StatsDto getGlobalStats() {
-        long totalTransactions = transactionRepository.count();
-        double totalRevenue = transactionRepository.getTotalRevenue();
+        // Temps constant dès que les compteurs sont initialisés (non mis en cache)
+        if (globalCounters.isSeeded()) {
+            GlobalStatsCounters.Totals counters = globalCounters.totals();
+            return StatsDto.builder()
+                    .totalTransactions(counters.transactions())
+                    .totalRevenue(MinorUnits.toMajor(counters.revenueMinor()))
+                    .totalRevenueMinor(counters.revenueMinor())
+                    .totalStructures(counters.structures())
+                    .totalUsers(counters.users())
+                    .build();
+        }
+
+        TransactionAnalyticsIndex.RangeTotals totals = analyticsIndex.isReady()
+                ? analyticsIndex.totals(null, null)
+                : toRangeTotals(rollupRepository.getTotals());
         long totalStructures = structureRepository.count();
         long totalUsers = userRepository.count();
         
         return StatsDto.builder()
-                .totalTransactions(totalTransactions)
-                .totalRevenue(totalRevenue)
+                .totalTransactions(totals.count())
+                .totalRevenue(MinorUnits.toMajor(totals.amountMinor()))
+                .totalRevenueMinor(totals.amountMinor())
                 .totalStructures(totalStructures)
                 .totalUsers(totalUsers)
                 .build();
     }
 
     @Override
-    @Cacheable(value = CacheConfig.STATS_CACHE, 
+    @Cacheable(value = CacheConfig.STATS_CACHE, sync = true,
                key = "T(com.NND.tech.Structure_Backend.config.CacheConfig).DATE_RANGE_STATS_KEY_PREFIX + #startDate.toString() + '_' + #endDate.toString()")
     public StatsDto getStatsByDateRange(LocalDate startDate, LocalDate endDate) {
         if (startDate.isAfter(endDate)) {
             throw new IllegalArgumentException("La date de début doit être antérieure à la date de fin");
         }
 
-        long transactionsInPeriod = transactionRepository.countByTransactionDateBetween(startDate, endDate);
-        double revenueInPeriod = transactionRepository.getTotalRevenueByDateRange(startDate, endDate);
+        TransactionAnalyticsIndex.RangeTotals totals = analyticsIndex.isReady()
+                ? analyticsIndex.totals(startDate, endDate)
+                : toRangeTotals(rollupRepository.getTotalsByDateRange(startDate, endDate));
         
         return StatsDto.builder()
-                .transactionsInPeriod(transactionsInPeriod)
-                .revenueInPeriod(revenueInPeriod)
+                .transactionsInPeriod(totals.count())
+                .revenueInPeriod(MinorUnits.toMajor(totals.amountMinor()))
+                .revenueInPeriodMinor(totals.amountMinor())
                 .build();
     }
 
     @Override
-    @Cacheable(value = CacheConfig.STATS_CACHE, 
+    @Cacheable(value = CacheConfig.STATS_CACHE, sync = true,
                key = "T(com.NND.tech.Structure_Backend.config.CacheConfig).STRUCTURE_STATS_KEY_PREFIX + #structureId")
     public StatsDto getStatsByStructure(Long structureId) {
         Structure structure = structureRepository.findById(structureId)
                 .orElseThrow(() -> new IllegalArgumentException("Structure non trouvée avec l'ID : " + structureId));
 
-        long transactionsCount = transactionRepository.countByStructureId(structureId);
-        double totalRevenue = transactionRepository.getTotalRevenueByStructureId(structureId);
+        TransactionAnalyticsIndex.RangeTotals totals = analyticsIndex.isReady()
+                ? analyticsIndex.totalsForStructure(structureId, null, null)
+                : toRangeTotals(rollupRepository.getTotalsByStructureId(structureId));
         
         return StatsDto.builder()
-                .totalTransactions(transactionsCount)
-                .totalRevenue(totalRevenue)
+                .totalTransactions(totals.count())
+                .totalRevenue(MinorUnits.toMajor(totals.amountMinor()))
+                .totalRevenueMinor(totals.amountMinor())
                 .structureId(structureId)
                 .structureName(structure.getName())
                 .build();
@@ -89,49 +132,54 @@ public class StatsServiceImpl implements StatsService {
     
     @Override
     public Map<String, Double> getRevenueTrend(LocalDate startDate, LocalDate endDate, String period) {
-        Map<String, Double> revenueTrend = new LinkedHashMap<>();
-        long daysBetween = ChronoUnit.DAYS.between(startDate, endDate);
-        
-        if ("monthly".equalsIgnoreCase(period) && daysBetween > 31) {
-            // Regroupement mensuel
-            LocalDate current = startDate.withDayOfMonth(1);
-            while (!current.isAfter(endDate)) {
-                LocalDate monthStart = current;
-                LocalDate monthEnd = current.plusMonths(1).minusDays(1);
-                if (monthEnd.isAfter(endDate)) {
-                    monthEnd = endDate;
-                }
-                
-                double revenue = transactionRepository.getTotalRevenueByDateRange(monthStart, monthEnd);
-                revenueTrend.put(monthStart.getMonth().toString() + " " + monthStart.getYear(), 
-                               round(revenue, 2));
-                current = current.plusMonths(1);
-            }
-        } else if ("weekly".equalsIgnoreCase(period) && daysBetween > 7) {
-            // Regroupement hebdomadaire
-            LocalDate current = startDate;
-            while (!current.isAfter(endDate)) {
-                LocalDate weekEnd = current.plusDays(6);
-                if (weekEnd.isAfter(endDate)) {
-                    weekEnd = endDate;
-                }
-                
-                double revenue = transactionRepository.getTotalRevenueByDateRange(current, weekEnd);
-                revenueTrend.put("Semaine du " + current, round(revenue, 2));
-                current = current.plusWeeks(1);
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("La date de début doit être antérieure à la date de fin");
+        }
+        RevenueTrendPeriod trendPeriod = RevenueTrendPeriod.from(period);
+        if (trendPeriod == RevenueTrendPeriod.HOURLY
+                && ChronoUnit.DAYS.between(startDate, endDate) >= MAX_HOURLY_TREND_DAYS) {
+            throw new IllegalArgumentException(
+                    "La tendance horaire est limitée à " + MAX_HOURLY_TREND_DAYS + " jours");
+        }
+
+        // Tous les buckets de la plage, y compris les vides, dans l'ordre chronologique.
+        // Chaque bucket accumule des unités mineures dans un long[1] : pas d'allocation par ligne lue.
+        Map<LocalDateTime, long[]> buckets = new LinkedHashMap<>();
+        LocalDateTime rangeEnd = endDate.plusDays(1).atStartOfDay();
+        for (LocalDateTime bucket = trendPeriod.bucketStart(startDate.atStartOfDay(), startDate);
+             bucket.isBefore(rangeEnd);
+             bucket = trendPeriod.next(bucket)) {
+            buckets.put(bucket, new long[1]);
+        }
+
+        // Une seule requête agrégée, repliée en mémoire sur la granularité demandée.
+        // Les rollups étant journaliers, la tendance horaire lit la table des transactions (plage bornée).
+        if (trendPeriod == RevenueTrendPeriod.HOURLY) {
+            for (TransactionRepository.HourlyRevenue row : transactionRepository.getHourlyRevenue(startDate, endDate)) {
+                int hour = row.getHour() != null ? row.getHour() : 0;
+                LocalDateTime bucket = trendPeriod.bucketStart(row.getDay().atTime(hour, 0), startDate);
+                buckets.get(bucket)[0] += row.getAmountMinor();
             }
+            // Jours archivés : relus depuis les segments du mois (plage horaire bornée)
+            archiveService.forEachArchived(startDate, endDate, row -> {
+                int hour = row.getCreatedAt() != null ? row.getCreatedAt().getHour() : 0;
+                LocalDateTime bucket = trendPeriod.bucketStart(row.getTransactionDate().atTime(hour, 0), startDate);
+                buckets.get(bucket)[0] += MinorUnits.of(row.getAmount());
+            });
+        } else if (analyticsIndex.isReady()) {
+            analyticsIndex.forEachDay(startDate, endDate, (epochDay, count, amountMinor) -> {
+                LocalDateTime bucket = trendPeriod.bucketStart(LocalDate.ofEpochDay(epochDay).atStartOfDay(), startDate);
+                buckets.get(bucket)[0] += amountMinor;
+            });
         } else {
-            // Par défaut, journalier
-            LocalDate current = startDate;
-            while (!current.isAfter(endDate)) {
-                double revenue = transactionRepository.getTotalRevenueByDateRange(current, current);
-                if (revenue > 0) {
-                    revenueTrend.put(current.toString(), round(revenue, 2));
-                }
-                current = current.plusDays(1);
+            for (RevenueRollupRepository.DailyRevenue row : rollupRepository.getDailyRevenue(startDate, endDate)) {
+                LocalDateTime bucket = trendPeriod.bucketStart(row.getDay().atStartOfDay(), startDate);
+                buckets.get(bucket)[0] += row.getAmountMinor();
             }
         }
-        
+
+        Map<String, Double> revenueTrend = new LinkedHashMap<>();
+        buckets.forEach((bucket, amountMinor) -> revenueTrend.put(trendPeriod.label(bucket), MinorUnits.toMajor(amountMinor[0])));
         return revenueTrend;
     }
     
@@ -139,78 +187,279 @@ public class StatsServiceImpl implements StatsService {
     public Map<String, Object> comparePeriods(
             LocalDate firstPeriodStart, LocalDate firstPeriodEnd,
             LocalDate secondPeriodStart, LocalDate secondPeriodEnd) {
-            
+
+        List<PeriodComparisonDto> periods = comparePeriods(List.of(
+            new PeriodComparisonRequest.Period("firstPeriod", firstPeriodStart, firstPeriodEnd),
+            new PeriodComparisonRequest.Period("secondPeriod", secondPeriodStart, secondPeriodEnd)));
+        PeriodComparisonDto first = periods.get(0);
+        PeriodComparisonDto second = periods.get(1);
+
         Map<String, Object> comparison = new HashMap<>();
-        
-        // Statistiques pour la première période
-        StatsDto firstPeriodStats = getStatsByDateRange(firstPeriodStart, firstPeriodEnd);
-        // Statistiques pour la deuxième période
-        StatsDto secondPeriodStats = getStatsByDateRange(secondPeriodStart, secondPeriodEnd);
-        
-        // Calcul des variations
-        double revenueChange = calculatePercentageChange(
-            firstPeriodStats.getRevenueInPeriod(), 
-            secondPeriodStats.getRevenueInPeriod());
-            
-        double transactionsChange = calculatePercentageChange(
-            (double) firstPeriodStats.getTransactionsInPeriod(), 
-            (double) secondPeriodStats.getTransactionsInPeriod());
-        
-        comparison.put("firstPeriod", firstPeriodStats);
-        comparison.put("secondPeriod", secondPeriodStats);
-        comparison.put("revenueChange", revenueChange);
-        comparison.put("transactionsChange", transactionsChange);
-        
+        comparison.put("firstPeriod", toPeriodStats(first));
+        comparison.put("secondPeriod", toPeriodStats(second));
+        comparison.put("revenueChange", second.getRevenueChange());
+        comparison.put("transactionsChange", second.getTransactionsChange());
         return comparison;
     }
+
+    @Override
+    public List<PeriodComparisonDto> comparePeriods(List<PeriodComparisonRequest.Period> periods) {
+        if (periods == null || periods.isEmpty() || periods.size() > MAX_COMPARED_PERIODS) {
+            throw new IllegalArgumentException(
+                    "Le nombre de périodes à comparer doit être compris entre 1 et " + MAX_COMPARED_PERIODS);
+        }
+        LocalDate spanStart = null;
+        LocalDate spanEnd = null;
+        for (PeriodComparisonRequest.Period period : periods) {
+            if (period.getStartDate() == null || period.getEndDate() == null
+                    || period.getStartDate().isAfter(period.getEndDate())) {
+                throw new IllegalArgumentException("Les dates de début doivent être antérieures aux dates de fin");
+            }
+            spanStart = spanStart == null || period.getStartDate().isBefore(spanStart) ? period.getStartDate() : spanStart;
+            spanEnd = spanEnd == null || period.getEndDate().isAfter(spanEnd) ? period.getEndDate() : spanEnd;
+        }
+
+        // Une seule lecture journalière couvrant toutes les périodes, puis sommes préfixes
+        DailySeries series = loadDailySeries(spanStart, spanEnd);
+
+        List<PeriodComparisonDto> result = new ArrayList<>(periods.size());
+        PeriodComparisonDto previous = null;
+        for (PeriodComparisonRequest.Period period : periods) {
+            TransactionAnalyticsIndex.RangeTotals totals = series.totals(period.getStartDate(), period.getEndDate());
+            PeriodComparisonDto.PeriodComparisonDtoBuilder row = PeriodComparisonDto.builder()
+                .label(period.getLabel() != null ? period.getLabel()
+                        : period.getStartDate() + "_" + period.getEndDate())
+                .startDate(period.getStartDate())
+                .endDate(period.getEndDate())
+                .revenue(MinorUnits.toMajor(totals.amountMinor()))
+                .revenueMinor(totals.amountMinor())
+                .transactionCount(totals.count());
+            if (previous != null) {
+                long revenueDeltaMinor = totals.amountMinor() - previous.getRevenueMinor();
+                row.revenueDelta(MinorUnits.toMajor(revenueDeltaMinor))
+                    .revenueDeltaMinor(revenueDeltaMinor)
+                    .revenueChange(calculatePercentageChange(
+                            (double) previous.getRevenueMinor(), (double) totals.amountMinor()))
+                    .transactionsDelta(totals.count() - previous.getTransactionCount())
+                    .transactionsChange(calculatePercentageChange(
+                            (double) previous.getTransactionCount(), (double) totals.count()));
+            }
+            previous = row.build();
+            result.add(previous);
+        }
+        return result;
+    }
     
     @Override
-    public List<Map<String, Object>> getTopPerformingStructures(int limit) {
-        List<Structure> allStructures = structureRepository.findAll();
-        
-        return allStructures.stream()
-            .map(structure -> {
-                double revenue = transactionRepository.getTotalRevenueByStructureId(structure.getId());
-                long transactionCount = transactionRepository.countByStructureId(structure.getId());
-                
+    public List<Map<String, Object>> getTopPerformingStructures(int limit, LocalDate startDate, LocalDate endDate) {
+        if (startDate != null && endDate != null && startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("La date de début doit être antérieure à la date de fin");
+        }
+
+        if (analyticsIndex.isReady()) {
+            return topPerformingStructuresFromIndex(limit, startDate, endDate);
+        }
+
+        // Agrégation, tri et limite côté base : le coût dépend de K, pas du nombre de structures
+        return rollupRepository.findTopStructuresByRevenue(
+                startDate != null ? startDate : OPEN_RANGE_START,
+                endDate != null ? endDate : OPEN_RANGE_END,
+                PageRequest.of(0, limit))
+            .stream()
+            .map(row -> {
                 Map<String, Object> structureStats = new HashMap<>();
-                structureStats.put("id", structure.getId());
-                structureStats.put("name", structure.getName());
-                structureStats.put("revenue", round(revenue, 2));
-                structureStats.put("transactionCount", transactionCount);
-                
+                structureStats.put("id", row.getStructureId());
+                structureStats.put("name", row.getStructureName());
+                structureStats.put("revenue", MinorUnits.toMajor(row.getAmountMinor()));
+                structureStats.put("revenueMinor", row.getAmountMinor());
+                structureStats.put("transactionCount", row.getTransactionCount());
                 return structureStats;
             })
-            .filter(stats -> (double) stats.get("revenue") > 0)
-            .sorted((s1, s2) -> Double.compare(
-                (double) s2.get("revenue"), 
-                (double) s1.get("revenue")))
-            .limit(limit)
             .collect(Collectors.toList());
     }
     
     @Override
-    public Map<String, Double> getRevenueByCategory(LocalDate startDate, LocalDate endDate) {
-        // Implémentation simplifiée - à adapter selon votre modèle de données
-        // Cette méthode suppose que vous avez un moyen de récupérer les revenus par catégorie
-        Map<String, Double> revenueByCategory = new HashMap<>();
-        
-        // Exemple avec des catégories statiques - à remplacer par votre logique métier
-        List<String> categories = Arrays.asList("Hébergement", "Restauration", "Divertissement", "Autres");
-        
-        for (String category : categories) {
-            // Ici, vous devriez appeler votre repository pour obtenir le revenu par catégorie
-            double revenue = transactionRepository.getTotalRevenueByCategoryAndDateRange(
-                category, startDate, endDate);
-            if (revenue > 0) {
-                revenueByCategory.put(category, round(revenue, 2));
-            }
+    public List<CategoryRevenueDto> getRevenueByCategory(LocalDate startDate, LocalDate endDate, Long structureId) {
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("La date de début doit être antérieure à la date de fin");
         }
-        
-        return revenueByCategory;
+
+        // Un seul GROUP BY sur les catégories réellement utilisées par les services ; une requête
+        // par forme de filtre, pour que chacune utilise son index
+        List<RevenueRollupRepository.CategoryRevenue> rows = structureId == null
+            ? rollupRepository.getRevenueByCategory(startDate, endDate)
+            : rollupRepository.getRevenueByCategoryAndStructureId(startDate, endDate, structureId);
+        return rows.stream()
+            .map(row -> CategoryRevenueDto.builder()
+                .category(row.getCategory())
+                .revenue(MinorUnits.toMajor(row.getAmountMinor()))
+                .revenueMinor(row.getAmountMinor())
+                .transactionCount(row.getTransactionCount())
+                .build())
+            .collect(Collectors.toList());
     }
     
+    @Override
+    public RevenueCubeDto getRevenueCube(RevenueCubeRequest request) {
+        if (request.getStartDate() == null || request.getEndDate() == null
+                || request.getStartDate().isAfter(request.getEndDate())) {
+            throw new IllegalArgumentException("La date de début doit être antérieure à la date de fin");
+        }
+        List<String> names = request.getDimensions() != null ? request.getDimensions() : List.of();
+        List<Dimension> dimensions = new ArrayList<>(names.size());
+        for (String name : names) {
+            Dimension dimension = cubeDimension(name);
+            if (dimensions.contains(dimension)) {
+                throw new IllegalArgumentException("Dimension en double : " + name);
+            }
+            dimensions.add(dimension);
+        }
+        int periodIndex = dimensions.indexOf(Dimension.DAY);
+        RevenueTrendPeriod period = periodIndex >= 0 ? RevenueTrendPeriod.from(request.getPeriod()) : null;
+        if (period == RevenueTrendPeriod.HOURLY) {
+            throw new IllegalArgumentException("La période du cube doit être 'daily', 'weekly' ou 'monthly'");
+        }
+
+        List<Object[]> rows = rollupRepository.aggregateCube(dimensions,
+                new CubeFilter(request.getStartDate(), request.getEndDate(),
+                        request.getStructureIds(), request.getCategories(), request.getStatuses()),
+                MAX_CUBE_ROWS + 1);
+        if (rows.size() > MAX_CUBE_ROWS) {
+            throw new IllegalArgumentException(
+                    "Le cube dépasse " + MAX_CUBE_ROWS + " cellules : réduisez la plage ou le nombre de dimensions");
+        }
+
+        // Les rollups sont journaliers : les jours sont repliés sur la granularité demandée
+        Map<List<Object>, long[]> cells = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            // Sans dimension, la requête renvoie une ligne de sommes nulles lorsqu'aucun rollup ne correspond
+            if (row[dimensions.size()] == null) {
+                continue;
+            }
+            List<Object> key = new ArrayList<>(dimensions.size());
+            for (int i = 0; i < dimensions.size(); i++) {
+                key.add(i == periodIndex
+                        ? period.bucketStart(((LocalDate) row[i]).atStartOfDay(), request.getStartDate()).toLocalDate().toString()
+                        : row[i]);
+            }
+            long[] totals = cells.computeIfAbsent(key, k -> new long[2]);
+            totals[0] += ((Number) row[dimensions.size()]).longValue();
+            totals[1] += ((Number) row[dimensions.size() + 1]).longValue();
+        }
+
+        Map<String, List<Object>> columns = new LinkedHashMap<>();
+        for (int i = 0; i < dimensions.size(); i++) {
+            List<Object> column = new ArrayList<>(cells.size());
+            for (List<Object> key : cells.keySet()) {
+                column.add(key.get(i));
+            }
+            columns.put(cubeColumnName(dimensions.get(i)), column);
+            if (dimensions.get(i) == Dimension.STRUCTURE) {
+                columns.put("structureName", structureNames(column));
+            }
+        }
+        List<Object> counts = new ArrayList<>(cells.size());
+        List<Object> revenues = new ArrayList<>(cells.size());
+        List<Object> revenuesMinor = new ArrayList<>(cells.size());
+        for (long[] totals : cells.values()) {
+            counts.add(totals[0]);
+            revenues.add(MinorUnits.toMajor(totals[1]));
+            revenuesMinor.add(totals[1]);
+        }
+        columns.put("transactionCount", counts);
+        columns.put("revenue", revenues);
+        columns.put("revenueMinor", revenuesMinor);
+
+        return RevenueCubeDto.builder()
+                .dimensions(names)
+                .period(period != null ? period.name().toLowerCase() : null)
+                .rowCount(cells.size())
+                .columns(columns)
+                .build();
+    }
+
+    private static Dimension cubeDimension(String name) {
+        return switch (name == null ? "" : name.trim().toLowerCase()) {
+            case "structure" -> Dimension.STRUCTURE;
+            case "service" -> Dimension.SERVICE;
+            case "category" -> Dimension.CATEGORY;
+            case "period" -> Dimension.DAY;
+            case "status" -> Dimension.STATUS;
+            default -> throw new IllegalArgumentException(
+                    "Dimension inconnue : " + name + " (structure, service, category, period, status)");
+        };
+    }
+
+    private static String cubeColumnName(Dimension dimension) {
+        return switch (dimension) {
+            case STRUCTURE -> "structureId";
+            case SERVICE -> "serviceId";
+            case CATEGORY -> "category";
+            case DAY -> "period";
+            case STATUS -> "status";
+        };
+    }
+
+    // Noms des structures d'une colonne d'identifiants, en une seule lecture
+    private List<Object> structureNames(List<Object> structureIds) {
+        Set<Long> ids = new HashSet<>();
+        structureIds.forEach(id -> ids.add((Long) id));
+        Map<Long, String> names = structureRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Structure::getId, Structure::getName));
+        List<Object> column = new ArrayList<>(structureIds.size());
+        structureIds.forEach(id -> column.add(names.get((Long) id)));
+        return column;
+    }
+
+    // Classement par tas borné sur les totaux de l'index, puis une seule lecture des noms
+    private List<Map<String, Object>> topPerformingStructuresFromIndex(int limit, LocalDate startDate, LocalDate endDate) {
+        List<TransactionAnalyticsIndex.StructureTotals> top = analyticsIndex.topStructures(limit, startDate, endDate);
+        Map<Long, String> names = structureRepository.findAllById(
+                top.stream().map(TransactionAnalyticsIndex.StructureTotals::structureId).toList())
+            .stream()
+            .collect(Collectors.toMap(Structure::getId, Structure::getName));
+
+        return top.stream()
+            .filter(row -> names.containsKey(row.structureId()))
+            .map(row -> {
+                Map<String, Object> structureStats = new HashMap<>();
+                structureStats.put("id", row.structureId());
+                structureStats.put("name", names.get(row.structureId()));
+                structureStats.put("revenue", MinorUnits.toMajor(row.amountMinor()));
+                structureStats.put("revenueMinor", row.amountMinor());
+                structureStats.put("transactionCount", row.count());
+                return structureStats;
+            })
+            .collect(Collectors.toList());
+    }
+
+    private DailySeries loadDailySeries(LocalDate startDate, LocalDate endDate) {
+        List<long[]> days = new ArrayList<>();
+        if (analyticsIndex.isReady()) {
+            analyticsIndex.forEachDay(startDate, endDate,
+                    (epochDay, count, amountMinor) -> days.add(new long[]{epochDay, count, amountMinor}));
+        } else {
+            for (RevenueRollupRepository.DailyRevenue row : rollupRepository.getDailyRevenue(startDate, endDate)) {
+                days.add(new long[]{row.getDay().toEpochDay(), row.getTransactionCount(), row.getAmountMinor()});
+            }
+            days.sort(Comparator.comparingLong(day -> day[0]));
+        }
+        return new DailySeries(days);
+    }
+
+    private static StatsDto toPeriodStats(PeriodComparisonDto period) {
+        return StatsDto.builder()
+                .transactionsInPeriod(period.getTransactionCount())
+                .revenueInPeriod(period.getRevenue())
+                .revenueInPeriodMinor(period.getRevenueMinor())
+                .build();
+    }
+
     // Méthodes utilitaires
+    private static TransactionAnalyticsIndex.RangeTotals toRangeTotals(RevenueRollupRepository.RevenueTotal totals) {
+        return new TransactionAnalyticsIndex.RangeTotals(totals.getTransactionCount(), totals.getAmountMinor());
+    }
+
     private double calculatePercentageChange(double oldValue, double newValue) {
         if (oldValue == 0) {
             return newValue == 0 ? 0 : 100.0;
@@ -218,11 +467,45 @@ public class StatsServiceImpl implements StatsService {
         return round(((newValue - oldValue) / Math.abs(oldValue)) * 100, 2);
     }
     
+    /**
+     * Série journalière triée avec sommes préfixes : le total d'une plage coûte deux recherches dichotomiques.
+     */
+    private static final class DailySeries {
+        private final long[] epochDays;
+        private final long[] cumulativeCounts;
+        private final long[] cumulativeAmounts;
+
+        DailySeries(List<long[]> days) {
+            epochDays = new long[days.size()];
+            cumulativeCounts = new long[days.size() + 1];
+            cumulativeAmounts = new long[days.size() + 1];
+            for (int i = 0; i < days.size(); i++) {
+                long[] day = days.get(i);
+                epochDays[i] = day[0];
+                cumulativeCounts[i + 1] = cumulativeCounts[i] + day[1];
+                cumulativeAmounts[i + 1] = cumulativeAmounts[i] + day[2];
+            }
+        }
+
+        TransactionAnalyticsIndex.RangeTotals totals(LocalDate startDate, LocalDate endDate) {
+            int from = firstIndexAfter(startDate.toEpochDay() - 1);
+            int to = firstIndexAfter(endDate.toEpochDay());
+            return new TransactionAnalyticsIndex.RangeTotals(
+                    cumulativeCounts[to] - cumulativeCounts[from],
+                    cumulativeAmounts[to] - cumulativeAmounts[from]);
+        }
+
+        // Nombre de jours de la série antérieurs ou égaux à {@code epochDay}
+        private int firstIndexAfter(long epochDay) {
+            int index = Arrays.binarySearch(epochDays, epochDay);
+            return index >= 0 ? index + 1 : -(index + 1);
+        }
+    }
+
+    // Arrondi des pourcentages, sans passer par BigDecimal
     private double round(double value, int places) {
         if (places < 0) throw new IllegalArgumentException();
-        
-        BigDecimal bd = BigDecimal.valueOf(value);
-        bd = bd.setScale(places, RoundingMode.HALF_UP);
-        return bd.doubleValue();
+        double scale = Math.pow(10, places);
+        return Math.round(value * scale) / scale;
     }
 }
@@ -27,6 +27,7 @@ public class StructureService {
     private final UserRepository userRepository;
     private final StructureMapper structureMapper;
     private final PasswordEncoder passwordEncoder;
+    private final GlobalStatsCounters globalCounters;
 
     @Transactional(readOnly = true)
     public List<StructureDto> findAll() {
@@ -58,6 +59,7 @@ public class StructureService {
         structure.setActive(true);
 
         Structure savedStructure = structureRepository.save(structure);
+        globalCounters.structureCreated();
         return structureMapper.toDto(savedStructure);
     }
 
@@ -121,6 +123,7 @@ public class StructureService {
         admin.setStructure(structure);
 
         User savedAdmin = userRepository.save(admin);
+        globalCounters.userCreated();
         return savedAdmin;
     }
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Roue temporelle hachée : planification en O(1) et expiration proportionnelle au nombre d'échéances
+ * atteintes, pour un grand nombre d'échéances à la précision d'un tick. Une échéance est rangée dans
+ * la case {@code tick % taille} et chaque avance ne parcourt que les cases des ticks écoulés ; les
+ * échéances à plus d'un tour restent dans leur case jusqu'au bon tour.
+ * Non synchronisée : l'appelant sérialise les accès.
+ */
+final class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final long originMillis;
+    private final List<List<Entry<T>>> slots;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis précision des échéances
+     * @param slotCount nombre de cases (durée d'un tour = tickMillis * slotCount)
+     * @param nowMillis instant de départ
+     */
+    TimingWheel(long tickMillis, int slotCount, long nowMillis) {
+        if (tickMillis < 1 || slotCount < 1) {
+            throw new IllegalArgumentException("Tick ou nombre de cases invalide");
+        }
+        this.tickMillis = tickMillis;
+        this.originMillis = nowMillis;
+        this.slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Planifie un élément ; une échéance passée est rendue à la prochaine avance
+     * @param dueMillis échéance
+     */
+    void schedule(T item, long dueMillis) {
+        long tick = Math.max(currentTick + 1, Math.floorDiv(dueMillis - originMillis + tickMillis - 1, tickMillis));
+        slots.get((int) (tick % slots.size())).add(new Entry<>(item, tick));
+        size++;
+    }
+
+    /**
+     * Avance la roue jusqu'à l'instant donné
+     * @return les éléments dont l'échéance est atteinte, dans l'ordre des ticks (des tours entiers sautés
+     * ne parcourent chaque case qu'une fois)
+     */
+    List<T> advance(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis - originMillis, tickMillis);
+        List<T> due = new ArrayList<>();
+        long steps = Math.min(targetTick - currentTick, slots.size());
+        for (long step = 1; step <= steps; step++) {
+            Iterator<Entry<T>> entries = slots.get((int) ((currentTick + step) % slots.size())).iterator();
+            while (entries.hasNext()) {
+                Entry<T> entry = entries.next();
+                if (entry.tick <= targetTick) {
+                    due.add(entry.item);
+                    entries.remove();
+                }
+            }
+        }
+        size -= due.size();
+        currentTick = Math.max(currentTick, targetTick);
+        return due;
+    }
+
+    /**
+     * @return nombre d'éléments planifiés
+     */
+    int size() {
+        return size;
+    }
+
+    private record Entry<T>(T item, long tick) {
+    }
+}
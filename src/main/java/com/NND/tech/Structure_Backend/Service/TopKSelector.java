@@ -0,0 +1,43 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sélection des K meilleurs éléments d'une source en mémoire à l'aide d'un tas borné.
+ * Le coût est en O(n log k) et la mémoire en O(k), au lieu d'un tri complet en O(n log n).
+ */
+public final class TopKSelector {
+
+    private TopKSelector() {
+    }
+
+    /**
+     * @param items éléments à classer (parcourus une seule fois)
+     * @param k nombre maximum d'éléments à conserver
+     * @param order ordre de classement, le meilleur élément en premier
+     * @return au plus {@code k} éléments, triés selon {@code order}
+     */
+    public static <T> List<T> select(Iterable<? extends T> items, int k, Comparator<? super T> order) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        // Tas min sur l'ordre de classement : la racine est le moins bon des K retenus
+        Comparator<T> worstFirst = (a, b) -> order.compare(b, a);
+        PriorityQueue<T> heap = new PriorityQueue<>(k, worstFirst);
+        for (T item : items) {
+            if (heap.size() < k) {
+                heap.offer(item);
+            } else if (order.compare(item, heap.peek()) < 0) {
+                heap.poll();
+                heap.offer(item);
+            }
+        }
+        List<T> result = new ArrayList<>(heap);
+        result.sort(order);
+        return result;
+    }
+}
@@ -0,0 +1,555 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.Repository.TransactionRepository;
+import com.NND.tech.Structure_Backend.event.TransactionChange;
+import com.NND.tech.Structure_Backend.event.TransactionChangedEvent;
+import com.NND.tech.Structure_Backend.event.TransactionSnapshot;
+import com.NND.tech.Structure_Backend.model.entity.ArchiveSegment;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Index analytique en mémoire des transactions, stocké en colonnes de types primitifs
+ * (jour en epoch-day, identifiants en int, montant en unités mineures, statut en byte).
+ * <p>
+ * Un arbre de Fenwick par structure (et un global) sur les jours distincts permet de répondre
+ * à toute somme/comptage sur une plage de dates en O(log n), sans accès base ni boxing.
+ * L'index est chargé au démarrage par un parcours en flux de la table et tenu à jour
+ * après chaque commit d'écriture. Il est désactivé par défaut
+ * ({@code app.stats.analytics-index.enabled}).
+ */
+@Slf4j
+@Component
+public class TransactionAnalyticsIndex {
+
+    static final byte STATUS_DELETED = -1;
+    static final byte STATUS_UNKNOWN = 0;
+    static final byte STATUS_PENDING = 1;
+    static final byte STATUS_SUCCESS = 2;
+    static final byte STATUS_FAILED = 3;
+    static final byte STATUS_CANCELLED = 4;
+    static final byte STATUS_TIMEOUT = 5;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int LOAD_CHUNK_SIZE = 10_000;
+    // Octets par ligne : id (8) + jour (4) + structure (4) + service (4) + montant (8) + statut (1)
+    private static final int BYTES_PER_ROW = 29;
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionArchiveService archiveService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Colonnes, triées par id croissant
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] days = new int[INITIAL_CAPACITY];
+    private int[] structureIds = new int[INITIAL_CAPACITY];
+    private int[] serviceIds = new int[INITIAL_CAPACITY];
+    private long[] amounts = new long[INITIAL_CAPACITY];
+    private byte[] statuses = new byte[INITIAL_CAPACITY];
+    private int size;
+    private int liveRows;
+
+    private final DayFenwick global = new DayFenwick();
+    private DayFenwick[] byStructure = new DayFenwick[64];
+
+    // Identifiants écrits pendant le chargement : la version du flux, plus ancienne, est ignorée
+    private Set<Long> touchedWhileLoading;
+    private volatile boolean ready;
+
+    public TransactionAnalyticsIndex(TransactionRepository transactionRepository,
+                                     TransactionArchiveService archiveService,
+                                     PlatformTransactionManager transactionManager,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${app.stats.analytics-index.enabled:false}") boolean enabled) {
+        this.transactionRepository = transactionRepository;
+        this.archiveService = archiveService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+
+        Gauge.builder("stats.analytics.index.rows", this, index -> index.liveRows)
+                .description("Transactions présentes dans l'index analytique")
+                .register(meterRegistry);
+        Gauge.builder("stats.analytics.index.memory", this, TransactionAnalyticsIndex::memoryBytes)
+                .description("Mémoire occupée par les colonnes et les arbres de Fenwick")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("stats.analytics.index.memory.per.million", this, TransactionAnalyticsIndex::memoryBytesPerMillionRows)
+                .description("Mémoire de l'index rapportée à un million de transactions")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return vrai si l'index est activé et entièrement chargé
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            touchedWhileLoading = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        readOnlyTransaction.executeWithoutResult(status -> {
+            // Segments archivés d'abord (identifiants les plus anciens), chacun trié par id
+            for (ArchiveSegment segment : archiveService.findAllSegments()) {
+                List<TransactionRepository.AnalyticsFact> archived = new ArrayList<>((int) segment.getTransactionCount());
+                archiveService.read(segment, row -> archived.add(new ArchivedFact(row.getId(), row.getTransactionDate(),
+                        row.getStructureId(), row.getServiceId(), MinorUnits.of(row.getAmount()), row.getStatus())));
+                archived.sort(Comparator.comparingLong(TransactionRepository.AnalyticsFact::getId));
+                for (int from = 0; from < archived.size(); from += LOAD_CHUNK_SIZE) {
+                    loadChunk(archived.subList(from, Math.min(from + LOAD_CHUNK_SIZE, archived.size())));
+                }
+            }
+            try (Stream<TransactionRepository.AnalyticsFact> facts = transactionRepository.streamAnalyticsFacts()) {
+                List<TransactionRepository.AnalyticsFact> chunk = new ArrayList<>(LOAD_CHUNK_SIZE);
+                facts.forEach(fact -> {
+                    chunk.add(fact);
+                    if (chunk.size() == LOAD_CHUNK_SIZE) {
+                        loadChunk(chunk);
+                        chunk.clear();
+                    }
+                });
+                loadChunk(chunk);
+            }
+        });
+
+        lock.writeLock().lock();
+        try {
+            touchedWhileLoading = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Index analytique chargé : {} transactions en {} ms, {} octets",
+                liveRows, System.currentTimeMillis() - start, memoryBytes());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (TransactionChange change : event.changes()) {
+                TransactionSnapshot current = change.after() != null ? change.after() : change.before();
+                if (current == null || current.id() == null) {
+                    continue;
+                }
+                if (touchedWhileLoading != null) {
+                    touchedWhileLoading.add(current.id());
+                }
+                if (change.after() != null) {
+                    upsert(current.id(), current.transactionDate(), current.structureId(), current.serviceId(),
+                            current.amountMinor(), current.status());
+                } else {
+                    remove(current.id());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Nombre et montant (unités mineures) des transactions sur une plage de dates, bornes incluses.
+     * Une borne nulle n'est pas appliquée.
+     */
+    public RangeTotals totals(LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            return global.range(lowerDay(from), upperDay(to));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Nombre et montant (unités mineures) des transactions d'une structure sur une plage de dates.
+     */
+    public RangeTotals totalsForStructure(long structureId, LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            DayFenwick tree = structureId < byStructure.length ? byStructure[(int) structureId] : null;
+            return tree == null ? RangeTotals.EMPTY : tree.range(lowerDay(from), upperDay(to));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Parcourt, dans l'ordre chronologique, les jours de la plage ayant au moins une transaction.
+     */
+    public void forEachDay(LocalDate from, LocalDate to, DayVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            global.forEach(lowerDay(from), upperDay(to), visitor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Les {@code k} structures au plus fort chiffre d'affaires sur la plage, via un tas borné.
+     */
+    public List<StructureTotals> topStructures(int k, LocalDate from, LocalDate to) {
+        int lower = lowerDay(from);
+        int upper = upperDay(to);
+        List<StructureTotals> candidates = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int structureId = 0; structureId < byStructure.length; structureId++) {
+                DayFenwick tree = byStructure[structureId];
+                if (tree == null) {
+                    continue;
+                }
+                RangeTotals totals = tree.range(lower, upper);
+                if (totals.amountMinor() > 0) {
+                    candidates.add(new StructureTotals(structureId, totals.count(), totals.amountMinor()));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return TopKSelector.select(candidates, k, StructureTotals.BY_REVENUE_DESC);
+    }
+
+    long memoryBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = (long) ids.length * BYTES_PER_ROW + global.memoryBytes() + 4L * byStructure.length;
+            for (DayFenwick tree : byStructure) {
+                if (tree != null) {
+                    bytes += tree.memoryBytes();
+                }
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    double memoryBytesPerMillionRows() {
+        int rows = liveRows;
+        return rows == 0 ? 0 : memoryBytes() * 1_000_000d / rows;
+    }
+
+    private void loadChunk(List<TransactionRepository.AnalyticsFact> chunk) {
+        lock.writeLock().lock();
+        try {
+            for (TransactionRepository.AnalyticsFact fact : chunk) {
+                if (!touchedWhileLoading.contains(fact.getId())) {
+                    upsert(fact.getId(), fact.getDay(), fact.getStructureId(), fact.getServiceId(),
+                            fact.getAmountMinor() != null ? fact.getAmountMinor() : 0L, fact.getStatus());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Appelé sous verrou d'écriture. Idempotent : rejouer le même état ne change rien.
+    private void upsert(long id, LocalDate day, Long structureId, Long serviceId, long amountMinor, String status) {
+        if (day == null || structureId == null) {
+            return;
+        }
+        int row = Arrays.binarySearch(ids, 0, size, id);
+        if (row >= 0) {
+            contribute(row, -1);
+        } else {
+            row = insertRow(-(row + 1), id);
+        }
+        days[row] = (int) day.toEpochDay();
+        structureIds[row] = Math.toIntExact(structureId);
+        serviceIds[row] = serviceId != null ? Math.toIntExact(serviceId) : 0;
+        amounts[row] = amountMinor;
+        statuses[row] = statusCode(status);
+        contribute(row, 1);
+    }
+
+    private void remove(long id) {
+        int row = Arrays.binarySearch(ids, 0, size, id);
+        if (row >= 0) {
+            contribute(row, -1);
+            statuses[row] = STATUS_DELETED;
+        }
+    }
+
+    private void contribute(int row, int sign) {
+        if (statuses[row] == STATUS_DELETED) {
+            return;
+        }
+        liveRows += sign;
+        global.add(days[row], sign, sign * amounts[row]);
+        structureTree(structureIds[row]).add(days[row], sign, sign * amounts[row]);
+    }
+
+    private int insertRow(int position, long id) {
+        if (size == ids.length) {
+            int capacity = ids.length + (ids.length >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            days = Arrays.copyOf(days, capacity);
+            structureIds = Arrays.copyOf(structureIds, capacity);
+            serviceIds = Arrays.copyOf(serviceIds, capacity);
+            amounts = Arrays.copyOf(amounts, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+        }
+        // Les ids arrivent presque toujours en ordre croissant : le décalage ne touche que la fin
+        int tail = size - position;
+        if (tail > 0) {
+            System.arraycopy(ids, position, ids, position + 1, tail);
+            System.arraycopy(days, position, days, position + 1, tail);
+            System.arraycopy(structureIds, position, structureIds, position + 1, tail);
+            System.arraycopy(serviceIds, position, serviceIds, position + 1, tail);
+            System.arraycopy(amounts, position, amounts, position + 1, tail);
+            System.arraycopy(statuses, position, statuses, position + 1, tail);
+        }
+        ids[position] = id;
+        statuses[position] = STATUS_DELETED;
+        size++;
+        return position;
+    }
+
+    private DayFenwick structureTree(int structureId) {
+        if (structureId >= byStructure.length) {
+            byStructure = Arrays.copyOf(byStructure, Math.max(structureId + 1, byStructure.length * 2));
+        }
+        DayFenwick tree = byStructure[structureId];
+        if (tree == null) {
+            tree = new DayFenwick();
+            byStructure[structureId] = tree;
+        }
+        return tree;
+    }
+
+    static byte statusCode(String status) {
+        if (status == null) {
+            return STATUS_UNKNOWN;
+        }
+        return switch (status.toUpperCase(Locale.ROOT)) {
+            case "PENDING", "CREATED" -> STATUS_PENDING;
+            case "SUCCESS" -> STATUS_SUCCESS;
+            case "FAILED", "INSUFFICIENT_FUNDS" -> STATUS_FAILED;
+            case "CANCELLED" -> STATUS_CANCELLED;
+            case "TIMEOUT" -> STATUS_TIMEOUT;
+            default -> STATUS_UNKNOWN;
+        };
+    }
+
+    private static int lowerDay(LocalDate from) {
+        return from != null ? (int) from.toEpochDay() : Integer.MIN_VALUE;
+    }
+
+    private static int upperDay(LocalDate to) {
+        return to != null ? (int) to.toEpochDay() : Integer.MAX_VALUE;
+    }
+
+    public record RangeTotals(long count, long amountMinor) {
+        static final RangeTotals EMPTY = new RangeTotals(0, 0);
+    }
+
+    public record StructureTotals(long structureId, long count, long amountMinor) {
+        static final java.util.Comparator<StructureTotals> BY_REVENUE_DESC = (a, b) -> {
+            int byAmount = Long.compare(b.amountMinor, a.amountMinor);
+            return byAmount != 0 ? byAmount : Long.compare(a.structureId, b.structureId);
+        };
+    }
+
+    @FunctionalInterface
+    public interface DayVisitor {
+        void visit(int epochDay, long count, long amountMinor);
+    }
+
+    /**
+     * Arbre de Fenwick (comptage, somme) indexé par les jours distincts, triés.
+     * L'ajout d'un jour postérieur à tous les autres (cas courant) est en O(log n) ;
+     * un jour antérieur déclenche une reconstruction en O(n).
+     */
+    static final class DayFenwick {
+        private int[] dayKeys = new int[8];
+        private long[] dayCounts = new long[8];
+        private long[] daySums = new long[8];
+        private long[] countTree = new long[9];
+        private long[] sumTree = new long[9];
+        private int size;
+
+        void add(int day, long count, long amount) {
+            int index = Arrays.binarySearch(dayKeys, 0, size, day);
+            if (index >= 0) {
+                dayCounts[index] += count;
+                daySums[index] += amount;
+                for (int i = index + 1; i <= size; i += i & -i) {
+                    countTree[i] += count;
+                    sumTree[i] += amount;
+                }
+                return;
+            }
+            int position = -(index + 1);
+            ensureCapacity();
+            int tail = size - position;
+            if (tail > 0) {
+                System.arraycopy(dayKeys, position, dayKeys, position + 1, tail);
+                System.arraycopy(dayCounts, position, dayCounts, position + 1, tail);
+                System.arraycopy(daySums, position, daySums, position + 1, tail);
+            }
+            dayKeys[position] = day;
+            dayCounts[position] = count;
+            daySums[position] = amount;
+            size++;
+            if (tail == 0) {
+                // Nœud n = valeur + somme de ]n - lowbit(n), n - 1], déduite des préfixes existants
+                int n = size;
+                int from = n - (n & -n);
+                countTree[n] = count + prefixCount(n - 1) - prefixCount(from);
+                sumTree[n] = amount + prefixSum(n - 1) - prefixSum(from);
+            } else {
+                rebuild();
+            }
+        }
+
+        RangeTotals range(int fromDay, int toDay) {
+            if (size == 0 || fromDay > toDay) {
+                return RangeTotals.EMPTY;
+            }
+            int lo = lowerBound(fromDay);
+            int hi = upperBound(toDay);
+            if (hi <= lo) {
+                return RangeTotals.EMPTY;
+            }
+            return new RangeTotals(prefixCount(hi) - prefixCount(lo), prefixSum(hi) - prefixSum(lo));
+        }
+
+        void forEach(int fromDay, int toDay, DayVisitor visitor) {
+            for (int i = lowerBound(fromDay); i < size && dayKeys[i] <= toDay; i++) {
+                if (dayCounts[i] != 0 || daySums[i] != 0) {
+                    visitor.visit(dayKeys[i], dayCounts[i], daySums[i]);
+                }
+            }
+        }
+
+        long memoryBytes() {
+            return 4L * dayKeys.length + 8L * (dayCounts.length + daySums.length + countTree.length + sumTree.length);
+        }
+
+        private long prefixCount(int n) {
+            long total = 0;
+            for (int i = n; i > 0; i -= i & -i) {
+                total += countTree[i];
+            }
+            return total;
+        }
+
+        private long prefixSum(int n) {
+            long total = 0;
+            for (int i = n; i > 0; i -= i & -i) {
+                total += sumTree[i];
+            }
+            return total;
+        }
+
+        private int lowerBound(int day) {
+            int index = Arrays.binarySearch(dayKeys, 0, size, day);
+            return index >= 0 ? index : -(index + 1);
+        }
+
+        // Premier indice dont le jour est strictement postérieur à {@code day}
+        private int upperBound(int day) {
+            int index = Arrays.binarySearch(dayKeys, 0, size, day);
+            return index >= 0 ? index + 1 : -(index + 1);
+        }
+
+        private void ensureCapacity() {
+            if (size == dayKeys.length) {
+                int capacity = dayKeys.length * 2;
+                dayKeys = Arrays.copyOf(dayKeys, capacity);
+                dayCounts = Arrays.copyOf(dayCounts, capacity);
+                daySums = Arrays.copyOf(daySums, capacity);
+                countTree = Arrays.copyOf(countTree, capacity + 1);
+                sumTree = Arrays.copyOf(sumTree, capacity + 1);
+            }
+        }
+
+        private void rebuild() {
+            Arrays.fill(countTree, 0L);
+            Arrays.fill(sumTree, 0L);
+            for (int i = 1; i <= size; i++) {
+                countTree[i] += dayCounts[i - 1];
+                sumTree[i] += daySums[i - 1];
+                int parent = i + (i & -i);
+                if (parent <= size) {
+                    countTree[parent] += countTree[i];
+                    sumTree[parent] += sumTree[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Transaction relue depuis un segment d'archive
+     */
+    private record ArchivedFact(Long id, LocalDate day, Long structureId, Long serviceId, Long amountMinor, String status)
+            implements TransactionRepository.AnalyticsFact {
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public LocalDate getDay() {
+            return day;
+        }
+
+        @Override
+        public Long getStructureId() {
+            return structureId;
+        }
+
+        @Override
+        public Long getServiceId() {
+            return serviceId;
+        }
+
+        @Override
+        public Long getAmountMinor() {
+            return amountMinor;
+        }
+
+        @Override
+        public String getStatus() {
+            return status;
+        }
+    }
+}
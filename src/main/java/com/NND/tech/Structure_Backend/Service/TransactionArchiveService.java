@@ -0,0 +1,377 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.DTO.TransactionExportRow;
+import com.NND.tech.Structure_Backend.Repository.ArchiveSegmentRepository;
+import com.NND.tech.Structure_Backend.Repository.ArchiveSegmentSummaryRepository;
+import com.NND.tech.Structure_Backend.Repository.TransactionRepository;
+import com.NND.tech.Structure_Backend.model.entity.ArchiveSegment;
+import com.NND.tech.Structure_Backend.model.entity.ArchiveSegmentSummary;
+import com.NND.tech.Structure_Backend.model.entity.DailyRevenueRollup;
+import com.NND.tech.Structure_Backend.model.entity.Transaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archivage des mois froids : les transactions confirmées plus anciennes que l'horizon
+ * ({@code app.archive.retention-months}) sont déplacées de la table {@code transactions} vers des
+ * segments NDJSON compressés, en ajout seul, sur disque local. La table chaude reste petite.
+ * <p>
+ * Un segment couvre un seul mois ; il est écrit dans un fichier temporaire, synchronisé sur disque,
+ * renommé, puis enregistré avec ses agrégats dans la transaction même qui supprime les lignes
+ * archivées. Un échec annule la suppression et efface le fichier : une transaction est soit dans
+ * la table, soit dans un segment enregistré.
+ * <p>
+ * L'archivage ne publie aucun événement : les rollups gardent les mois archivés. Les lectures qui
+ * couvrent des mois archivés passent par les agrégats des segments (reconstruction des rollups) ou
+ * par les segments eux-mêmes (export, tendance horaire, index analytique).
+ */
+@Slf4j
+@Service
+public class TransactionArchiveService {
+
+    // Entités détachées par blocs pendant l'écriture d'un segment
+    private static final int CLEAR_INTERVAL = 1000;
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    private final TransactionRepository transactionRepository;
+    private final ArchiveSegmentRepository segmentRepository;
+    private final ArchiveSegmentSummaryRepository summaryRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate writeTransaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter rowWriter;
+    private final ObjectReader rowReader;
+    private final Path directory;
+    private final int retentionMonths;
+    private final int segmentMaxRows;
+    private final int maxSegmentsPerRun;
+
+    public TransactionArchiveService(TransactionRepository transactionRepository,
+                                     ArchiveSegmentRepository segmentRepository,
+                                     ArchiveSegmentSummaryRepository summaryRepository,
+                                     EntityManager entityManager,
+                                     PlatformTransactionManager transactionManager,
+                                     ObjectMapper objectMapper,
+                                     @Value("${app.archive.directory:archive}") Path directory,
+                                     @Value("${app.archive.retention-months:12}") int retentionMonths,
+                                     @Value("${app.archive.segment-max-rows:100000}") int segmentMaxRows,
+                                     @Value("${app.archive.max-segments-per-run:50}") int maxSegmentsPerRun) {
+        if (retentionMonths < 1 || segmentMaxRows < 1) {
+            throw new IllegalArgumentException("Horizon d'archivage ou taille de segment invalide");
+        }
+        this.transactionRepository = transactionRepository;
+        this.segmentRepository = segmentRepository;
+        this.summaryRepository = summaryRepository;
+        this.entityManager = entityManager;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.rowWriter = objectMapper.writerFor(TransactionExportRow.class);
+        this.rowReader = objectMapper.readerFor(TransactionExportRow.class);
+        this.directory = directory;
+        this.retentionMonths = retentionMonths;
+        this.segmentMaxRows = segmentMaxRows;
+        this.maxSegmentsPerRun = maxSegmentsPerRun;
+    }
+
+    /**
+     * @return le premier jour non archivable : les mois antérieurs sont froids
+     */
+    public LocalDate cutoff() {
+        return YearMonth.now().minusMonths(retentionMonths).atDay(1);
+    }
+
+    /**
+     * Archive les mois froids, du plus ancien au plus récent, dans la limite de
+     * {@code app.archive.max-segments-per-run} segments.
+     * @return le nombre de transactions archivées
+     */
+    @Scheduled(cron = "${app.archive.cron:0 30 3 * * *}")
+    public synchronized long archive() {
+        LocalDate cutoff = cutoff();
+        long archived = 0;
+        for (int segments = 0; segments < maxSegmentsPerRun; segments++) {
+            LocalDate oldest = readOnlyTransaction.execute(status -> transactionRepository.findOldestArchivableDate(cutoff));
+            if (oldest == null) {
+                break;
+            }
+            YearMonth month = YearMonth.from(oldest);
+            LocalDate to = month.plusMonths(1).atDay(1);
+            ArchiveSegment segment = writeSegment(month, to.isAfter(cutoff) ? cutoff : to);
+            archived += segment.getTransactionCount();
+        }
+        if (archived > 0) {
+            log.info("Archivage : {} transactions antérieures au {} déplacées vers {}", archived, cutoff, directory);
+        }
+        return archived;
+    }
+
+    /**
+     * Segments dont les dates recouvrent la plage (bornes optionnelles), du mois le plus récent au plus ancien
+     */
+    public List<ArchiveSegment> findSegments(LocalDate startDate, LocalDate endDate) {
+        LocalDate startMonth = startDate != null ? startDate.withDayOfMonth(1) : LocalDate.of(1970, 1, 1);
+        LocalDate endMonth = endDate != null ? endDate.withDayOfMonth(1) : LocalDate.of(9999, 12, 1);
+        return segmentRepository.findByMonthRange(startMonth, endMonth).stream()
+                .filter(segment -> (startDate == null || !segment.getLastDate().isBefore(startDate))
+                        && (endDate == null || !segment.getFirstDate().isAfter(endDate)))
+                .toList();
+    }
+
+    /**
+     * Tous les segments, par plus petit identifiant de transaction croissant
+     */
+    public List<ArchiveSegment> findAllSegments() {
+        return segmentRepository.findAllByOrderByMinIdAsc();
+    }
+
+    /**
+     * Relit un segment ligne à ligne, dans l'ordre d'écriture ({@code transaction_date, id} croissant)
+     * @throws UncheckedIOException si le fichier est absent ou illisible
+     */
+    public void read(ArchiveSegment segment, Consumer<TransactionExportRow> consumer) {
+        Path file = directory.resolve(segment.getFileName());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file), 64 * 1024), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                consumer.accept(rowReader.readValue(line));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lecture du segment d'archive " + file + " impossible", e);
+        }
+    }
+
+    /**
+     * Relit les transactions archivées d'une plage de dates (bornes incluses)
+     */
+    public void forEachArchived(LocalDate startDate, LocalDate endDate, Consumer<TransactionExportRow> consumer) {
+        for (ArchiveSegment segment : findSegments(startDate, endDate)) {
+            read(segment, row -> {
+                LocalDate day = row.getTransactionDate();
+                if (!day.isBefore(startDate) && !day.isAfter(endDate)) {
+                    consumer.accept(row);
+                }
+            });
+        }
+    }
+
+    /**
+     * Transaction archivée, cherchée dans les seuls segments dont la plage d'identifiants la contient
+     */
+    public Optional<TransactionExportRow> findArchived(long id) {
+        TransactionExportRow[] found = new TransactionExportRow[1];
+        for (ArchiveSegment segment : segmentRepository.findContainingId(id)) {
+            read(segment, row -> {
+                if (row.getId() == id) {
+                    found[0] = row;
+                }
+            });
+            if (found[0] != null) {
+                break;
+            }
+        }
+        return Optional.ofNullable(found[0]);
+    }
+
+    /**
+     * Références des transactions archivées dans les segments d'un mois ; vide si le mois n'a pas de segment
+     */
+    public Set<String> findArchivedReferences(YearMonth month) {
+        List<ArchiveSegment> segments = segmentRepository.findByMonthRange(month.atDay(1), month.atDay(1));
+        if (segments.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> references = new HashSet<>();
+        for (ArchiveSegment segment : segments) {
+            read(segment, row -> references.add(row.getReference()));
+        }
+        return references;
+    }
+
+    private ArchiveSegment writeSegment(YearMonth month, LocalDate to) {
+        Path file;
+        try {
+            Files.createDirectories(directory);
+            file = directory.resolve("transactions-" + month + "-" + System.currentTimeMillis() + ".ndjson.gz");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Répertoire d'archive " + directory + " inaccessible", e);
+        }
+        try {
+            return writeTransaction.execute(status -> {
+                SegmentContent content = writeFile(file, month.atDay(1), to);
+                ArchiveSegment segment = segmentRepository.save(content.toSegment(month, file));
+                List<ArchiveSegmentSummary> summaries = new ArrayList<>(content.summaries.size());
+                content.summaries.forEach((key, totals) -> summaries.add(new ArchiveSegmentSummary(null, segment.getId(),
+                        key.structureId(), key.serviceId(), key.day(), key.status(), totals[0], totals[1])));
+                summaryRepository.saveAll(summaries);
+
+                int deleted = 0;
+                for (int from = 0; from < content.ids.size(); from += DELETE_BATCH_SIZE) {
+                    deleted += transactionRepository.deleteArchived(
+                            content.ids.subList(from, Math.min(from + DELETE_BATCH_SIZE, content.ids.size())));
+                }
+                if (deleted != content.ids.size()) {
+                    // Une transaction a changé pendant l'écriture : le segment sera refait au prochain passage
+                    throw new IllegalStateException("Segment " + file.getFileName() + " : " + deleted
+                            + " lignes supprimées sur " + content.ids.size());
+                }
+                return segment;
+            });
+        } catch (RuntimeException e) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    // Appelé dans la transaction d'écriture du segment
+    private SegmentContent writeFile(Path file, LocalDate from, LocalDate to) {
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        SegmentContent content = new SegmentContent();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                OutputStream out = new DigestOutputStream(Channels.newOutputStream(channel), digest);
+                GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024);
+                Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), 64 * 1024);
+                try (Stream<Transaction> transactions = transactionRepository.streamArchivable(from, to, segmentMaxRows)) {
+                    var iterator = transactions.iterator();
+                    while (iterator.hasNext()) {
+                        Transaction tx = iterator.next();
+                        TransactionExportRow row = toRow(tx);
+                        writer.write(rowWriter.writeValueAsString(row));
+                        writer.write('\n');
+                        content.add(row);
+                        if (content.ids.size() % CLEAR_INTERVAL == 0) {
+                            entityManager.clear();
+                        }
+                    }
+                }
+                writer.flush();
+                gzip.finish();
+                out.flush();
+                channel.force(true);
+            }
+            content.sizeBytes = Files.size(partial);
+            content.sha256 = HexFormat.of().formatHex(digest.digest());
+            Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE);
+            return content;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Écriture du segment d'archive " + file + " impossible", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException e) {
+                log.warn("Fichier temporaire d'archive {} non supprimé", partial, e);
+            }
+        }
+    }
+
+    private static TransactionExportRow toRow(Transaction tx) {
+        return TransactionExportRow.builder()
+                .id(tx.getId())
+                .reference(tx.getReference())
+                .orderId(tx.getOrderId())
+                .amount(tx.getAmount())
+                .transactionDate(tx.getTransactionDate())
+                .createdAt(tx.getCreatedAt())
+                .status(tx.getStatus())
+                .description(tx.getDescription())
+                .serviceId(tx.getService().getId())
+                .structureId(tx.getStructure().getId())
+                .confirmed(tx.isConfirmed())
+                .confirmationDate(tx.getConfirmationDate())
+                .build();
+    }
+
+    /**
+     * Contenu d'un segment en cours d'écriture : identifiants archivés et agrégats par clé de rollup
+     */
+    private static final class SegmentContent {
+        private final List<Long> ids = new ArrayList<>();
+        private final Map<SummaryKey, long[]> summaries = new LinkedHashMap<>();
+        private long amountMinor;
+        private LocalDate firstDate;
+        private LocalDate lastDate;
+        private long minId = Long.MAX_VALUE;
+        private long maxId = Long.MIN_VALUE;
+        private long sizeBytes;
+        private String sha256;
+
+        void add(TransactionExportRow row) {
+            long amount = MinorUnits.of(row.getAmount());
+            ids.add(row.getId());
+            amountMinor += amount;
+            if (firstDate == null) {
+                firstDate = row.getTransactionDate();
+            }
+            lastDate = row.getTransactionDate();
+            minId = Math.min(minId, row.getId());
+            maxId = Math.max(maxId, row.getId());
+            SummaryKey key = new SummaryKey(row.getStructureId(), row.getServiceId(), row.getTransactionDate(),
+                    row.getStatus() != null ? row.getStatus() : DailyRevenueRollup.NO_STATUS);
+            long[] totals = summaries.computeIfAbsent(key, k -> new long[2]);
+            totals[0]++;
+            totals[1] += amount;
+        }
+
+        ArchiveSegment toSegment(YearMonth month, Path file) {
+            if (ids.isEmpty()) {
+                throw new IllegalStateException("Segment vide pour " + month);
+            }
+            return new ArchiveSegment(null, month.atDay(1), file.getFileName().toString(), ids.size(), amountMinor,
+                    firstDate, lastDate, minId, maxId, sizeBytes, sha256, LocalDateTime.now());
+        }
+    }
+
+    private record SummaryKey(Long structureId, Long serviceId, LocalDate day, String status) {
+    }
+}
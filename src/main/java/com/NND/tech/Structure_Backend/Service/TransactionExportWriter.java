@@ -0,0 +1,83 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.DTO.TransactionExportRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Écriture ligne à ligne d'un export de transactions en CSV (avec en-tête) ou en NDJSON.
+ * Rien n'est conservé entre deux lignes : la mémoire utilisée ne dépend pas du volume exporté.
+ */
+final class TransactionExportWriter {
+
+    private static final String CSV_HEADER = "id,reference,orderId,amount,transactionDate,createdAt,status,"
+            + "description,serviceId,structureId,confirmed,confirmationDate";
+
+    private final Writer writer;
+    private final DataFormat format;
+    private final ObjectWriter jsonWriter;
+
+    TransactionExportWriter(OutputStream out, DataFormat format, ObjectMapper objectMapper) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        this.format = format;
+        this.jsonWriter = objectMapper.writerFor(TransactionExportRow.class);
+        if (format == DataFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+    }
+
+    void write(TransactionExportRow row) throws IOException {
+        if (format == DataFormat.NDJSON) {
+            writer.write(jsonWriter.writeValueAsString(row));
+        } else {
+            cell(row.getId(), false);
+            cell(row.getReference(), true);
+            cell(row.getOrderId(), true);
+            cell(row.getAmount() != null ? row.getAmount().toPlainString() : null, true);
+            cell(row.getTransactionDate(), true);
+            cell(row.getCreatedAt(), true);
+            cell(row.getStatus(), true);
+            cell(row.getDescription(), true);
+            cell(row.getServiceId(), true);
+            cell(row.getStructureId(), true);
+            cell(row.isConfirmed(), true);
+            cell(row.getConfirmationDate(), true);
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Vide le tampon sans fermer le flux sous-jacent
+     */
+    void flush() throws IOException {
+        writer.flush();
+    }
+
+    private void cell(Object value, boolean separator) throws IOException {
+        if (separator) {
+            writer.write(',');
+        }
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        boolean quote = text.indexOf(',') >= 0 || text.indexOf('"') >= 0
+                || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(text);
+            return;
+        }
+        // Les sauts de ligne deviennent des espaces : une ligne CSV par transaction
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\"").replace('\n', ' ').replace('\r', ' '));
+        writer.write('"');
+    }
+}
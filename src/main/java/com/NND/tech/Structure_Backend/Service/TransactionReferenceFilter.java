@@ -0,0 +1,184 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.Repository.TransactionRepository;
+import com.NND.tech.Structure_Backend.event.TransactionChange;
+import com.NND.tech.Structure_Backend.event.TransactionChangedEvent;
+import com.NND.tech.Structure_Backend.event.TransactionSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Filtre d'appartenance en mémoire des références et orderId connus, consulté par le webhook
+ * CamPost avant tout accès base : une notification pour une référence inconnue est écartée
+ * sans aller-retour SQL.
+ * <p>
+ * Le filtre est chargé au démarrage puis alimenté à chaque écriture, dans la transaction même
+ * (un ajout anticipé ne fait qu'ajouter un faux positif, jamais un faux négatif). Tant qu'il
+ * n'est pas chargé, toute référence est considérée comme connue. Il est reconstruit
+ * périodiquement pour rester sous sa capacité et oublier les transactions supprimées ; les clés
+ * des dernières minutes, dont la transaction n'était peut-être pas encore visible par la lecture,
+ * sont rejouées dans le nouveau filtre.
+ */
+@Slf4j
+@Component
+public class TransactionReferenceFilter {
+
+    // Plus long que toute transaction d'écriture
+    private static final long RECENT_KEYS_WINDOW_MS = Duration.ofMinutes(15).toMillis();
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long minimumCapacity;
+    private final long maximumCapacity;
+    private final double falsePositiveRate;
+
+    private final Counter rejections;
+
+    private volatile BloomFilter filter;
+    private final AtomicLong insertions = new AtomicLong();
+    private volatile boolean ready;
+
+    // Clés mémorisées récemment (protégées par this), rejouées à chaque reconstruction
+    private final Deque<RecentKey> recentKeys = new ArrayDeque<>();
+
+    public TransactionReferenceFilter(TransactionRepository transactionRepository,
+                                      PlatformTransactionManager transactionManager,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${app.payments.reference-filter.capacity:1000000}") long minimumCapacity,
+                                      @Value("${app.payments.reference-filter.max-capacity:200000000}") long maximumCapacity,
+                                      @Value("${app.payments.reference-filter.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.transactionRepository = transactionRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.minimumCapacity = minimumCapacity;
+        this.maximumCapacity = Math.max(minimumCapacity, maximumCapacity);
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(minimumCapacity, falsePositiveRate);
+
+        Gauge.builder("payments.reference.filter.insertions", insertions, AtomicLong::get)
+                .description("Clés (références et orderId) insérées dans le filtre depuis sa construction")
+                .register(meterRegistry);
+        Gauge.builder("payments.reference.filter.memory", this, f -> f.filter.sizeInBytes())
+                .description("Mémoire occupée par le filtre des références")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("payments.reference.filter.rejections")
+                .description("Notifications écartées sans accès base (référence et orderId inconnus)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param reference référence du fournisseur (optionnelle)
+     * @param orderId identifiant de commande (optionnel)
+     * @return faux seulement si aucune transaction n'a jamais porté cette référence ni cet orderId
+     */
+    public boolean mightExist(String reference, String orderId) {
+        if (!ready) {
+            return true;
+        }
+        BloomFilter current = filter;
+        boolean known = (isPresent(reference) && current.mightContain(reference))
+                || (isPresent(orderId) && current.mightContain(orderId));
+        if (!known) {
+            rejections.increment();
+        }
+        return known;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+        ready = true;
+    }
+
+    /**
+     * Reconstruit le filtre à partir de la table, dimensionné pour deux fois le nombre de clés actuel.
+     */
+    @Scheduled(fixedDelayString = "${app.payments.reference-filter.rebuild-interval:PT24H}",
+               initialDelayString = "${app.payments.reference-filter.rebuild-interval:PT24H}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        // Deux clés (référence, orderId) par transaction, avec une marge de 100 %
+        long capacity = Math.max(minimumCapacity, 4 * transactionRepository.count());
+        if (capacity > maximumCapacity) {
+            // Mémoire bornée : le filtre reste exact pour les clés connues, seuls les faux positifs augmentent
+            log.warn("Filtre des références plafonné à {} clés ({} demandées) : taux de faux positifs supérieur à {}",
+                    maximumCapacity, capacity, falsePositiveRate);
+            capacity = maximumCapacity;
+        }
+        BloomFilter next = new BloomFilter(capacity, falsePositiveRate);
+        AtomicLong loaded = new AtomicLong();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<TransactionRepository.ReferenceKey> keys = transactionRepository.streamReferenceKeys()) {
+                keys.forEach(key -> loaded.addAndGet(add(next, key.getReference()) + add(next, key.getOrderId())));
+            }
+        });
+        synchronized (this) {
+            pruneRecentKeys(System.currentTimeMillis());
+            recentKeys.forEach(recent -> next.add(recent.key()));
+            filter = next;
+            insertions.set(loaded.get() + recentKeys.size());
+        }
+        log.info("Filtre des références chargé : {} clés, capacité {}, {} octets en {} ms",
+                loaded.get(), capacity, next.sizeInBytes(), System.currentTimeMillis() - start);
+    }
+
+    // Synchrone, dans la transaction d'écriture : la référence est connue avant même le commit
+    @EventListener
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        for (TransactionChange change : event.changes()) {
+            TransactionSnapshot after = change.after();
+            if (after != null) {
+                remember(after.reference());
+                remember(after.orderId());
+            }
+        }
+    }
+
+    private synchronized void remember(String key) {
+        if (!isPresent(key)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        filter.add(key);
+        insertions.incrementAndGet();
+        recentKeys.addLast(new RecentKey(now, key));
+        pruneRecentKeys(now);
+    }
+
+    private void pruneRecentKeys(long now) {
+        while (!recentKeys.isEmpty() && recentKeys.peekFirst().at() < now - RECENT_KEYS_WINDOW_MS) {
+            recentKeys.removeFirst();
+        }
+    }
+
+    private static int add(BloomFilter target, String key) {
+        if (!isPresent(key)) {
+            return 0;
+        }
+        target.add(key);
+        return 1;
+    }
+
+    private static boolean isPresent(String key) {
+        return key != null && !key.isBlank();
+    }
+
+    private record RecentKey(long at, String key) {
+    }
+}
@@ -1,21 +1,76 @@
 package com.NND.tech.Structure_Backend.Service;
 
 import com.NND.tech.Structure_Backend.DTO.TransactionDto;
+import com.NND.tech.Structure_Backend.DTO.TransactionExportRow;
+import com.NND.tech.Structure_Backend.DTO.TransactionPageDto;
+import com.NND.tech.Structure_Backend.DTO.TransactionSearchRequest;
 import com.NND.tech.Structure_Backend.Exception.ResourceNotFoundException;
+import com.NND.tech.Structure_Backend.event.TransactionEventPublisher;
+import com.NND.tech.Structure_Backend.event.TransactionSnapshot;
 import com.NND.tech.Structure_Backend.mapper.TransactionMapper;
+import com.NND.tech.Structure_Backend.model.entity.ArchiveSegment;
 import com.NND.tech.Structure_Backend.model.entity.Transaction;
 import com.NND.tech.Structure_Backend.Repository.TransactionRepository;
+import com.NND.tech.Structure_Backend.Repository.TransactionRepositoryCustom.SearchFilter;
+import com.NND.tech.Structure_Backend.Repository.TransactionRepositoryCustom.SeekPosition;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface TransactionService {
-    List<TransactionDto> findAll();
+    int DEFAULT_PAGE_SIZE = 50;
+    int MAX_PAGE_SIZE = 500;
+
+    /**
+     * Recherche filtrée, paginée par curseur (du plus récent au plus ancien). Les mois archivés de la
+     * plage sont relus dans leurs segments et fusionnés à la page (lignes marquées {@code archived}) ;
+     * une page qui les atteint relit les segments de ses mois.
+     */
+    TransactionPageDto search(TransactionSearchRequest request);
+
+    /**
+     * Exporte en flux les transactions filtrées (taille et curseur ignorés), sans les charger en mémoire.
+     * Les transactions de la table viennent d'abord, de la plus récente à la plus ancienne ; suivent
+     * celles des mois archivés de la plage, segment par segment du mois le plus récent au plus ancien,
+     * chaque segment dans son ordre d'écriture (date croissante) : un segment compressé ne se relit
+     * qu'à partir du début. L'ordre global n'est donc pas strictement décroissant.
+     * @return le nombre de transactions exportées
+     */
+    long export(TransactionSearchRequest request, DataFormat format, OutputStream out) throws IOException;
+
+    /**
+     * Transaction de la table, sinon relue dans le segment d'archive qui couvre son identifiant
+     */
     TransactionDto findById(Long id);
-    List<TransactionDto> findByStructureId(Long structureId);
+    /**
+     * @throws ResponseStatusException 409 si la référence est déjà portée par une autre transaction
+     *         (ou toute autre violation de contrainte)
+     */
     TransactionDto create(TransactionDto transactionDto);
+
+    /**
+     * @throws ResponseStatusException 409 si la nouvelle référence est déjà portée par une autre transaction
+     */
     TransactionDto update(Long id, TransactionDto transactionDto);
     void delete(Long id);
 }
@@ -24,38 +79,112 @@ public interface TransactionService {
 @RequiredArgsConstructor
 class TransactionServiceImpl implements TransactionService {
 
+    // Entités détachées par blocs pendant un export : le contexte de persistance reste borné
+    private static final int EXPORT_CLEAR_INTERVAL = 1000;
+    // Ordre des pages : date puis identifiant décroissants
+    private static final Comparator<PageEntry> NEWEST_FIRST = Comparator
+            .comparing(PageEntry::day, Comparator.reverseOrder())
+            .thenComparing(PageEntry::id, Comparator.reverseOrder());
+    private static final Comparator<TransactionExportRow> NEWEST_ROW_FIRST = Comparator
+            .comparing(TransactionExportRow::getTransactionDate, Comparator.reverseOrder())
+            .thenComparing(TransactionExportRow::getId, Comparator.reverseOrder());
+
     private final TransactionRepository transactionRepository;
     private final TransactionMapper transactionMapper;
+    private final TransactionEventPublisher transactionEventPublisher;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionArchiveService archiveService;
 
     @Override
     @Transactional(readOnly = true)
-    public List<TransactionDto> findAll() {
-        return transactionRepository.findAll().stream()
-                .map(transactionMapper::toDto)
-                .collect(java.util.stream.Collectors.toList());
+    public TransactionPageDto search(TransactionSearchRequest request) {
+        int size = request.getSize() == null ? DEFAULT_PAGE_SIZE : request.getSize();
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("La taille de page doit être comprise entre 1 et " + MAX_PAGE_SIZE);
+        }
+        SearchFilter filter = toFilter(request);
+        SeekPosition cursor = decodeCursor(request.getCursor());
+        // Une ligne de plus que la page pour savoir s'il en reste
+        List<Transaction> rows = transactionRepository.search(filter, cursor, size + 1);
+        List<PageEntry> entries = new ArrayList<>(2 * (size + 1));
+        Set<Long> ids = new HashSet<>();
+        for (Transaction tx : rows) {
+            entries.add(new PageEntry(tx.getTransactionDate(), tx.getId(), transactionMapper.toDto(tx)));
+            ids.add(tx.getId());
+        }
+        // Table pleine : les lignes archivées plus anciennes que sa dernière ligne ne peuvent pas entrer dans la page
+        LocalDate floor = rows.size() > size ? rows.get(size).getTransactionDate() : null;
+        for (TransactionExportRow row : findArchived(filter, cursor, floor, size + 1)) {
+            if (!ids.contains(row.getId())) {
+                entries.add(new PageEntry(row.getTransactionDate(), row.getId(), transactionMapper.toDto(row)));
+            }
+        }
+        entries.sort(NEWEST_FIRST);
+        boolean hasMore = entries.size() > size;
+        List<PageEntry> page = hasMore ? entries.subList(0, size) : entries;
+
+        return TransactionPageDto.builder()
+                .items(page.stream().map(PageEntry::dto).toList())
+                .size(page.size())
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? encodeCursor(page.get(page.size() - 1)) : null)
+                .build();
     }
 
     @Override
     @Transactional(readOnly = true)
-    public TransactionDto findById(Long id) {
-        return transactionRepository.findById(id)
-                .map(transactionMapper::toDto)
-                .orElseThrow(() -> new ResourceNotFoundException("Transaction non trouvée avec l'ID : " + id));
+    public long export(TransactionSearchRequest request, DataFormat format, OutputStream out) throws IOException {
+        SearchFilter filter = toFilter(request);
+        TransactionExportWriter writer = new TransactionExportWriter(out, format, objectMapper);
+        long count = 0;
+        try (Stream<Transaction> transactions = transactionRepository.stream(filter)) {
+            Iterator<Transaction> iterator = transactions.iterator();
+            while (iterator.hasNext()) {
+                writer.write(toExportRow(iterator.next()));
+                if (++count % EXPORT_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+
+        // Mois archivés : même instantané de lecture, aucune ligne n'est à la fois en table et en segment
+        long[] archived = {0};
+        try {
+            for (ArchiveSegment segment : archiveService.findSegments(filter.startDate(), filter.endDate())) {
+                archiveService.read(segment, row -> {
+                    if (matches(filter, row)) {
+                        try {
+                            writer.write(row);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        archived[0]++;
+                    }
+                });
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        return count + archived[0];
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<TransactionDto> findByStructureId(Long structureId) {
-        return transactionRepository.findByStructureId(structureId).stream()
+    public TransactionDto findById(Long id) {
+        return transactionRepository.findById(id)
                 .map(transactionMapper::toDto)
-                .collect(java.util.stream.Collectors.toList());
+                .or(() -> archiveService.findArchived(id).map(transactionMapper::toDto))
+                .orElseThrow(() -> new ResourceNotFoundException("Transaction non trouvée avec l'ID : " + id));
     }
 
     @Override
     @Transactional
     public TransactionDto create(TransactionDto transactionDto) {
         Transaction transaction = transactionMapper.toEntity(transactionDto);
-        Transaction savedTransaction = transactionRepository.save(transaction);
+        Transaction savedTransaction = saveAndFlush(transaction);
+        transactionEventPublisher.created(savedTransaction);
         return transactionMapper.toDto(savedTransaction);
     }
 
@@ -65,17 +194,138 @@ class TransactionServiceImpl implements TransactionService {
         Transaction existingTransaction = transactionRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Transaction non trouvée avec l'ID : " + id));
         
+        TransactionSnapshot before = TransactionSnapshot.of(existingTransaction);
         transactionMapper.updateFromDto(transactionDto, existingTransaction);
-        Transaction updatedTransaction = transactionRepository.save(existingTransaction);
+        Transaction updatedTransaction = saveAndFlush(existingTransaction);
+        transactionEventPublisher.updated(before, updatedTransaction);
         return transactionMapper.toDto(updatedTransaction);
     }
 
     @Override
     @Transactional
     public void delete(Long id) {
-        if (!transactionRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Transaction non trouvée avec l'ID : " + id);
+        Transaction transaction = transactionRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Transaction non trouvée avec l'ID : " + id));
+        TransactionSnapshot before = TransactionSnapshot.of(transaction);
+        transactionRepository.delete(transaction);
+        transactionEventPublisher.deleted(before);
+    }
+
+    // Écriture immédiate : une violation de contrainte (uk_transactions_reference) remonte ici, pas au commit
+    private Transaction saveAndFlush(Transaction transaction) {
+        try {
+            return transactionRepository.saveAndFlush(transaction);
+        } catch (DataIntegrityViolationException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Transaction en conflit avec les données existantes (référence déjà utilisée : "
+                            + transaction.getReference() + " ?)", e);
         }
-        transactionRepository.deleteById(id);
+    }
+
+    private static SearchFilter toFilter(TransactionSearchRequest request) {
+        if (request.getStartDate() != null && request.getEndDate() != null
+                && request.getStartDate().isAfter(request.getEndDate())) {
+            throw new IllegalArgumentException("La date de début doit être antérieure à la date de fin");
+        }
+        return new SearchFilter(
+                request.getStructureId(),
+                request.getServiceId(),
+                request.getStatuses(),
+                request.getStartDate(),
+                request.getEndDate(),
+                request.getMinAmount(),
+                request.getMaxAmount());
+    }
+
+    /**
+     * Lignes archivées de la plage avant le curseur, au plus {@code limit}, de la plus récente à la plus ancienne.
+     * Les segments sont parcourus du mois le plus récent au plus ancien ; un segment entièrement plus ancien
+     * que les {@code limit} lignes déjà retenues n'est pas relu.
+     */
+    private List<TransactionExportRow> findArchived(SearchFilter filter, SeekPosition cursor, LocalDate floor, int limit) {
+        LocalDate start = floor != null && (filter.startDate() == null || floor.isAfter(filter.startDate()))
+                ? floor : filter.startDate();
+        LocalDate end = cursor != null && (filter.endDate() == null || cursor.transactionDate().isBefore(filter.endDate()))
+                ? cursor.transactionDate() : filter.endDate();
+        if (start != null && end != null && start.isAfter(end)) {
+            return List.of();
+        }
+        List<TransactionExportRow> found = new ArrayList<>();
+        for (ArchiveSegment segment : archiveService.findSegments(start, end)) {
+            if (found.size() >= limit && segment.getLastDate().isBefore(found.get(limit - 1).getTransactionDate())) {
+                continue;
+            }
+            archiveService.read(segment, row -> {
+                if (matches(filter, row) && isBefore(row, cursor)) {
+                    found.add(row);
+                }
+            });
+            found.sort(NEWEST_ROW_FIRST);
+            if (found.size() > limit) {
+                found.subList(limit, found.size()).clear();
+            }
+        }
+        return found;
+    }
+
+    private static boolean isBefore(TransactionExportRow row, SeekPosition cursor) {
+        if (cursor == null) {
+            return true;
+        }
+        int byDate = row.getTransactionDate().compareTo(cursor.transactionDate());
+        return byDate < 0 || (byDate == 0 && row.getId() < cursor.id());
+    }
+
+    private static boolean matches(SearchFilter filter, TransactionExportRow row) {
+        return (filter.structureId() == null || filter.structureId().equals(row.getStructureId()))
+                && (filter.serviceId() == null || filter.serviceId().equals(row.getServiceId()))
+                && (filter.statuses() == null || filter.statuses().isEmpty() || filter.statuses().contains(row.getStatus()))
+                && (filter.startDate() == null || !row.getTransactionDate().isBefore(filter.startDate()))
+                && (filter.endDate() == null || !row.getTransactionDate().isAfter(filter.endDate()))
+                && (filter.minAmount() == null || row.getAmount().compareTo(filter.minAmount()) >= 0)
+                && (filter.maxAmount() == null || row.getAmount().compareTo(filter.maxAmount()) <= 0);
+    }
+
+    // Identifiants lus sur les proxys des associations, sans les charger
+    private static TransactionExportRow toExportRow(Transaction tx) {
+        return TransactionExportRow.builder()
+                .id(tx.getId())
+                .reference(tx.getReference())
+                .orderId(tx.getOrderId())
+                .amount(tx.getAmount())
+                .transactionDate(tx.getTransactionDate())
+                .createdAt(tx.getCreatedAt())
+                .status(tx.getStatus())
+                .description(tx.getDescription())
+                .serviceId(tx.getService() != null ? tx.getService().getId() : null)
+                .structureId(tx.getStructure() != null ? tx.getStructure().getId() : null)
+                .confirmed(tx.isConfirmed())
+                .confirmationDate(tx.getConfirmationDate())
+                .build();
+    }
+
+    // Curseur opaque : "date|id" de la dernière ligne lue, encodé en Base64 URL
+    private static String encodeCursor(PageEntry last) {
+        String key = last.day() + "|" + last.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static SeekPosition decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.indexOf('|');
+            return new SeekPosition(
+                    LocalDate.parse(key.substring(0, separator)),
+                    Long.parseLong(key.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide");
+        }
+    }
+
+    // Ligne de page avec sa clé de tri, lue sur la source : le mapper ne renseigne pas la date du DTO
+    private record PageEntry(LocalDate day, Long id, TransactionDto dto) {
     }
 }
@@ -0,0 +1,205 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.Repository.TransactionRepository;
+import com.NND.tech.Structure_Backend.Repository.TransactionRepository.StatusRow;
+import com.NND.tech.Structure_Backend.event.TransactionChange;
+import com.NND.tech.Structure_Backend.event.TransactionEventPublisher;
+import com.NND.tech.Structure_Backend.event.TransactionSnapshot;
+import com.NND.tech.Structure_Backend.model.entity.Transaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Machine à états du statut des transactions de paiement, partagée par le webhook CamPost et le polling.
+ * <p>
+ * PENDING (ou nul) → CREATED → TIMEOUT, et tout statut non final → statut final (SUCCESS ou FAILED).
+ * Un statut final ne change plus : un TIMEOUT tardif ne peut pas écraser un SUCCESS, alors qu'un
+ * SUCCESS reçu après le TIMEOUT l'emporte. Les statuts CamPost passent par {@link #normalize} quelle
+ * que soit leur source (webhook ou polling) ; un statut inconnu n'est jamais enregistré et une ligne
+ * portant un statut inconnu reste ouverte.
+ * <p>
+ * Chaque transition est une mise à jour conditionnelle sur le statut lu juste avant, dans une
+ * transaction courte : aucun verrou n'est pris pendant les appels au fournisseur, et une écriture
+ * concurrente fait échouer la mise à jour au lieu d'être écrasée. La transition est alors réévaluée
+ * sur le nouveau statut.
+ */
+@Service
+public class TransactionStatusService {
+
+    public static final String PENDING = "PENDING";
+    public static final String CREATED = "CREATED";
+    public static final String TIMEOUT = "TIMEOUT";
+    public static final String SUCCESS = "SUCCESS";
+    public static final String FAILED = "FAILED";
+
+    private static final Set<String> FINAL_STATUSES = Set.of(SUCCESS, FAILED);
+
+    // Chaque conflit fait avancer le statut, au plus PENDING → CREATED → TIMEOUT → final
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionEventPublisher transactionEventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter applied;
+    private final Counter rejected;
+    private final Counter conflicts;
+
+    public TransactionStatusService(TransactionRepository transactionRepository,
+                                    TransactionEventPublisher transactionEventPublisher,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry) {
+        this.transactionRepository = transactionRepository;
+        this.transactionEventPublisher = transactionEventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.applied = transitionCounter(meterRegistry, "applied");
+        this.rejected = transitionCounter(meterRegistry, "rejected");
+        this.conflicts = transitionCounter(meterRegistry, "conflict");
+    }
+
+    private static Counter transitionCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("payments.status.transitions")
+                .description("Transitions de statut demandées, par issue")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Applique un statut à une transaction si la machine à états l'autorise depuis son statut courant.
+     * À appeler hors transaction : chaque tentative ouvre la sienne pour relire un statut à jour.
+     * @param id identifiant de la transaction
+     * @param target statut demandé (casse indifférente)
+     * @return le statut en base à l'issue de l'appel (celui demandé s'il a été appliqué),
+     * ou vide si la transaction n'existe pas
+     */
+    public Optional<String> transition(Long id, String target) {
+        String status = normalize(target);
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            Attempt result = transactionTemplate.execute(tx -> attempt(id, status));
+            if (result != null) {
+                return result.exists() ? Optional.ofNullable(result.status()) : Optional.empty();
+            }
+            conflicts.increment();
+        }
+        throw new IllegalStateException("Statut de la transaction " + id + " modifié en continu, transition vers "
+                + status + " abandonnée");
+    }
+
+    /**
+     * Applique un lot de statuts en une transaction : les lignes sont verrouillées en une requête, les
+     * mises à jour partent en lot JDBC au commit et un seul événement porte toutes les transitions.
+     * Le verrou remplace la mise à jour conditionnelle : aucun appel externe n'a lieu pendant le lot.
+     * @param targets statut demandé par identifiant de transaction
+     * @return le statut en base à l'issue de l'appel, pour les transactions existantes
+     */
+    public Map<Long, String> transitionAll(Map<Long, String> targets) {
+        if (targets.isEmpty()) {
+            return Map.of();
+        }
+        return transactionTemplate.execute(status -> {
+            Map<Long, String> stored = new HashMap<>();
+            List<TransactionChange> changes = new ArrayList<>();
+            for (Transaction tx : transactionRepository.lockAllById(targets.keySet())) {
+                String target = normalize(targets.get(tx.getId()));
+                if (!isAllowed(tx.getStatus(), target)) {
+                    rejected.increment();
+                    stored.put(tx.getId(), tx.getStatus());
+                    continue;
+                }
+                TransactionSnapshot before = TransactionSnapshot.of(tx);
+                boolean success = SUCCESS.equals(target);
+                tx.setStatus(target);
+                tx.setConfirmed(success);
+                tx.setConfirmationDate(success ? LocalDate.now() : null);
+                changes.add(new TransactionChange(before, TransactionSnapshot.of(tx)));
+                applied.increment();
+                stored.put(tx.getId(), target);
+            }
+            transactionEventPublisher.publish(changes);
+            return stored;
+        });
+    }
+
+    // Rend null si une écriture concurrente a modifié le statut depuis la lecture
+    private Attempt attempt(Long id, String target) {
+        Optional<StatusRow> row = transactionRepository.findStatusById(id);
+        if (row.isEmpty()) {
+            return new Attempt(false, null);
+        }
+        String current = row.get().getStatus();
+        if (!isAllowed(current, target)) {
+            rejected.increment();
+            return new Attempt(true, current);
+        }
+        boolean success = SUCCESS.equals(target);
+        int updated = transactionRepository.compareAndSetStatus(id, current == null ? "" : current, target,
+                success, success ? LocalDate.now() : null);
+        if (updated == 0) {
+            return null;
+        }
+        // Contexte vidé par la mise à jour : relecture de la ligne, verrouillée jusqu'au commit
+        Transaction tx = transactionRepository.findById(id).orElseThrow();
+        transactionEventPublisher.updated(TransactionSnapshot.of(tx).withStatus(current), tx);
+        applied.increment();
+        return new Attempt(true, target);
+    }
+
+    /**
+     * Statut CamPost ramené à un statut de la machine à états : CANCELLED devient FAILED
+     * @param status statut reçu (casse indifférente, éventuellement nul)
+     * @return le statut interne, ou null si le statut est absent ou inconnu
+     */
+    public static String normalize(String status) {
+        if (status == null) {
+            return null;
+        }
+        return switch (status.trim().toUpperCase(Locale.ROOT)) {
+            case PENDING -> PENDING;
+            case CREATED -> CREATED;
+            case TIMEOUT -> TIMEOUT;
+            case SUCCESS -> SUCCESS;
+            case FAILED, "CANCELLED" -> FAILED;
+            default -> null;
+        };
+    }
+
+    /**
+     * @return vrai si le statut ne peut plus changer (SUCCESS ou FAILED) ; un statut inconnu reste ouvert
+     */
+    public static boolean isFinal(String status) {
+        return status != null && FINAL_STATUSES.contains(status);
+    }
+
+    /**
+     * @param from statut courant (nul pour une transaction sans statut, traitée comme PENDING)
+     * @param to statut demandé, normalisé (nul s'il est inconnu)
+     * @return vrai si la transition change le statut et est permise
+     */
+    static boolean isAllowed(String from, String to) {
+        String current = from == null || from.isBlank() ? PENDING : from;
+        if (to == null || current.equals(to) || isFinal(current)) {
+            return false;
+        }
+        return switch (to) {
+            case CREATED -> PENDING.equals(current);
+            case TIMEOUT -> PENDING.equals(current) || CREATED.equals(current);
+            case SUCCESS, FAILED -> true;
+            default -> false;
+        };
+    }
+
+    private record Attempt(boolean exists, String status) {
+    }
+}
@@ -30,6 +30,7 @@ class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
+    private final GlobalStatsCounters globalCounters;
 
     @Override
     @Transactional(readOnly = true)
@@ -66,6 +67,7 @@ class UserServiceImpl implements UserService {
         user.setPassword(passwordEncoder.encode(userDto.getPassword()));
         
         User savedUser = userRepository.save(user);
+        globalCounters.userCreated();
         return userMapper.toDto(savedUser);
     }
 
@@ -104,6 +106,7 @@ class UserServiceImpl implements UserService {
             throw new ResourceNotFoundException("Utilisateur non trouvé avec l'ID : " + id);
         }
         userRepository.deleteById(id);
+        globalCounters.userDeleted();
     }
 
     @Override
@@ -0,0 +1,167 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.DTO.CampostWebhookEvent;
+import com.NND.tech.Structure_Backend.Repository.WebhookDeliveryRepository;
+import com.NND.tech.Structure_Backend.model.entity.WebhookDelivery;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Idempotence des webhooks CamPost : une livraison est identifiée par (référence ou orderId,
+ * statut, horodatage de l'événement). Les renvois du fournisseur sont écartés avant tout accès à
+ * {@code transactions}.
+ * <p>
+ * Un cache borné en mémoire des livraisons récentes répond au webhook lui-même, sans accès base.
+ * La table {@code webhook_deliveries} fait foi : consultée par le consommateur de la file pour les
+ * clés absentes du cache, elle est alimentée dans la transaction qui applique les statuts, puis
+ * purgée au-delà de {@code app.payments.webhooks.dedup.retention}.
+ */
+@Slf4j
+@Component
+public class WebhookDeduplicator {
+
+    private final WebhookDeliveryRepository deliveryRepository;
+    private final TransactionTemplate writeTransaction;
+    private final Duration retention;
+    private final Cache<String, Boolean> recent;
+
+    private final Counter memoryHits;
+    private final Counter tableHits;
+
+    public WebhookDeduplicator(WebhookDeliveryRepository deliveryRepository,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.payments.webhooks.dedup.memory-size:200000}") long memorySize,
+                               @Value("${app.payments.webhooks.dedup.retention:P7D}") Duration retention) {
+        this.deliveryRepository = deliveryRepository;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        // Au-delà de la rétention, la table ne la connaît plus : le cache non plus
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(memorySize)
+                .expireAfterWrite(retention)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, recent, "webhookDeliveries");
+        this.memoryHits = duplicateCounter(meterRegistry, "memory");
+        this.tableHits = duplicateCounter(meterRegistry, "table");
+    }
+
+    private static Counter duplicateCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("payments.webhooks.duplicates")
+                .description("Livraisons de webhook déjà appliquées, écartées")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return l'empreinte SHA-256 (hexadécimale) de la livraison, ou null sans référence ni orderId
+     */
+    public static String key(CampostWebhookEvent event) {
+        String target = event.getReference() != null ? "ref:" + event.getReference()
+                : event.getOrderId() != null ? "order:" + event.getOrderId() : null;
+        if (target == null) {
+            return null;
+        }
+        String status = event.getStatus() == null ? "" : event.getStatus().trim().toUpperCase(Locale.ROOT);
+        String timestamp = event.getTimestamp() == null ? "" : event.getTimestamp();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((target + '\n' + status + '\n' + timestamp).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Consultation en mémoire seulement, pour acquitter un renvoi sans accès base
+     * @return vrai si la livraison est connue du cache
+     */
+    public boolean isRecent(String key) {
+        if (key != null && recent.getIfPresent(key) != null) {
+            memoryHits.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return parmi les clés données, celles déjà appliquées (cache, puis table en une requête)
+     */
+    public Set<String> findApplied(Collection<String> keys) {
+        Set<String> applied = new HashSet<>();
+        List<String> unknown = new ArrayList<>();
+        for (String key : keys) {
+            if (recent.getIfPresent(key) != null) {
+                applied.add(key);
+            } else {
+                unknown.add(key);
+            }
+        }
+        memoryHits.increment(applied.size());
+        if (!unknown.isEmpty()) {
+            List<String> stored = deliveryRepository.findExistingKeys(unknown);
+            stored.forEach(key -> recent.put(key, Boolean.TRUE));
+            tableHits.increment(stored.size());
+            applied.addAll(stored);
+        }
+        return applied;
+    }
+
+    /**
+     * Enregistre des livraisons appliquées, dans la transaction de l'appelant (insertions par lot).
+     * Le cache n'est alimenté qu'après le commit, par {@link #remember}.
+     */
+    public void record(Collection<String> keys) {
+        LocalDateTime now = LocalDateTime.now();
+        List<WebhookDelivery> deliveries = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            deliveries.add(new WebhookDelivery(key, now));
+        }
+        deliveryRepository.saveAll(deliveries);
+    }
+
+    /**
+     * Ajoute au cache des livraisons enregistrées et validées
+     */
+    public void remember(Collection<String> keys) {
+        keys.forEach(key -> recent.put(key, Boolean.TRUE));
+    }
+
+    /**
+     * Oublie les livraisons plus anciennes que la fenêtre de renvoi du fournisseur
+     * @return le nombre de lignes supprimées
+     */
+    @Scheduled(cron = "${app.payments.webhooks.dedup.purge-cron:0 15 4 * * *}")
+    public int purge() {
+        Integer deleted = writeTransaction.execute(status ->
+                deliveryRepository.deleteReceivedBefore(LocalDateTime.now().minus(retention)));
+        if (deleted != null && deleted > 0) {
+            log.info("Livraisons de webhooks purgées : {}", deleted);
+        }
+        return deleted == null ? 0 : deleted;
+    }
+}
@@ -0,0 +1,280 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.DTO.CampostWebhookEvent;
+import com.NND.tech.Structure_Backend.Repository.TransactionRepository;
+import com.NND.tech.Structure_Backend.Repository.TransactionRepository.PaymentKey;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * File d'entrée des webhooks CamPost : le webhook vérifié est ajouté au journal local
+ * ({@link WebhookJournal}) et acquitté aussitôt, sans accès base.
+ * <p>
+ * Un consommateur unique vide le journal par lots : les événements d'une même référence sont
+ * fusionnés (le premier statut final l'emporte, comme s'ils étaient appliqués un à un), les
+ * transactions sont retrouvées en une requête et les statuts appliqués en une transaction par lot
+ * ({@link TransactionStatusService#transitionAll}). Un lot en échec est relu au passage suivant.
+ * <p>
+ * Les renvois de CamPost sont écartés par {@link WebhookDeduplicator} : dès la réception pour les
+ * livraisons récentes, sinon par le consommateur, avant toute lecture de {@code transactions}.
+ */
+@Slf4j
+@Service
+public class WebhookIntakeService {
+
+    private final WebhookJournal journal;
+    private final TransactionRepository transactionRepository;
+    private final TransactionStatusService statusService;
+    private final WebhookDeduplicator deduplicator;
+    private final TransactionTemplate writeTransaction;
+    private final ObjectReader eventReader;
+    private final int batchSize;
+    private final long drainIntervalMs;
+    private final ScheduledExecutorService consumer;
+
+    private final Counter received;
+    private final Counter processed;
+    private final Counter coalesced;
+    private final Counter invalid;
+    private final Timer batchTimer;
+
+    public WebhookIntakeService(TransactionRepository transactionRepository,
+                                TransactionStatusService statusService,
+                                WebhookDeduplicator deduplicator,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.payments.webhooks.journal-directory:webhooks}") Path directory,
+                                @Value("${app.payments.webhooks.segment-size:64MB}") DataSize segmentSize,
+                                @Value("${app.payments.webhooks.batch-size:500}") int batchSize,
+                                @Value("${app.payments.webhooks.drain-interval:PT0.05S}") Duration drainInterval) {
+        this.transactionRepository = transactionRepository;
+        this.statusService = statusService;
+        this.deduplicator = deduplicator;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.eventReader = objectMapper.readerFor(CampostWebhookEvent.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.batchSize = batchSize;
+        this.drainIntervalMs = drainInterval.toMillis();
+        this.journal = new WebhookJournal(directory, segmentSize.toBytes());
+        this.consumer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "webhook-intake");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.received = Counter.builder("payments.webhooks.received")
+                .description("Webhooks vérifiés et ajoutés au journal")
+                .register(meterRegistry);
+        this.processed = Counter.builder("payments.webhooks.processed")
+                .description("Webhooks relus du journal et appliqués")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("payments.webhooks.coalesced")
+                .description("Webhooks fusionnés avec un autre du même lot")
+                .register(meterRegistry);
+        this.invalid = Counter.builder("payments.webhooks.invalid")
+                .description("Enregistrements du journal illisibles, écartés")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("payments.webhooks.batch")
+                .description("Durée d'application d'un lot de webhooks")
+                .register(meterRegistry);
+        Gauge.builder("payments.webhooks.queue.depth", journal, WebhookJournal::depth)
+                .description("Webhooks acquittés en attente d'application")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ajoute un webhook (signature déjà vérifiée) au journal ; rend la main une fois l'ajout sur disque.
+     * Un renvoi d'une livraison récente, connue du cache d'idempotence, est acquitté sans écriture.
+     * @param event contenu déjà lu du webhook
+     * @param payload corps brut, tel qu'enregistré dans le journal
+     * @throws java.io.UncheckedIOException si le journal est inaccessible (le webhook ne doit pas être acquitté)
+     */
+    public void accept(CampostWebhookEvent event, String payload) {
+        if (deduplicator.isRecent(WebhookDeduplicator.key(event))) {
+            return;
+        }
+        journal.append(payload.getBytes(StandardCharsets.UTF_8));
+        received.increment();
+    }
+
+    /**
+     * Démarre le consommateur une fois le contexte prêt : les écouteurs des événements de transaction
+     * (rollups, caches) doivent être enregistrés avant de retraiter le journal
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        consumer.scheduleWithFixedDelay(this::drainQuietly, 0, drainIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Applique tous les webhooks en attente, lot par lot
+     * @return le nombre d'enregistrements traités
+     */
+    public synchronized int drain() {
+        int total = 0;
+        while (true) {
+            WebhookJournal.Batch batch = journal.read(batchSize);
+            if (batch.records().isEmpty() && batch.skipped() == 0) {
+                return total;
+            }
+            batchTimer.record(() -> apply(batch.records()));
+            journal.commit(batch);
+            invalid.increment(batch.skipped());
+            processed.increment(batch.records().size());
+            total += batch.records().size();
+        }
+    }
+
+    /**
+     * @return nombre de webhooks acquittés et pas encore appliqués
+     */
+    public long getQueueDepth() {
+        return journal.depth();
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        // Sans interruption : un thread interrompu pendant une lecture fermerait le canal du journal
+        consumer.shutdown();
+        try {
+            consumer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            journal.close();
+        }
+    }
+
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            // Lot non validé : relu au prochain passage
+            log.warn("Application des webhooks en attente interrompue", e);
+        }
+    }
+
+    private void apply(List<byte[]> records) {
+        List<Delivery> deliveries = new ArrayList<>(records.size());
+        for (byte[] record : records) {
+            CampostWebhookEvent event;
+            try {
+                event = eventReader.readValue(record);
+            } catch (IOException e) {
+                invalid.increment();
+                log.warn("Webhook illisible écarté du journal", e);
+                continue;
+            }
+            String deliveryKey = WebhookDeduplicator.key(event);
+            if (deliveryKey != null) {
+                deliveries.add(new Delivery(deliveryKey, event));
+            }
+        }
+        if (deliveries.isEmpty()) {
+            return;
+        }
+        // Renvois déjà appliqués (lots précédents, ou avant un redémarrage) : écartés sans lire transactions
+        Set<String> fresh = new LinkedHashSet<>();
+        deliveries.forEach(delivery -> fresh.add(delivery.key()));
+        fresh.removeAll(deduplicator.findApplied(fresh));
+        if (fresh.isEmpty()) {
+            return;
+        }
+
+        // Premier statut final par transaction visée, dans l'ordre de réception
+        Map<String, PendingStatus> byTarget = new LinkedHashMap<>();
+        for (Delivery delivery : deliveries) {
+            CampostWebhookEvent event = delivery.event();
+            // Seuls les statuts finaux sont appliqués depuis le webhook
+            String status = TransactionStatusService.normalize(event.getStatus());
+            if (!TransactionStatusService.isFinal(status) || !fresh.contains(delivery.key())) {
+                continue;
+            }
+            String target = event.getReference() != null ? "ref:" + event.getReference() : "order:" + event.getOrderId();
+            if (byTarget.putIfAbsent(target, new PendingStatus(event.getReference(), event.getOrderId(), status)) != null) {
+                coalesced.increment();
+            }
+        }
+        // Statuts et livraisons enregistrés ensemble : un lot rejoué après un échec n'est ni perdu ni doublé
+        writeTransaction.executeWithoutResult(tx -> {
+            if (!byTarget.isEmpty()) {
+                statusService.transitionAll(resolve(byTarget.values()));
+            }
+            deduplicator.record(fresh);
+        });
+        deduplicator.remember(fresh);
+    }
+
+    // Recherche par référence, puis par orderId pour les événements sans référence connue
+    private Map<Long, String> resolve(Collection<PendingStatus> pendings) {
+        Map<String, Long> byReference = new HashMap<>();
+        List<String> references = pendings.stream().map(PendingStatus::reference).filter(Objects::nonNull).toList();
+        if (!references.isEmpty()) {
+            for (PaymentKey key : transactionRepository.findKeysByReferenceIn(references)) {
+                byReference.put(key.getReference(), key.getId());
+            }
+        }
+        Map<String, Long> byOrderId = new HashMap<>();
+        List<String> orderIds = pendings.stream()
+                .filter(pending -> pending.reference() == null || !byReference.containsKey(pending.reference()))
+                .map(PendingStatus::orderId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (!orderIds.isEmpty()) {
+            for (PaymentKey key : transactionRepository.findKeysByOrderIdIn(orderIds)) {
+                byOrderId.putIfAbsent(key.getOrderId(), key.getId());
+            }
+        }
+
+        Map<Long, String> targets = new LinkedHashMap<>();
+        for (PendingStatus pending : pendings) {
+            Long id = pending.reference() != null ? byReference.get(pending.reference()) : null;
+            if (id == null && pending.orderId() != null) {
+                id = byOrderId.get(pending.orderId());
+            }
+            if (id != null && targets.putIfAbsent(id, pending.status()) != null) {
+                coalesced.increment();
+            }
+        }
+        return targets;
+    }
+
+    private record Delivery(String key, CampostWebhookEvent event) {
+    }
+
+    private record PendingStatus(String reference, String orderId, String status) {
+    }
+}
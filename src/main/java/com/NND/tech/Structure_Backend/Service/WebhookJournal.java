@@ -0,0 +1,453 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Journal local en ajout seul, découpé en segments : un enregistrement est sur disque (fsync) quand
+ * {@link #append} rend la main. Les ajouts concurrents partagent le même fsync (validation groupée).
+ * <p>
+ * Un consommateur unique relit le journal dans l'ordre et enregistre sa position une fois le lot
+ * traité ; les segments entièrement consommés sont supprimés. Après un arrêt brutal, le lot en cours
+ * est relu (livraison au moins une fois) et une fin de segment tronquée est écartée à la réouverture.
+ * Un enregistrement corrompu au milieu d'un segment est sauté à la lecture : la relecture reprend au
+ * premier enregistrement valide qui le suit.
+ * <p>
+ * Format d'un enregistrement : longueur (int), CRC32 (int), contenu.
+ */
+@Slf4j
+final class WebhookJournal implements Closeable {
+
+    private static final int HEADER_BYTES = 8;
+    private static final String OFFSET_FILE = "consumer.offset";
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{20})\\.log");
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final AtomicLong depth = new AtomicLong();
+
+    private final Object writeLock = new Object();
+    private final Object syncLock = new Object();
+    // Protégé par writeLock
+    private Segment active;
+
+    // Position validée du consommateur, modifiée par commit seulement
+    private volatile Position committed;
+    private Segment readerSegment;
+    private FileChannel reader;
+
+    /**
+     * Ouvre (ou crée) le journal et recharge les enregistrements non consommés
+     * @param segmentBytes taille au-delà de laquelle un nouveau segment est commencé
+     * @throws IllegalStateException si le répertoire est déjà utilisé par un autre journal
+     */
+    WebhookJournal(Path directory, long segmentBytes) {
+        if (segmentBytes < HEADER_BYTES) {
+            throw new IllegalArgumentException("Taille de segment invalide");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        try {
+            Files.createDirectories(directory);
+            lockChannel = FileChannel.open(directory.resolve("journal.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            lock = tryLock(lockChannel);
+            if (lock == null) {
+                lockChannel.close();
+                throw new IllegalStateException("Journal des webhooks " + directory + " déjà ouvert");
+            }
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Journal des webhooks " + directory + " inaccessible", e);
+        }
+    }
+
+    /**
+     * Ajoute un enregistrement et attend qu'il soit sur disque
+     * @throws UncheckedIOException si l'écriture ou le fsync échoue (l'enregistrement n'est pas garanti)
+     */
+    void append(byte[] payload) {
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        record.putInt(payload.length).putInt(checksum(payload)).put(payload).flip();
+        try {
+            Segment segment;
+            long end;
+            synchronized (writeLock) {
+                if (active.written > 0 && active.written + record.remaining() > segmentBytes) {
+                    roll();
+                }
+                segment = active;
+                // Écriture positionnelle : un échec partiel est écrasé par l'ajout suivant
+                long position = segment.written;
+                while (record.hasRemaining()) {
+                    position += segment.channel.write(record, position);
+                }
+                segment.written = position;
+                end = position;
+                depth.incrementAndGet();
+            }
+            sync(segment, end);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Écriture dans le journal des webhooks " + directory + " impossible", e);
+        }
+    }
+
+    /**
+     * Relit, depuis la dernière position validée, au plus {@code maxRecords} enregistrements durables.
+     * Réservé au consommateur (un seul thread) ; sans {@link #commit}, le même lot est relu.
+     * Les enregistrements corrompus sont sautés et comptés dans {@link Batch#skipped()}.
+     */
+    Batch read(int maxRecords) {
+        Position position = committed;
+        long sequence = position.segment();
+        long offset = position.offset();
+        List<byte[]> records = new ArrayList<>();
+        int skipped = 0;
+        try {
+            while (records.size() < maxRecords) {
+                Segment segment = segments.get(sequence);
+                if (segment == null) {
+                    break;
+                }
+                // sealed est écrit après la taille finale : lu en premier, il garantit une taille complète
+                boolean sealed = segment.sealed;
+                long limit = segment.durable;
+                if (offset >= limit) {
+                    Long next = sealed ? segments.higherKey(sequence) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    sequence = next;
+                    offset = 0;
+                    continue;
+                }
+                FileChannel channel = readerFor(segment);
+                byte[] payload = readRecord(channel, offset, limit);
+                if (payload == null) {
+                    // Relire le même lot bloquerait la file : l'enregistrement est écarté, pas réessayé
+                    long next = nextRecord(channel, offset + 1, limit);
+                    log.warn("Journal des webhooks : enregistrement corrompu écarté dans {} ({} octets à la position {})",
+                            segment.path, next - offset, offset);
+                    skipped++;
+                    offset = next;
+                    continue;
+                }
+                records.add(payload);
+                offset += HEADER_BYTES + payload.length;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lecture du journal des webhooks " + directory + " impossible", e);
+        }
+        return new Batch(records, skipped, new Position(sequence, offset));
+    }
+
+    /**
+     * Valide un lot traité : la position est enregistrée (fsync) et les segments dépassés supprimés
+     */
+    void commit(Batch batch) {
+        Position end = batch.end();
+        try {
+            writeOffset(end);
+            committed = end;
+            depth.addAndGet(-(batch.records().size() + batch.skipped()));
+            for (Long sequence : List.copyOf(segments.headMap(end.segment()).keySet())) {
+                Segment segment = segments.remove(sequence);
+                if (segment == readerSegment) {
+                    reader.close();
+                    readerSegment = null;
+                    reader = null;
+                }
+                segment.channel.close();
+                Files.deleteIfExists(segment.path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Validation du journal des webhooks " + directory + " impossible", e);
+        }
+    }
+
+    /**
+     * @return nombre d'enregistrements ajoutés et pas encore validés par le consommateur
+     */
+    long depth() {
+        return depth.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            if (reader != null) {
+                reader.close();
+            }
+            for (Segment segment : segments.values()) {
+                segment.channel.close();
+            }
+            lock.release();
+            lockChannel.close();
+        }
+    }
+
+    private void recover() throws IOException {
+        Position offset = readOffset();
+        List<Long> sequences;
+        try (Stream<Path> files = Files.list(directory)) {
+            sequences = files.map(file -> SEGMENT_NAME.matcher(file.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Long.parseLong(matcher.group(1)))
+                    .sorted()
+                    .toList();
+        }
+        for (Long sequence : sequences) {
+            Path file = segmentPath(sequence);
+            if (offset != null && sequence < offset.segment()) {
+                // Consommé avant l'arrêt, suppression interrompue
+                Files.deleteIfExists(file);
+                continue;
+            }
+            long countFrom = offset != null && sequence == offset.segment() ? offset.offset() : 0;
+            Segment segment = new Segment(sequence, file, FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            segment.written = recoverSegment(segment, countFrom);
+            segment.markDurable(segment.written);
+            segment.sealed = true;
+            segments.put(sequence, segment);
+        }
+
+        long first = offset != null ? offset.segment() : 1;
+        if (segments.isEmpty()) {
+            active = openSegment(first);
+        } else {
+            active = segments.lastEntry().getValue();
+            active.sealed = false;
+        }
+        Long start = segments.ceilingKey(first);
+        committed = offset != null && start == offset.segment()
+                ? new Position(start, Math.min(offset.offset(), segments.get(start).written))
+                : new Position(start, 0);
+        if (depth.get() > 0) {
+            log.info("Journal des webhooks {} : {} enregistrements à retraiter", directory, depth.get());
+        }
+    }
+
+    // Valide les enregistrements du segment, tronque une fin incomplète et rend la taille valide.
+    // Un enregistrement corrompu suivi d'enregistrements valides est conservé (et compté) : read le saute.
+    private long recoverSegment(Segment segment, long countFrom) throws IOException {
+        FileChannel channel = segment.channel;
+        long size = channel.size();
+        long position = 0;
+        while (position + HEADER_BYTES <= size) {
+            byte[] payload = readRecord(channel, position, size);
+            long next;
+            if (payload != null) {
+                next = position + HEADER_BYTES + payload.length;
+            } else {
+                next = nextRecord(channel, position + 1, size);
+                if (next >= size) {
+                    break;
+                }
+                log.warn("Journal des webhooks : enregistrement corrompu à la position {} de {}", position, segment.path);
+            }
+            if (position >= countFrom) {
+                depth.incrementAndGet();
+            }
+            position = next;
+        }
+        if (position < size) {
+            log.warn("Journal des webhooks : fin incomplète écartée dans {} ({} octets)", segment.path, size - position);
+            channel.truncate(position);
+            channel.force(true);
+        }
+        return position;
+    }
+
+    // Appelée sous writeLock
+    private void roll() throws IOException {
+        active.channel.force(false);
+        active.markDurable(active.written);
+        active.sealed = true;
+        active = openSegment(active.sequence + 1);
+    }
+
+    private Segment openSegment(long sequence) throws IOException {
+        Path file = segmentPath(sequence);
+        Segment segment = new Segment(sequence, file,
+                FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        segment.written = segment.channel.size();
+        segment.markDurable(segment.written);
+        segments.put(sequence, segment);
+        return segment;
+    }
+
+    // Validation groupée : un seul fsync couvre tous les ajouts écrits avant lui
+    private void sync(Segment segment, long end) throws IOException {
+        if (segment.durable >= end) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (segment.durable >= end) {
+                return;
+            }
+            long target;
+            synchronized (writeLock) {
+                target = segment.written;
+            }
+            try {
+                segment.channel.force(false);
+            } catch (ClosedChannelException e) {
+                // Segment scellé puis consommé entre-temps : il était donc déjà durable
+                if (segment.durable >= end) {
+                    return;
+                }
+                throw e;
+            }
+            segment.markDurable(target);
+        }
+    }
+
+    private FileChannel readerFor(Segment segment) throws IOException {
+        if (readerSegment != segment) {
+            if (reader != null) {
+                reader.close();
+            }
+            reader = FileChannel.open(segment.path, StandardOpenOption.READ);
+            readerSegment = segment;
+        }
+        return reader;
+    }
+
+    private Position readOffset() throws IOException {
+        Path file = directory.resolve(OFFSET_FILE);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        String[] parts = Files.readString(file, StandardCharsets.US_ASCII).trim().split(" ");
+        return new Position(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+    }
+
+    private void writeOffset(Position position) throws IOException {
+        Path partial = directory.resolve(OFFSET_FILE + ".part");
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer content = ByteBuffer.wrap((position.segment() + " " + position.offset()).getBytes(StandardCharsets.US_ASCII));
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+            channel.force(true);
+        }
+        Files.move(partial, directory.resolve(OFFSET_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path segmentPath(long sequence) {
+        return directory.resolve(String.format("segment-%020d.log", sequence));
+    }
+
+    // Verrou tenu par un autre processus (null) ou par un autre journal de la même JVM (exception)
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    // Contenu de l'enregistrement commençant à position, ou null s'il dépasse limit ou si son CRC est faux
+    private static byte[] readRecord(FileChannel channel, long position, long limit) throws IOException {
+        if (position + HEADER_BYTES > limit) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(channel, header, position);
+        header.flip();
+        int length = header.getInt();
+        int crc = header.getInt();
+        if (length < 0 || length > limit - position - HEADER_BYTES) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        readFully(channel, ByteBuffer.wrap(payload), position + HEADER_BYTES);
+        return checksum(payload) == crc ? payload : null;
+    }
+
+    // Première position, à partir de from, où commence un enregistrement valide ; limit s'il n'y en a pas
+    private static long nextRecord(FileChannel channel, long from, long limit) throws IOException {
+        for (long position = from; position + HEADER_BYTES <= limit; position++) {
+            if (readRecord(channel, position, limit) != null) {
+                return position;
+            }
+        }
+        return limit;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            position += read;
+        }
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Position dans le journal : segment et décalage en octets
+     */
+    record Position(long segment, long offset) {
+    }
+
+    /**
+     * Lot relu, nombre d'enregistrements corrompus sautés et position qui suit son dernier enregistrement
+     */
+    record Batch(List<byte[]> records, int skipped, Position end) {
+    }
+
+    private static final class Segment {
+        private final long sequence;
+        private final Path path;
+        private final FileChannel channel;
+        // Protégé par writeLock
+        private long written;
+        private volatile long durable;
+        private volatile boolean sealed;
+
+        private Segment(long sequence, Path path, FileChannel channel) {
+            this.sequence = sequence;
+            this.path = path;
+            this.channel = channel;
+        }
+
+        // Ne recule jamais : un fsync ancien peut se terminer après le scellement du segment
+        private synchronized void markDurable(long size) {
+            if (size > durable) {
+                durable = size;
+            }
+        }
+    }
+}
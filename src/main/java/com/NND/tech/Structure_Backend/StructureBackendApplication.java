@@ -2,8 +2,10 @@ package com.NND.tech.Structure_Backend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class StructureBackendApplication {
 
 	public static void main(String[] args) {
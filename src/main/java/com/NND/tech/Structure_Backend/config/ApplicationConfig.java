@@ -13,12 +13,9 @@ import org.springframework.security.core.userdetails.User; // Spring Security Us
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import java.util.Collections;
- import org.springframework.web.client.RestTemplate;
 
 import com.NND.tech.Structure_Backend.Repository.UtilisateurRepository;
 
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
-
 @Configuration
 public class ApplicationConfig {
     private final UtilisateurRepository utilisateurRepository;
@@ -64,14 +61,6 @@ public class ApplicationConfig {
 
         return authProvider;
     }
-
-    @Bean
-    public RestTemplate restTemplate() {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(15000); // 15s connect timeout
-        factory.setReadTimeout(45000);    // 45s read timeout
-        return new RestTemplate(factory);
-    }
 }
 
 
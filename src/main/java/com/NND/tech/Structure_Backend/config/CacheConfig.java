@@ -1,27 +1,47 @@
 package com.NND.tech.Structure_Backend.config;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
+
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
     public static final String STATS_CACHE = "statsCache";
-    public static final String GLOBAL_STATS_KEY = "globalStats";
     public static final String STRUCTURE_STATS_KEY_PREFIX = "structureStats_";
     public static final String DATE_RANGE_STATS_KEY_PREFIX = "dateRangeStats_";
 
+    public static final List<String> CACHE_NAMES = List.of(
+        STATS_CACHE,
+        "structures",
+        "services",
+        "transactions"
+    );
+
+    /**
+     * Caches bornés en taille et expirés après écriture, configurés par {@link CacheProperties}.
+     * Les statistiques (succès, échecs, évictions) sont exportées par l'actuator pour chaque cache
+     * dont la spécification contient {@code recordStats}.
+     * <p>
+     * {@code refreshAfterWrite} n'est pas accepté : il exige un chargeur, que les caches
+     * alimentés par {@code @Cacheable} n'ont pas. Les calculs concurrents d'une même clé
+     * sont évités par {@code @Cacheable(sync = true)}.
+     */
     @Bean
-    public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager(
-            STATS_CACHE,
-            "structures",
-            "services",
-            "transactions"
-        );
+    public CacheManager cacheManager(CacheProperties properties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Liste fermée : un nom de cache inconnu est une erreur de configuration
+        cacheManager.setCacheNames(List.of());
+        for (String name : CACHE_NAMES) {
+            String spec = properties.getSpecs().getOrDefault(name, properties.getDefaultSpec());
+            cacheManager.registerCustomCache(name, Caffeine.from(spec).build());
+        }
+        return cacheManager;
     }
 }
@@ -0,0 +1,23 @@
+package com.NND.tech.Structure_Backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Spécifications Caffeine des caches ({@code maximumSize}, {@code expireAfterWrite}, {@code recordStats}...),
+ * par nom de cache. Les caches sans spécification utilisent {@code defaultSpec}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.cache")
+public class CacheProperties {
+    private String defaultSpec = "maximumSize=1000,expireAfterWrite=10m,recordStats";
+    private Map<String, String> specs = new HashMap<>();
+
+    public String getDefaultSpec() { return defaultSpec; }
+    public void setDefaultSpec(String defaultSpec) { this.defaultSpec = defaultSpec; }
+    public Map<String, String> getSpecs() { return specs; }
+    public void setSpecs(Map<String, String> specs) { this.specs = specs; }
+}
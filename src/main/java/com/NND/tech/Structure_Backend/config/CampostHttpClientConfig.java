@@ -0,0 +1,81 @@
+package com.NND.tech.Structure_Backend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+/**
+ * Client HTTP de l'API CamPost : connexions TCP/TLS conservées (keep-alive) et réutilisées entre
+ * les appels, au lieu d'une poignée de main par requête.
+ * <p>
+ * Métriques exportées : occupation du pool ({@code httpcomponents.httpclient.pool.*}, tag
+ * {@code httpclient=campost}) et latence par point d'accès ({@code http.client.requests}, tag
+ * {@code uri} égal au gabarit relatif, par exemple {@code /status/{reference}}).
+ */
+@Configuration
+public class CampostHttpClientConfig {
+
+    @Bean
+    public PoolingHttpClientConnectionManager campostConnectionManager(CampostProperties props, MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(props.getMaxConnections())
+                .setMaxConnPerRoute(props.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(timeout(props.getConnectTimeout()))
+                        .setSocketTimeout(timeout(props.getReadTimeout()))
+                        .setTimeToLive(TimeValue.of(props.getConnectionTimeToLive()))
+                        // Une connexion restée inactive est vérifiée avant réutilisation (fermeture côté serveur)
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "campost").bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean
+    public CloseableHttpClient campostHttpClient(PoolingHttpClientConnectionManager campostConnectionManager,
+                                                 CampostProperties props) {
+        return HttpClients.custom()
+                .setConnectionManager(campostConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(timeout(props.getPoolAcquireTimeout()))
+                        .setResponseTimeout(timeout(props.getReadTimeout()))
+                        .setConnectionKeepAlive(TimeValue.of(props.getKeepAlive()))
+                        .build())
+                // Thread de fond qui ferme les connexions expirées ou inactives depuis trop longtemps
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(props.getIdleEviction()))
+                .build();
+    }
+
+    /**
+     * RestTemplate construit par le builder de Spring Boot pour bénéficier de l'observation
+     * des requêtes ; les appels utilisent des gabarits relatifs à {@code campost.api-base-url}.
+     */
+    @Bean
+    public RestTemplate campostRestTemplate(RestTemplateBuilder builder, CloseableHttpClient campostHttpClient,
+                                           CampostProperties props) {
+        return builder
+                .rootUri(props.getApiBaseUrl())
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(campostHttpClient))
+                .build();
+    }
+
+    private static Timeout timeout(Duration duration) {
+        return Timeout.of(duration);
+    }
+}
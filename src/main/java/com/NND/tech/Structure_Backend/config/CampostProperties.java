@@ -3,6 +3,8 @@ package com.NND.tech.Structure_Backend.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 @ConfigurationProperties(prefix = "campost")
 public class CampostProperties {
@@ -15,6 +17,18 @@ public class CampostProperties {
     private String cancelUrl;
     private String failUrl;
 
+    // Client HTTP mutualisé : délais distincts d'établissement, de réponse et d'attente d'une connexion du pool
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    private Duration readTimeout = Duration.ofSeconds(45);
+    private Duration poolAcquireTimeout = Duration.ofSeconds(2);
+    private int maxConnections = 50;
+    private int maxConnectionsPerRoute = 20;
+    // Durée de conservation d'une connexion inactive si le serveur n'en annonce pas (en-tête Keep-Alive)
+    private Duration keepAlive = Duration.ofSeconds(30);
+    private Duration idleEviction = Duration.ofSeconds(30);
+    // Durée de vie maximale d'une connexion, pour suivre les changements DNS du fournisseur
+    private Duration connectionTimeToLive = Duration.ofMinutes(5);
+
     public String getApiBaseUrl() { return apiBaseUrl; }
     public void setApiBaseUrl(String apiBaseUrl) { this.apiBaseUrl = apiBaseUrl; }
     public String getPublicKey() { return publicKey; }
@@ -31,4 +45,20 @@ public class CampostProperties {
     public void setCancelUrl(String cancelUrl) { this.cancelUrl = cancelUrl; }
     public String getFailUrl() { return failUrl; }
     public void setFailUrl(String failUrl) { this.failUrl = failUrl; }
+    public Duration getConnectTimeout() { return connectTimeout; }
+    public void setConnectTimeout(Duration connectTimeout) { this.connectTimeout = connectTimeout; }
+    public Duration getReadTimeout() { return readTimeout; }
+    public void setReadTimeout(Duration readTimeout) { this.readTimeout = readTimeout; }
+    public Duration getPoolAcquireTimeout() { return poolAcquireTimeout; }
+    public void setPoolAcquireTimeout(Duration poolAcquireTimeout) { this.poolAcquireTimeout = poolAcquireTimeout; }
+    public int getMaxConnections() { return maxConnections; }
+    public void setMaxConnections(int maxConnections) { this.maxConnections = maxConnections; }
+    public int getMaxConnectionsPerRoute() { return maxConnectionsPerRoute; }
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) { this.maxConnectionsPerRoute = maxConnectionsPerRoute; }
+    public Duration getKeepAlive() { return keepAlive; }
+    public void setKeepAlive(Duration keepAlive) { this.keepAlive = keepAlive; }
+    public Duration getIdleEviction() { return idleEviction; }
+    public void setIdleEviction(Duration idleEviction) { this.idleEviction = idleEviction; }
+    public Duration getConnectionTimeToLive() { return connectionTimeToLive; }
+    public void setConnectionTimeToLive(Duration connectionTimeToLive) { this.connectionTimeToLive = connectionTimeToLive; }
 }
@@ -0,0 +1,35 @@
+package com.NND.tech.Structure_Backend.config;
+
+import com.NND.tech.Structure_Backend.Repository.RevenueRollupRepository;
+import com.NND.tech.Structure_Backend.Repository.TransactionRepository;
+import com.NND.tech.Structure_Backend.Service.RevenueRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remplit la table des rollups au démarrage :
+ * <ul>
+ *     <li>sur demande explicite, avec l'option {@code --rebuild-rollups} ;</li>
+ *     <li>automatiquement si la table est vide alors que des transactions existent (première mise en service).</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+public class RollupBackfillRunner implements ApplicationRunner {
+
+    static final String REBUILD_OPTION = "rebuild-rollups";
+
+    private final RevenueRollupService rollupService;
+    private final RevenueRollupRepository rollupRepository;
+    private final TransactionRepository transactionRepository;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (args.containsOption(REBUILD_OPTION)
+                || (rollupRepository.count() == 0 && transactionRepository.count() > 0)) {
+            rollupService.rebuild();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.NND.tech.Structure_Backend.event;
+
+import java.util.Objects;
+
+/**
+ * État d'une transaction avant et après une écriture.
+ * {@code before} est nul pour une création, {@code after} est nul pour une suppression.
+ */
+public record TransactionChange(TransactionSnapshot before, TransactionSnapshot after) {
+
+    public boolean isCreation() {
+        return before == null && after != null;
+    }
+
+    public boolean isDeletion() {
+        return before != null && after == null;
+    }
+
+    public boolean isStatusChange() {
+        return before != null && after != null && !Objects.equals(before.status(), after.status());
+    }
+}
@@ -0,0 +1,11 @@
+package com.NND.tech.Structure_Backend.event;
+
+import java.util.List;
+
+/**
+ * Événement publié dans la transaction qui écrit une ou plusieurs transactions.
+ * Les écouteurs synchrones participent à la même unité de travail ; les écouteurs
+ * {@code @TransactionalEventListener} ne voient que les écritures validées.
+ */
+public record TransactionChangedEvent(List<TransactionChange> changes) {
+}
@@ -0,0 +1,37 @@
+package com.NND.tech.Structure_Backend.event;
+
+import com.NND.tech.Structure_Backend.model.entity.Transaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Point d'entrée unique des chemins d'écriture pour signaler une création, une mise à jour
+ * ou une suppression de transaction. À appeler dans la transaction Spring de l'écriture.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransactionEventPublisher {
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    public void created(Transaction tx) {
+        publish(List.of(new TransactionChange(null, TransactionSnapshot.of(tx))));
+    }
+
+    public void updated(TransactionSnapshot before, Transaction tx) {
+        publish(List.of(new TransactionChange(before, TransactionSnapshot.of(tx))));
+    }
+
+    public void deleted(TransactionSnapshot before) {
+        publish(List.of(new TransactionChange(before, null)));
+    }
+
+    public void publish(List<TransactionChange> changes) {
+        if (!changes.isEmpty()) {
+            applicationEventPublisher.publishEvent(new TransactionChangedEvent(changes));
+        }
+    }
+}
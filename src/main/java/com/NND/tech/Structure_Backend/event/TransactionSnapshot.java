@@ -0,0 +1,56 @@
+package com.NND.tech.Structure_Backend.event;
+
+import com.NND.tech.Structure_Backend.Service.MinorUnits;
+import com.NND.tech.Structure_Backend.model.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Copie immuable des attributs d'une transaction utiles aux agrégats (rollups, caches, compteurs).
+ * Capturée avant et après chaque écriture pour calculer les deltas sans relire la base.
+ */
+public record TransactionSnapshot(
+        Long id,
+        Long structureId,
+        Long serviceId,
+        LocalDate transactionDate,
+        String status,
+        BigDecimal amount,
+        String reference,
+        String orderId) {
+
+    /**
+     * @return vrai si la transaction entre dans les agrégats (structure, service et date renseignés)
+     */
+    public boolean isAggregated() {
+        return structureId != null && serviceId != null && transactionDate != null;
+    }
+
+    /**
+     * @return le montant en unités mineures (0 si absent)
+     */
+    public long amountMinor() {
+        return MinorUnits.of(amount);
+    }
+
+    /**
+     * @return la même transaction avec un autre statut
+     */
+    public TransactionSnapshot withStatus(String status) {
+        return new TransactionSnapshot(id, structureId, serviceId, transactionDate, status, amount,
+                reference, orderId);
+    }
+
+    public static TransactionSnapshot of(Transaction tx) {
+        return new TransactionSnapshot(
+                tx.getId(),
+                tx.getStructure() != null ? tx.getStructure().getId() : null,
+                tx.getService() != null ? tx.getService().getId() : null,
+                tx.getTransactionDate(),
+                tx.getStatus(),
+                tx.getAmount(),
+                tx.getReference(),
+                tx.getOrderId());
+    }
+}
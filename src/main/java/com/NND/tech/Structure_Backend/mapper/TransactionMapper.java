@@ -1,6 +1,7 @@
 package com.NND.tech.Structure_Backend.mapper;
 
 import com.NND.tech.Structure_Backend.DTO.TransactionDto;
+import com.NND.tech.Structure_Backend.DTO.TransactionExportRow;
 import com.NND.tech.Structure_Backend.model.entity.Transaction;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -17,6 +18,10 @@ public interface TransactionMapper {
     
     @Mapping(target = "structureId", source = "structure.id")
     TransactionDto toDto(Transaction entity);
+
+    // Ligne relue dans un segment d'archive
+    @Mapping(target = "archived", constant = "true")
+    TransactionDto toDto(TransactionExportRow row);
     
     @Mapping(target = "structure", ignore = true)
     Transaction toEntity(TransactionDto dto);
@@ -0,0 +1,45 @@
+package com.NND.tech.Structure_Backend.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Agrégat d'un segment d'archive par (structure, service, jour, statut),
+ * sur la même clé que {@link DailyRevenueRollup}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "archive_segment_summaries")
+public class ArchiveSegmentSummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "segment_id", nullable = false)
+    private Long segmentId;
+
+    @Column(name = "structure_id", nullable = false)
+    private Long structureId;
+
+    @Column(name = "service_id", nullable = false)
+    private Long serviceId;
+
+    @Column(name = "summary_date", nullable = false)
+    private LocalDate day;
+
+    @Column(nullable = false, length = 32)
+    private String status;
+
+    @Column(name = "transaction_count", nullable = false)
+    private long transactionCount;
+
+    @Column(name = "amount_minor", nullable = false)
+    private long amountMinor;
+}
@@ -0,0 +1,53 @@
+package com.NND.tech.Structure_Backend.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Agrégat journalier des transactions par (structure, service, jour, statut).
+ * Maintenu dans la même unité de travail que les écritures de transactions ;
+ * les statistiques sont calculées à partir de cette table et non de {@code transactions}.
+ * La catégorie n'en fait pas partie : elle est lue dans {@code services} à chaque requête,
+ * et un changement de catégorie d'un service s'applique donc à tout son historique.
+ * Index définis par les migrations ({@code db/migration}).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "daily_revenue_rollups",
+    uniqueConstraints = @UniqueConstraint(
+        name = "uk_rollup_key",
+        columnNames = {"structure_id", "service_id", "rollup_date", "status"}))
+public class DailyRevenueRollup {
+
+    // Statut utilisé pour les transactions sans statut (la clé unique n'accepte pas NULL)
+    public static final String NO_STATUS = "NONE";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "structure_id", nullable = false)
+    private Long structureId;
+
+    @Column(name = "service_id", nullable = false)
+    private Long serviceId;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate day;
+
+    @Column(nullable = false, length = 32)
+    private String status;
+
+    @Column(name = "transaction_count", nullable = false)
+    private long transactionCount;
+
+    // Montant en unités mineures (centimes) : sommes exactes en BIGINT
+    @Column(name = "amount_minor", nullable = false)
+    private long amountMinor;
+}
@@ -0,0 +1,22 @@
+package com.NND.tech.Structure_Backend.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ligne de verrou des rollups (migration V8) : jamais modifiée, seulement verrouillée
+ * (lecture partagée par les écritures de transactions, exclusive pendant une reconstruction).
+ */
+@Getter
+@NoArgsConstructor
+@Entity
+@Table(name = "rollup_locks")
+public class RollupLock {
+
+    public static final String DAILY_REVENUE_ROLLUPS = "daily_revenue_rollups";
+
+    @Id
+    @Column(name = "lock_name", nullable = false, length = 64)
+    private String lockName;
+}
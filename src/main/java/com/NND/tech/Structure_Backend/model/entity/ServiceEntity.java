@@ -13,8 +13,11 @@ import java.math.BigDecimal;
 @Entity
 @Table(name = "services")
 public class ServiceEntity {
+    // Identifiants réservés par blocs (table id_sequences) : compatible avec les inserts JDBC par lots
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "service_ids")
+    @TableGenerator(name = "service_ids", table = "id_sequences", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "services", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -28,7 +31,7 @@ public class ServiceEntity {
     private int duration; // en minutes
     private boolean active = true;
 
-    @ManyToOne(fetch = FetchType.LAZY)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "structure_id", nullable = false)
     private Structure structure;
 }
@@ -7,7 +7,11 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
+/**
+ * Index définis par les migrations ({@code db/migration}) uniquement.
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -15,8 +19,11 @@ import java.time.LocalDate;
 @Table(name = "transactions")
 public class Transaction {
     
+    // Identifiants réservés par blocs (table id_sequences) : compatible avec les inserts JDBC par lots
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "transaction_ids")
+    @TableGenerator(name = "transaction_ids", table = "id_sequences", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "transactions", allocationSize = 500)
     private Long id;
     
     @Column(nullable = false)
@@ -28,6 +35,10 @@ public class Transaction {
     @Column(name = "transaction_date", nullable = false)
     private LocalDate transactionDate;
     
+    // Horodatage de création, utilisé pour les tendances horaires
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
     private String description;
     
     // Optional order id from external payment system (e.g., CampostPay)
@@ -38,11 +49,11 @@ public class Transaction {
     @Column(name = "status")
     private String status;
     
-    @ManyToOne(fetch = FetchType.LAZY)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "service_id", nullable = false)
     private ServiceEntity service;
     
-    @ManyToOne(fetch = FetchType.LAZY)
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "structure_id", nullable = false)
     private Structure structure;
     
@@ -52,6 +63,13 @@ public class Transaction {
     @Column(name = "confirmation_date")
     private LocalDate confirmationDate;
     
+    @PrePersist
+    void onCreate() {
+        if (this.createdAt == null) {
+            this.createdAt = LocalDateTime.now();
+        }
+    }
+    
     // Méthodes utilitaires
     public void confirm() {
         this.isConfirmed = true;
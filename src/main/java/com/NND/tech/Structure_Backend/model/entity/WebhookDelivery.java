@@ -0,0 +1,42 @@
+package com.NND.tech.Structure_Backend.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Livraison de webhook déjà appliquée (clé d'idempotence). Toujours insérée, jamais modifiée :
+ * {@link #isNew()} évite la relecture que ferait {@code save} pour une clé fournie par l'appelant,
+ * et les insertions partent en lot JDBC.
+ */
+@Getter
+@NoArgsConstructor
+@Entity
+@Table(name = "webhook_deliveries")
+public class WebhookDelivery implements Persistable<String> {
+
+    @Id
+    @Column(name = "delivery_key", nullable = false, length = 64)
+    private String deliveryKey;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    public WebhookDelivery(String deliveryKey, LocalDateTime receivedAt) {
+        this.deliveryKey = deliveryKey;
+        this.receivedAt = receivedAt;
+    }
+
+    @Override
+    public String getId() {
+        return deliveryKey;
+    }
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -0,0 +1,59 @@
+-- Schéma initial, identique à celui produit jusqu'ici par ddl-auto=update.
+-- Les bases existantes sont marquées à cette version (baseline-on-migrate) sans réexécuter ce script.
+
+CREATE TABLE structures (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    description VARCHAR(255),
+    address VARCHAR(255),
+    phone VARCHAR(255),
+    email VARCHAR(255),
+    image_url VARCHAR(255),
+    active BIT NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE services (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    structure_id BIGINT NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    category VARCHAR(255) NOT NULL,
+    description VARCHAR(255),
+    price DECIMAL(38,2),
+    duration INTEGER NOT NULL,
+    active BIT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_services_structure FOREIGN KEY (structure_id) REFERENCES structures (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    email VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    first_name VARCHAR(255),
+    last_name VARCHAR(255),
+    phone VARCHAR(255),
+    role ENUM('SUPER_ADMIN','ADMIN','USER') NOT NULL,
+    active BIT NOT NULL,
+    structure_id BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email),
+    CONSTRAINT fk_users_structure FOREIGN KEY (structure_id) REFERENCES structures (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE transactions (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    reference VARCHAR(255) NOT NULL,
+    amount DECIMAL(38,2) NOT NULL,
+    transaction_date DATE NOT NULL,
+    description VARCHAR(255),
+    order_id VARCHAR(255),
+    status VARCHAR(255),
+    service_id BIGINT NOT NULL,
+    structure_id BIGINT NOT NULL,
+    is_confirmed BIT NOT NULL,
+    confirmation_date DATE,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_transactions_service FOREIGN KEY (service_id) REFERENCES services (id),
+    CONSTRAINT fk_transactions_structure FOREIGN KEY (structure_id) REFERENCES structures (id)
+) ENGINE=InnoDB;
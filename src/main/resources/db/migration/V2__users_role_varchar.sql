@@ -0,0 +1,3 @@
+-- Le rôle est stocké en VARCHAR sur toutes les bases (l'ENUM natif de MySQL n'existe pas ailleurs
+-- et empêchait la validation du schéma par Hibernate) ; les valeurs existantes sont conservées.
+ALTER TABLE users MODIFY role VARCHAR(32) NOT NULL;
@@ -0,0 +1,24 @@
+-- Index couvrant les requêtes des repositories (plans vérifiés par RepositoryQueryPlanTest).
+
+-- transactions : recherche paginée (transaction_date, id), globale ou par structure ;
+-- chiffre d'affaires et comptage par structure ou par plage de dates
+CREATE INDEX idx_transactions_date_id ON transactions (transaction_date, id);
+CREATE INDEX idx_transactions_structure_date_id ON transactions (structure_id, transaction_date, id);
+-- transactions : rapprochement des paiements (webhook, vérification)
+CREATE INDEX idx_transactions_order_id ON transactions (order_id);
+CREATE INDEX idx_transactions_reference ON transactions (reference);
+CREATE INDEX idx_transactions_service ON transactions (service_id);
+
+-- services : services (actifs) d'une structure, unicité du nom par structure, filtre par catégorie
+CREATE INDEX idx_services_structure_active ON services (structure_id, active);
+CREATE INDEX idx_services_structure_name ON services (structure_id, name);
+CREATE INDEX idx_services_category ON services (category);
+
+-- structures : liste des structures actives, unicité du nom
+CREATE INDEX idx_structures_active ON structures (active);
+CREATE INDEX idx_structures_name ON structures (name);
+
+-- users : recherche par e-mail couverte par uk_users_email ; filtres par structure, rôle et état
+CREATE INDEX idx_users_structure ON users (structure_id);
+CREATE INDEX idx_users_role ON users (role);
+CREATE INDEX idx_users_active ON users (active);
@@ -0,0 +1,23 @@
+-- La référence du fournisseur identifie une transaction : recherche du webhook par index unique.
+
+-- Doublons hérités (aucune contrainte jusqu'ici) : la ligne la plus ancienne garde la référence,
+-- les suivantes sont renommées "<référence>#<id>" et consignées ici avec leur référence d'origine,
+-- pour rapprochement manuel. Aucune transaction n'est supprimée.
+CREATE TABLE transaction_reference_duplicates (
+    transaction_id BIGINT NOT NULL,
+    original_reference VARCHAR(255) NOT NULL,
+    renamed_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (transaction_id)
+) ENGINE=InnoDB;
+
+INSERT INTO transaction_reference_duplicates (transaction_id, original_reference, renamed_at)
+SELECT t.id, t.reference, CURRENT_TIMESTAMP(6)
+FROM transactions t
+WHERE EXISTS (SELECT 1 FROM transactions o WHERE o.reference = t.reference AND o.id < t.id);
+
+UPDATE transactions
+SET reference = CONCAT(reference, '#', id)
+WHERE id IN (SELECT transaction_id FROM transaction_reference_duplicates);
+
+ALTER TABLE transactions DROP INDEX idx_transactions_reference;
+CREATE UNIQUE INDEX uk_transactions_reference ON transactions (reference);
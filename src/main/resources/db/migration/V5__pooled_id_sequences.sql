@@ -0,0 +1,14 @@
+-- Identifiants des transactions et des services réservés par blocs (optimiseur pooled-lo) :
+-- next_val est le premier identifiant du prochain bloc. Contrairement à AUTO_INCREMENT,
+-- ce mode permet à Hibernate d'envoyer les inserts par lots JDBC.
+CREATE TABLE id_sequences (
+    sequence_name VARCHAR(255) NOT NULL,
+    next_val BIGINT,
+    PRIMARY KEY (sequence_name)
+) ENGINE=InnoDB;
+
+INSERT INTO id_sequences (sequence_name, next_val)
+SELECT 'transactions', COALESCE(MAX(id), 0) + 1 FROM transactions;
+
+INSERT INTO id_sequences (sequence_name, next_val)
+SELECT 'services', COALESCE(MAX(id), 0) + 1 FROM services;
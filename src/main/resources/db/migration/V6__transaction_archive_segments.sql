@@ -0,0 +1,37 @@
+-- Archives des mois froids : les transactions confirmées au-delà de l'horizon sont déplacées
+-- dans des segments compressés en ajout seul sur disque (un fichier par segment, jamais réécrit).
+-- Chaque segment est enregistré ici avec ses agrégats par (structure, service, jour, statut),
+-- pour les statistiques et la reconstruction des rollups sans relire les fichiers.
+CREATE TABLE archive_segments (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    segment_month DATE NOT NULL,
+    file_name VARCHAR(255) NOT NULL,
+    transaction_count BIGINT NOT NULL,
+    amount_minor BIGINT NOT NULL,
+    first_date DATE NOT NULL,
+    last_date DATE NOT NULL,
+    min_id BIGINT NOT NULL,
+    max_id BIGINT NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    sha256 VARCHAR(64) NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_archive_segments_file UNIQUE (file_name)
+) ENGINE=InnoDB;
+
+CREATE INDEX idx_archive_segments_month ON archive_segments (segment_month);
+
+CREATE TABLE archive_segment_summaries (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    segment_id BIGINT NOT NULL,
+    structure_id BIGINT NOT NULL,
+    service_id BIGINT NOT NULL,
+    summary_date DATE NOT NULL,
+    status VARCHAR(32) NOT NULL,
+    transaction_count BIGINT NOT NULL,
+    amount_minor BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_archive_summaries_segment FOREIGN KEY (segment_id) REFERENCES archive_segments (id)
+) ENGINE=InnoDB;
+
+CREATE INDEX idx_archive_summaries_date ON archive_segment_summaries (summary_date, structure_id);
@@ -0,0 +1,10 @@
+-- Livraisons de webhooks CamPost déjà appliquées, pour écarter les renvois du fournisseur.
+-- La clé est l'empreinte SHA-256 de (référence ou orderId, statut, horodatage de l'événement) ;
+-- les lignes plus anciennes que la fenêtre de renvoi sont purgées régulièrement.
+CREATE TABLE webhook_deliveries (
+    delivery_key VARCHAR(64) NOT NULL,
+    received_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (delivery_key)
+) ENGINE=InnoDB;
+
+CREATE INDEX idx_webhook_deliveries_received ON webhook_deliveries (received_at);
@@ -0,0 +1,9 @@
+-- Verrou des écritures de rollups : chaque transaction qui applique des deltas à daily_revenue_rollups
+-- prend cette ligne en lecture partagée, la reconstruction complète la prend en exclusif.
+-- Les écritures de transactions attendent donc la fin d'une reconstruction, et inversement.
+CREATE TABLE rollup_locks (
+    lock_name VARCHAR(64) NOT NULL,
+    PRIMARY KEY (lock_name)
+) ENGINE=InnoDB;
+
+INSERT INTO rollup_locks (lock_name) VALUES ('daily_revenue_rollups');
@@ -0,0 +1,20 @@
+-- Colonnes et tables ajoutées après la baseline : elles ne peuvent pas figurer dans V1,
+-- que les bases existantes sautent (baseline-on-migrate).
+-- La table de rollups est créée vide ; RollupBackfillRunner la reconstruit au démarrage.
+
+ALTER TABLE transactions ADD COLUMN created_at DATETIME(6);
+
+CREATE TABLE daily_revenue_rollups (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    structure_id BIGINT NOT NULL,
+    service_id BIGINT NOT NULL,
+    rollup_date DATE NOT NULL,
+    status VARCHAR(32) NOT NULL,
+    transaction_count BIGINT NOT NULL,
+    amount_minor BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_rollup_key UNIQUE (structure_id, service_id, rollup_date, status)
+) ENGINE=InnoDB;
+
+CREATE INDEX idx_rollup_date ON daily_revenue_rollups (rollup_date);
+CREATE INDEX idx_rollup_structure_date ON daily_revenue_rollups (structure_id, rollup_date);
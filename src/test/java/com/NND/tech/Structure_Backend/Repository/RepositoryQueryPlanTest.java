@@ -0,0 +1,342 @@
+package com.NND.tech.Structure_Backend.Repository;
+
+import com.NND.tech.Structure_Backend.Repository.RevenueRollupRepositoryCustom.CubeFilter;
+import com.NND.tech.Structure_Backend.Repository.RevenueRollupRepositoryCustom.Dimension;
+import com.NND.tech.Structure_Backend.Repository.RevenueRollupRepositoryCustom.RollupDelta;
+import com.NND.tech.Structure_Backend.Repository.TransactionRepositoryCustom.SearchFilter;
+import com.NND.tech.Structure_Backend.Repository.TransactionRepositoryCustom.SeekPosition;
+import com.NND.tech.Structure_Backend.model.entity.ArchiveSegment;
+import com.NND.tech.Structure_Backend.model.entity.RoleType;
+import com.NND.tech.Structure_Backend.model.entity.ServiceEntity;
+import com.NND.tech.Structure_Backend.model.entity.Structure;
+import com.NND.tech.Structure_Backend.model.entity.Transaction;
+import com.NND.tech.Structure_Backend.model.entity.User;
+import com.NND.tech.Structure_Backend.model.entity.WebhookDelivery;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Vérifie, par EXPLAIN sur le schéma issu des migrations, que les requêtes des repositories
+ * s'appuient sur un index : chaque requête SQL réellement émise (lecture, mise à jour ou suppression,
+ * annulée en fin de cas) est rejouée avec ses paramètres et le build échoue si le plan parcourt une
+ * table entière.
+ * Seules les lectures volontairement globales (reconstruction des agrégats, chargement de l'index
+ * analytique, totaux tous historiques) sont exclues.
+ */
+@SpringBootTest
+@Import(RepositoryQueryPlanTest.RecordingConfig.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RepositoryQueryPlanTest {
+
+    // Plan H2 : "/* PUBLIC.TABLE.tableScan */" ou index parcouru sans condition "/* PUBLIC.INDEX */"
+    private static final Pattern FULL_SCAN = Pattern.compile("/\\* [\\w.\"]+\\.tableScan \\*/|/\\* [\\w.\"]+ \\*/");
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 15);
+
+    @Autowired private DataSource dataSource;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private TransactionRepository transactionRepository;
+    @Autowired private ServiceRepository serviceRepository;
+    @Autowired private ServiceProduitRepository serviceProduitRepository;
+    @Autowired private StructureRepository structureRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private UtilisateurRepository utilisateurRepository;
+    @Autowired private RevenueRollupRepository revenueRollupRepository;
+    @Autowired private ArchiveSegmentRepository archiveSegmentRepository;
+    @Autowired private WebhookDeliveryRepository webhookDeliveryRepository;
+
+    private Structure structure;
+    private ServiceEntity service;
+    private List<Long> transactionIds;
+
+    @BeforeAll
+    void seed() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Structure> structures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                Structure s = new Structure();
+                s.setName("Plan structure " + i);
+                s.setActive(i % 4 != 0);
+                structures.add(structureRepository.save(s));
+            }
+            structure = structures.get(1);
+            List<ServiceEntity> services = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                ServiceEntity sv = new ServiceEntity();
+                sv.setName("Plan service " + i);
+                sv.setCategory("Catégorie " + (i % 12));
+                sv.setStructure(structures.get(i % structures.size()));
+                services.add(serviceRepository.save(sv));
+            }
+            service = services.get(1);
+            for (int i = 0; i < 40; i++) {
+                userRepository.save(User.builder()
+                        .email("plan" + i + "@example.com")
+                        .password("x")
+                        .role(i % 10 == 0 ? RoleType.ADMIN : RoleType.USER)
+                        .active(i % 5 != 0)
+                        .structure(structures.get(i % structures.size()))
+                        .build());
+            }
+            transactionIds = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                Transaction t = new Transaction();
+                t.setReference("PLAN-" + i);
+                t.setOrderId("ORDER-" + i);
+                t.setAmount(BigDecimal.valueOf(100 + i % 50));
+                t.setTransactionDate(DAY.minusDays(i % 365));
+                t.setStatus(i % 3 == 0 ? "PENDING" : "SUCCESS");
+                ServiceEntity sv = services.get(i % services.size());
+                t.setService(sv);
+                t.setStructure(sv.getStructure());
+                transactionIds.add(transactionRepository.save(t).getId());
+                revenueRollupRepository.applyDeltas(List.of(new RollupDelta(sv.getStructure().getId(), sv.getId(),
+                        t.getTransactionDate(), t.getStatus(), 1, 100L * t.getAmount().longValue())));
+            }
+            for (int i = 0; i < 36; i++) {
+                LocalDate month = DAY.withDayOfMonth(1).minusMonths(24 + i);
+                archiveSegmentRepository.save(new ArchiveSegment(null, month, "plan-" + i + ".ndjson.gz", 1, 100,
+                        month, month, i, i, 1, "0".repeat(64), DAY.atStartOfDay()));
+            }
+            List<WebhookDelivery> deliveries = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                deliveries.add(new WebhookDelivery("plan-delivery-" + i, DAY.atStartOfDay().minusHours(i)));
+            }
+            webhookDeliveryRepository.saveAll(deliveries);
+        });
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE");
+        }
+    }
+
+    @TestFactory
+    Stream<DynamicTest> repositoryQueriesUseAnIndex() {
+        Map<String, Runnable> queries = new TreeMap<>();
+        Long structureId = structure.getId();
+
+        queries.put("transactions.getHourlyRevenue",
+                () -> transactionRepository.getHourlyRevenue(DAY.minusDays(7), DAY));
+        queries.put("transactions.findFirstByOrderId",
+                () -> transactionRepository.findFirstByOrderId("ORDER-42"));
+        queries.put("transactions.findExistingReferences",
+                () -> transactionRepository.findExistingReferences(List.of("PLAN-41", "PLAN-42")));
+        queries.put("transactions.findStatusById",
+                () -> transactionRepository.findStatusById(transactionIds.get(42)));
+        queries.put("transactions.lockAllById",
+                () -> transactionRepository.lockAllById(transactionIds.subList(40, 45)));
+        queries.put("transactions.compareAndSetStatus",
+                () -> transactionRepository.compareAndSetStatus(transactionIds.get(42), "PENDING", "SUCCESS", true, DAY));
+        queries.put("transactions.findKeysByReferenceIn",
+                () -> transactionRepository.findKeysByReferenceIn(List.of("PLAN-41", "PLAN-42")));
+        queries.put("transactions.findKeysByOrderIdIn",
+                () -> transactionRepository.findKeysByOrderIdIn(List.of("ORDER-41", "ORDER-42")));
+        queries.put("transactions.search by structure",
+                () -> transactionRepository.search(new SearchFilter(structureId, null, null, null, null, null, null),
+                        new SeekPosition(DAY.minusDays(30), 1_000L), 51));
+        queries.put("transactions.search by date range",
+                () -> transactionRepository.search(new SearchFilter(null, null, List.of("SUCCESS"),
+                        DAY.minusDays(7), DAY, null, null), null, 51));
+        queries.put("transactions.stream by structure", () -> {
+            try (var rows = transactionRepository.stream(new SearchFilter(structureId, null, null,
+                    DAY.minusDays(7), DAY, null, null))) {
+                rows.count();
+            }
+        });
+
+        queries.put("transactions.findOldestArchivableDate",
+                () -> transactionRepository.findOldestArchivableDate(DAY.minusMonths(6)));
+        queries.put("transactions.streamArchivable", () -> {
+            try (var rows = transactionRepository.streamArchivable(DAY.minusMonths(8), DAY.minusMonths(7), 1000)) {
+                rows.count();
+            }
+        });
+        queries.put("archiveSegments.findByMonthRange",
+                () -> archiveSegmentRepository.findByMonthRange(DAY.minusMonths(30), DAY.minusMonths(28)));
+
+        queries.put("webhookDeliveries.findExistingKeys",
+                () -> webhookDeliveryRepository.findExistingKeys(List.of("plan-delivery-1", "plan-delivery-2")));
+        queries.put("webhookDeliveries.deleteReceivedBefore",
+                () -> webhookDeliveryRepository.deleteReceivedBefore(DAY.atStartOfDay().minusDays(40)));
+
+        queries.put("services.findByStructureId", () -> serviceRepository.findByStructureId(structureId));
+        queries.put("services.findByStructureIdAndActiveTrue",
+                () -> serviceRepository.findByStructureIdAndActiveTrue(structureId));
+        queries.put("services.findByIdAndActiveTrue", () -> serviceRepository.findByIdAndActiveTrue(service.getId()));
+        queries.put("services.existsByNameAndStructureId",
+                () -> serviceRepository.existsByNameAndStructureId("Plan service 1", structureId));
+        queries.put("services.findByStructure", () -> serviceRepository.findByStructure(structure));
+        queries.put("services.findImportTargets",
+                () -> serviceRepository.findImportTargets(List.of(service.getId())));
+        queries.put("services.findNamesByStructureId", () -> serviceRepository.findNamesByStructureId(structureId));
+        queries.put("services.findByCategory", () -> serviceRepository.findByCategory("Catégorie 3"));
+        queries.put("services.findByStructureAndActiveTrue",
+                () -> serviceRepository.findByStructureAndActiveTrue(structure));
+        queries.put("servicesProduits.findByStructureIdAndActiveTrue",
+                () -> serviceProduitRepository.findByStructureIdAndActiveTrue(structureId));
+
+        queries.put("structures.findByActiveTrue", () -> structureRepository.findByActiveTrue());
+        queries.put("structures.findByIdAndActiveTrue", () -> structureRepository.findByIdAndActiveTrue(structureId));
+        queries.put("structures.existsByName", () -> structureRepository.existsByName("Plan structure 3"));
+
+        queries.put("users.findByEmail", () -> userRepository.findByEmail("plan3@example.com"));
+        queries.put("users.existsByEmail", () -> userRepository.existsByEmail("plan3@example.com"));
+        queries.put("users.findByRole", () -> utilisateurRepository.findByRole(RoleType.ADMIN));
+        queries.put("users.findByStructureId", () -> utilisateurRepository.findByStructureId(structureId));
+        queries.put("users.findByActiveTrue", () -> utilisateurRepository.findByActiveTrue());
+
+        queries.put("rollups.getTotalsByDateRange",
+                () -> revenueRollupRepository.getTotalsByDateRange(DAY.minusDays(7), DAY));
+        queries.put("rollups.getTotalsByStructureId", () -> revenueRollupRepository.getTotalsByStructureId(structureId));
+        queries.put("rollups.getDailyRevenue", () -> revenueRollupRepository.getDailyRevenue(DAY.minusDays(30), DAY));
+        queries.put("rollups.findTopStructuresByRevenue",
+                () -> revenueRollupRepository.findTopStructuresByRevenue(DAY.minusDays(30), DAY, PageRequest.of(0, 5)));
+        queries.put("rollups.getRevenueByCategory",
+                () -> revenueRollupRepository.getRevenueByCategory(DAY.minusDays(30), DAY));
+        queries.put("rollups.getRevenueByCategoryAndStructureId",
+                () -> revenueRollupRepository.getRevenueByCategoryAndStructureId(DAY.minusDays(30), DAY, structureId));
+        queries.put("rollups.aggregateCube by category", () -> revenueRollupRepository.aggregateCube(
+                List.of(Dimension.CATEGORY, Dimension.STATUS),
+                new CubeFilter(DAY.minusDays(30), DAY, null, List.of("Catégorie 3"), null), 1000));
+
+        return queries.entrySet().stream().map(entry -> DynamicTest.dynamicTest(entry.getKey(), () -> {
+            List<RecordedQuery> recorded = record(entry.getValue());
+            assertThat(recorded).as("requête SQL émise").isNotEmpty();
+            for (RecordedQuery query : recorded) {
+                String plan = explain(query);
+                assertThat(FULL_SCAN.matcher(plan).find())
+                        .as("%s parcourt une table entière :%n%s", entry.getKey(), plan)
+                        .isFalse();
+            }
+        }));
+    }
+
+    private List<RecordedQuery> record(Runnable query) {
+        RecordingConfig.RECORDED.get().clear();
+        RecordingConfig.RECORDING.set(true);
+        try {
+            // Mises à jour et suppressions annulées : les cas restent indépendants des données
+            transactionTemplate.executeWithoutResult(status -> {
+                query.run();
+                status.setRollbackOnly();
+            });
+        } finally {
+            RecordingConfig.RECORDING.set(false);
+        }
+        return new ArrayList<>(RecordingConfig.RECORDED.get());
+    }
+
+    private String explain(RecordedQuery query) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + query.sql())) {
+            for (Map.Entry<Integer, Object> parameter : query.parameters().entrySet()) {
+                statement.setObject(parameter.getKey(), parameter.getValue());
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1));
+                }
+            }
+            return plan.toString();
+        }
+    }
+
+    record RecordedQuery(String sql, Map<Integer, Object> parameters) {
+    }
+
+    /**
+     * Enregistre les SELECT, UPDATE et DELETE exécutés (SQL et paramètres) sur le thread du test
+     * pendant l'enregistrement.
+     */
+    @TestConfiguration
+    static class RecordingConfig {
+
+        static final ThreadLocal<Boolean> RECORDING = ThreadLocal.withInitial(() -> false);
+        static final ThreadLocal<List<RecordedQuery>> RECORDED = ThreadLocal.withInitial(ArrayList::new);
+        private static final Pattern RECORDED_STATEMENT = Pattern.compile("\\s*(select|update|delete)\\b",
+                Pattern.CASE_INSENSITIVE);
+
+        @Bean
+        static BeanPostProcessor recordingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? recording(dataSource) : bean;
+                }
+            };
+        }
+
+        private static DataSource recording(DataSource target) {
+            return proxy(DataSource.class, (proxy, method, args) -> {
+                Object result = invoke(target, method, args);
+                return result instanceof Connection connection ? recording(connection) : result;
+            });
+        }
+
+        private static Connection recording(Connection target) {
+            return proxy(Connection.class, (proxy, method, args) -> {
+                Object result = invoke(target, method, args);
+                if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                    return recording(statement, (String) args[0]);
+                }
+                return result;
+            });
+        }
+
+        private static PreparedStatement recording(PreparedStatement target, String sql) {
+            Map<Integer, Object> parameters = new TreeMap<>();
+            return proxy(PreparedStatement.class, (proxy, method, args) -> {
+                String name = method.getName();
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                    parameters.put(index, args[1]);
+                } else if ((name.equals("executeQuery") || name.equals("executeUpdate")) && (args == null || args.length == 0)
+                        && RECORDING.get() && RECORDED_STATEMENT.matcher(sql).lookingAt()) {
+                    RECORDED.get().add(new RecordedQuery(sql, new TreeMap<>(parameters)));
+                }
+                return invoke(target, method, args);
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, java.lang.reflect.InvocationHandler handler) {
+            return (T) Proxy.newProxyInstance(RecordingConfig.class.getClassLoader(), new Class<?>[]{type}, handler);
+        }
+
+        private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void neverForgetsAnAddedReference() {
+        BloomFilter filter = new BloomFilter(100_000, 0.001);
+        for (int i = 0; i < 100_000; i++) {
+            filter.add("REF-" + i);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(filter.mightContain("REF-" + i), "REF-" + i);
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTargetAtCapacity() {
+        BloomFilter filter = new BloomFilter(100_000, 0.001);
+        for (int i = 0; i < 100_000; i++) {
+            filter.add("REF-" + i);
+        }
+        int falsePositives = 0;
+        int probes = 200_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("UNKNOWN-" + i)) {
+                falsePositives++;
+            }
+        }
+        // 0,1 % visé : on tolère le double pour absorber la variance
+        assertTrue(falsePositives < probes * 0.002, "faux positifs : " + falsePositives);
+    }
+}
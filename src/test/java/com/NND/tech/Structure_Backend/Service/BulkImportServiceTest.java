@@ -0,0 +1,131 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.DTO.ImportChunkReport;
+import com.NND.tech.Structure_Backend.DTO.ImportSummary;
+import com.NND.tech.Structure_Backend.Repository.ServiceRepository;
+import com.NND.tech.Structure_Backend.Repository.TransactionRepository;
+import com.NND.tech.Structure_Backend.model.entity.ServiceEntity;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class BulkImportServiceTest {
+
+    private static final LocalDate DAY = LocalDate.now();
+
+    @Autowired private TransactionFixtures fixtures;
+    @Autowired private BulkImportService importService;
+    @Autowired private TransactionRepository transactionRepository;
+    @Autowired private ServiceRepository serviceRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void badLinesAreRejectedWithoutFailingTheirChunk() {
+        ServiceEntity service = fixtures.createService("Structure import");
+        String prefix = "IMP-" + UUID.randomUUID() + "-";
+        String csv = "reference,amount,transactionDate,serviceId,status\n"
+                + prefix + "1,100,%s,%d,SUCCESS\n".formatted(DAY, service.getId())
+                + prefix + "2,pas-un-montant,%s,%d,SUCCESS\n".formatted(DAY, service.getId())
+                + "\"non fermé,100,%s,%d\n".formatted(DAY, service.getId())
+                + prefix + "3,100,%s,%d,INCONNU\n".formatted(DAY, service.getId())
+                + prefix + "1,100,%s,%d,SUCCESS\n".formatted(DAY, service.getId())
+                + prefix + "4,100,%s,%d,PENDING\n".formatted(DAY, service.getId());
+
+        List<ImportChunkReport> reports = new ArrayList<>();
+        ImportSummary summary = importService.importTransactions(stream(csv), DataFormat.CSV, 100, reports::add);
+
+        assertThat(reports).hasSize(1);
+        ImportChunkReport chunk = reports.get(0);
+        assertThat(chunk.isCommitted()).isTrue();
+        assertThat(chunk.getImported()).isEqualTo(2);
+        assertThat(chunk.getRejected()).isEqualTo(4);
+        assertThat(chunk.getErrors()).extracting(ImportChunkReport.LineError::getLine).containsExactly(3L, 4L, 5L, 6L);
+        assertThat(summary.getImported()).isEqualTo(2);
+        assertThat(transactionRepository.findExistingReferences(List.of(prefix + "1", prefix + "4")))
+                .containsExactlyInAnyOrder(prefix + "1", prefix + "4");
+    }
+
+    @Test
+    void failedChunkIsRolledBackAndTheNextOneCommits() {
+        ServiceEntity service = fixtures.createService("Structure import");
+        String prefix = "IMP-" + UUID.randomUUID() + "-";
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            // Description trop longue pour la colonne : l'écriture du premier lot échoue en base
+            String description = i == 1 ? "x".repeat(300) : "ligne " + i;
+            ndjson.append("{\"reference\":\"%s%d\",\"amount\":250,\"transactionDate\":\"%s\",\"serviceId\":%d,\"description\":\"%s\"}\n"
+                    .formatted(prefix, i, DAY, service.getId(), description));
+        }
+
+        List<ImportChunkReport> reports = new ArrayList<>();
+        ImportSummary summary = importService.importTransactions(stream(ndjson.toString()), DataFormat.NDJSON, 3, reports::add);
+
+        assertThat(reports).extracting(ImportChunkReport::isCommitted).containsExactly(false, true);
+        assertThat(reports.get(0).getImported()).isZero();
+        assertThat(reports.get(0).getRejected()).isEqualTo(3);
+        assertThat(reports.get(0).getErrors()).allSatisfy(error -> assertThat(error.getMessage()).startsWith("Lot annulé"));
+        assertThat(summary.getImported()).isEqualTo(3);
+        List<String> stored = transactionRepository.findExistingReferences(
+                List.of(prefix + 0, prefix + 1, prefix + 2, prefix + 3, prefix + 4, prefix + 5));
+        assertThat(stored).containsExactlyInAnyOrder(prefix + 3, prefix + 4, prefix + 5);
+    }
+
+    @Test
+    void namesOfARolledBackServiceChunkCanBeImportedAgain() {
+        Long structureId = fixtures.createService("Structure import").getStructure().getId();
+        String csv = "name,category,description\n"
+                + "Coupe,Coiffure,\n"
+                + "Brushing,Coiffure," + "x".repeat(300) + "\n"
+                + "Coupe,Coiffure,\n";
+
+        List<ImportChunkReport> reports = new ArrayList<>();
+        importService.importServices(structureId, stream(csv), DataFormat.CSV, 2, reports::add);
+
+        // Le premier lot est annulé : "Coupe" n'existe pas, la ligne 4 n'est pas un doublon
+        assertThat(reports).extracting(ImportChunkReport::isCommitted).containsExactly(false, true);
+        assertThat(reports.get(1).getImported()).isEqualTo(1);
+        assertThat(serviceRepository.findNamesByStructureId(structureId)).contains("Coupe").doesNotContain("Brushing");
+    }
+
+    @Test
+    void chunkInsertsAreBatched() {
+        ServiceEntity service = fixtures.createService("Structure import");
+        String prefix = "IMP-" + UUID.randomUUID() + "-";
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 1_000; i++) {
+            ndjson.append("{\"reference\":\"%s%d\",\"amount\":10,\"transactionDate\":\"%s\",\"serviceId\":%d}\n"
+                    .formatted(prefix, i, DAY, service.getId()));
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+        try {
+            ImportSummary summary = importService.importTransactions(stream(ndjson.toString()), DataFormat.NDJSON,
+                    1_000, report -> { });
+            assertThat(summary.getImported()).isEqualTo(1_000);
+            assertThat(statistics.getEntityInsertCount()).isEqualTo(1_000);
+            // Inserts par lots de 500 et identifiants réservés par blocs : quelques requêtes pour mille lignes
+            assertThat(statistics.getPrepareStatementCount()).isLessThan(20);
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
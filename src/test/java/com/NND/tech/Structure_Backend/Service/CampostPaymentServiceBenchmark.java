@@ -0,0 +1,95 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.config.CampostHttpClientConfig;
+import com.NND.tech.Structure_Backend.config.CampostProperties;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Latence des appels CamPost contre un bouchon HTTP local : client mutualisé (connexions conservées)
+ * contre une connexion neuve par requête ({@link SimpleClientHttpRequestFactory} et
+ * {@code Connection: close}), comme avant le pool. Aucune assertion, les mesures sont seulement
+ * affichées ; hors de la suite (le nom ne correspond pas aux classes de test de surefire), à lancer
+ * avec {@code mvn test -Dtest=CampostPaymentServiceBenchmark}.
+ */
+class CampostPaymentServiceBenchmark {
+
+    private static final int WARMUP = 500;
+    private static final int CALLS = 5_000;
+
+    // Port client de chaque connexion acceptée par le bouchon
+    private final Set<Integer> connections = ConcurrentHashMap.newKeySet();
+
+    @Test
+    void comparePooledAndPerRequestConnections() throws Exception {
+        // Sans TCP_NODELAY, le bouchon retarde chaque réponse d'un ACK différé sur une connexion conservée
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        HttpServer stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stub.createContext("/status/", exchange -> {
+            connections.add(exchange.getRemoteAddress().getPort());
+            byte[] body = "{\"status\":\"SUCCESS\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        ExecutorService stubThreads = Executors.newFixedThreadPool(4);
+        stub.setExecutor(stubThreads);
+        stub.start();
+
+        CampostProperties props = new CampostProperties();
+        props.setApiBaseUrl("http://localhost:" + stub.getAddress().getPort());
+        CampostHttpClientConfig config = new CampostHttpClientConfig();
+        PoolingHttpClientConnectionManager connectionManager = config.campostConnectionManager(props, new SimpleMeterRegistry());
+        try (CloseableHttpClient httpClient = config.campostHttpClient(connectionManager, props)) {
+            RestTemplate pooled = config.campostRestTemplate(new RestTemplateBuilder(), httpClient, props);
+            RestTemplate perRequest = new RestTemplateBuilder()
+                    .rootUri(props.getApiBaseUrl())
+                    .requestFactory(SimpleClientHttpRequestFactory.class)
+                    .defaultHeader(HttpHeaders.CONNECTION, "close")
+                    .build();
+
+            measure("connexion par requête", new CampostPaymentService(perRequest, props));
+            measure("client mutualisé     ", new CampostPaymentService(pooled, props));
+        } finally {
+            stub.stop(0);
+            stubThreads.shutdownNow();
+        }
+    }
+
+    private void measure(String label, CampostPaymentService service) {
+        for (int i = 0; i < WARMUP; i++) {
+            service.getStatusByReference("REF-" + i);
+        }
+        connections.clear();
+        long[] nanos = new long[CALLS];
+        for (int i = 0; i < CALLS; i++) {
+            long start = System.nanoTime();
+            service.getStatusByReference("REF-" + i);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        // Ports distincts : un port libéré peut resservir, la valeur minore le nombre de connexions ouvertes
+        System.out.printf("%s : %d appels, %d ports clients, moyenne %d us, p50 %d us, p99 %d us%n", label, CALLS,
+                connections.size(), Arrays.stream(nanos).sum() / CALLS / 1_000,
+                nanos[CALLS / 2] / 1_000, nanos[CALLS * 99 / 100] / 1_000);
+    }
+}
@@ -0,0 +1,105 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Appels CamPost contre un bouchon HTTP local : les connexions sont réutilisées et les métriques
+ * du pool et des points d'accès sont exportées.
+ */
+@SpringBootTest
+class CampostPaymentServiceTest {
+
+    private static final HttpServer STUB = startStub();
+    // Port client de chaque connexion acceptée par le bouchon
+    private static final Set<Integer> CONNECTIONS = ConcurrentHashMap.newKeySet();
+
+    @Autowired private CampostPaymentService campostService;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void campostStub(DynamicPropertyRegistry registry) {
+        registry.add("campost.api-base-url", () -> "http://localhost:" + STUB.getAddress().getPort());
+        registry.add("campost.max-connections-per-route", () -> "8");
+    }
+
+    @AfterAll
+    static void stopStub() {
+        STUB.stop(0);
+    }
+
+    @Test
+    void reusesKeptAliveConnectionsAndExportsMetrics() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            assertThat(campostService.getStatusByReference("REF-" + i)).containsEntry("status", "SUCCESS");
+        }
+        assertThat(CONNECTIONS).hasSize(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        try {
+            List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < 320; i++) {
+                String reference = "REF-" + i;
+                calls.add(pool.submit(() -> campostService.getStatusByReference(reference)));
+            }
+            for (Future<?> call : calls) {
+                call.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        // Au plus une connexion par place du pool pour la route CamPost
+        assertThat(CONNECTIONS.size()).isLessThanOrEqualTo(8);
+
+        assertThat(meterRegistry.get("http.client.requests").tag("uri", "/status/{reference}").timer().count())
+                .isEqualTo(520);
+        assertThat(meterRegistry.get("httpcomponents.httpclient.pool.route.max.default").tag("httpclient", "campost")
+                .gauge().value()).isEqualTo(8);
+        assertThat(meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+                .tags("httpclient", "campost", "state", "available").gauge().value()).isPositive();
+    }
+
+    private static HttpServer startStub() {
+        // Sans TCP_NODELAY, le bouchon retarde chaque réponse d'un ACK différé sur une connexion conservée
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/status/", exchange -> {
+                CONNECTIONS.add(exchange.getRemoteAddress().getPort());
+                byte[] body = "{\"status\":\"SUCCESS\"}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.setExecutor(Executors.newFixedThreadPool(16));
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.event.TransactionChange;
+import com.NND.tech.Structure_Backend.event.TransactionChangedEvent;
+import com.NND.tech.Structure_Backend.event.TransactionSnapshot;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest(properties = {
+        "app.stats.stream.window=PT0.05S",
+        "app.stats.stream.heartbeat=PT0.3S"})
+@AutoConfigureMockMvc
+class LiveStatsBroadcasterTest {
+
+    private static final long BUSY_STRUCTURE = 900_001L;
+    private static final long QUIET_STRUCTURE = 900_002L;
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private LiveStatsBroadcaster broadcaster;
+
+    @Test
+    void quietSubscribersGetHeartbeatsWhileOtherStructuresAreBusy() throws Exception {
+        MvcResult busy = subscribe(BUSY_STRUCTURE);
+        MvcResult quiet = subscribe(QUIET_STRUCTURE);
+
+        // Une confirmation toutes les 50 ms sur une seule structure, pendant plus de deux intervalles de maintien
+        for (int i = 0; i < 20; i++) {
+            TransactionSnapshot confirmed = new TransactionSnapshot((long) i, BUSY_STRUCTURE, 1L, LocalDate.now(),
+                    LiveStatsBroadcaster.CONFIRMED_STATUS, BigDecimal.valueOf(100), null, null);
+            broadcaster.onTransactionChanged(new TransactionChangedEvent(List.of(new TransactionChange(null, confirmed))));
+            Thread.sleep(50);
+        }
+        Thread.sleep(200);
+
+        String busyContent = busy.getResponse().getContentAsString();
+        assertThat(busyContent).contains("event:revenue").contains("\"structureId\":" + BUSY_STRUCTURE);
+        assertThat(totalCount(busyContent)).isEqualTo(20);
+        String quietContent = quiet.getResponse().getContentAsString();
+        assertThat(quietContent).contains(":heartbeat").doesNotContain("event:revenue");
+    }
+
+    private MvcResult subscribe(long structureId) throws Exception {
+        return mockMvc.perform(get("/api/stats/stream").param("structureId", String.valueOf(structureId)).with(user("live")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    // Somme des countDelta reçus : aucune fenêtre perdue ni comptée deux fois
+    private static long totalCount(String content) {
+        long total = 0;
+        for (String part : content.split("\"countDelta\":")) {
+            if (Character.isDigit(part.charAt(0)) || part.charAt(0) == '-') {
+                total += Long.parseLong(part.substring(0, part.indexOf(',')));
+            }
+        }
+        return total;
+    }
+}
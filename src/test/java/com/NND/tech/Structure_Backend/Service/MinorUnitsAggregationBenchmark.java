@@ -0,0 +1,68 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.Random;
+
+/**
+ * Microbenchmark des sommes d'argent : ancien chemin (double puis arrondi via BigDecimal) contre
+ * accumulation en unités mineures. Aucune assertion, les mesures sont seulement affichées ;
+ * hors de la suite (le nom ne correspond pas aux classes de test de surefire), à lancer avec
+ * {@code mvn test -Dtest=MinorUnitsAggregationBenchmark}.
+ */
+class MinorUnitsAggregationBenchmark {
+
+    private static final int N = 1_000_000;
+    private static final int WARMUP = 10;
+    private static final int RUNS = 20;
+
+    @Test
+    void compareDoubleAndMinorUnitSums() {
+        BigDecimal[] amounts = new BigDecimal[N];
+        long[] amountsMinor = new long[N];
+        Random random = new Random(11);
+        for (int i = 0; i < N; i++) {
+            amounts[i] = BigDecimal.valueOf(random.nextLong(10_000_000_000L), 2);
+            amountsMinor[i] = MinorUnits.of(amounts[i]);
+        }
+
+        for (int i = 0; i < WARMUP; i++) {
+            MinorUnitsAggregationTest.sumAsDouble(amounts);
+            MinorUnitsAggregationTest.sumAsMinorUnits(amountsMinor);
+        }
+
+        // Le résultat est accumulé pour que le JIT ne supprime pas les boucles
+        double doubleSink = 0;
+        long doubleNanos = 0;
+        long doubleAllocated = 0;
+        long minorSink = 0;
+        long minorNanos = 0;
+        long minorAllocated = 0;
+        for (int run = 0; run < RUNS; run++) {
+            long allocated = allocatedBytes();
+            long start = System.nanoTime();
+            doubleSink += MinorUnitsAggregationTest.sumAsDouble(amounts);
+            doubleNanos += System.nanoTime() - start;
+            doubleAllocated += allocatedBytes() - allocated;
+
+            allocated = allocatedBytes();
+            start = System.nanoTime();
+            minorSink += MinorUnitsAggregationTest.sumAsMinorUnits(amountsMinor);
+            minorNanos += System.nanoTime() - start;
+            minorAllocated += allocatedBytes() - allocated;
+        }
+
+        System.out.printf("n=%d, %d passes%n", N, RUNS);
+        System.out.printf("  double+BigDecimal : %8d us/passe, %10d octets alloués/passe (total %.2f)%n",
+                doubleNanos / RUNS / 1_000, doubleAllocated / RUNS, doubleSink);
+        System.out.printf("  long (mineures)   : %8d us/passe, %10d octets alloués/passe (total %d)%n",
+                minorNanos / RUNS / 1_000, minorAllocated / RUNS, minorSink);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
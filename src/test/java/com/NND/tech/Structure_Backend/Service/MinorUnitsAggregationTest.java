@@ -0,0 +1,62 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class MinorUnitsAggregationTest {
+
+    private static final int N = 1_000_000;
+
+    @Test
+    void convertsBetweenDecimalAndMinorUnits() {
+        assertEquals(123_456L, MinorUnits.of(new BigDecimal("1234.56")));
+        assertEquals(150L, MinorUnits.of(new BigDecimal("1.5")));
+        assertEquals(0L, MinorUnits.of(null));
+        assertEquals(new BigDecimal("1234.56"), MinorUnits.toDecimal(123_456L));
+        assertEquals(1234.56, MinorUnits.toMajor(123_456L));
+    }
+
+    /**
+     * Somme d'un million de montants XAF importants : exacte en unités mineures, alors que
+     * l'ancien chemin (double puis arrondi via BigDecimal) perd des centimes.
+     */
+    @Test
+    void longAccumulationIsExact() {
+        BigDecimal[] amounts = new BigDecimal[N];
+        long[] amountsMinor = new long[N];
+        Random random = new Random(11);
+        BigDecimal exact = BigDecimal.ZERO;
+        for (int i = 0; i < N; i++) {
+            amounts[i] = BigDecimal.valueOf(random.nextLong(10_000_000_000L), 2);
+            amountsMinor[i] = MinorUnits.of(amounts[i]);
+            exact = exact.add(amounts[i]);
+        }
+
+        assertEquals(exact, MinorUnits.toDecimal(sumAsMinorUnits(amountsMinor)), "long minor units must be exact");
+        assertNotEquals(exact, BigDecimal.valueOf(sumAsDouble(amounts)).setScale(2, RoundingMode.HALF_UP),
+                "the double path loses cents on totals of this size");
+    }
+
+    // Chemin d'origine : conversion en double puis arrondi via un nouveau BigDecimal
+    static double sumAsDouble(BigDecimal[] amounts) {
+        double total = 0;
+        for (BigDecimal amount : amounts) {
+            total += amount.doubleValue();
+        }
+        return BigDecimal.valueOf(total).setScale(2, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    static long sumAsMinorUnits(long[] amountsMinor) {
+        long total = 0;
+        for (long amountMinor : amountsMinor) {
+            total += amountMinor;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,61 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.model.entity.Transaction;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PaymentStatusBroadcasterTest {
+
+    @Autowired private TransactionFixtures fixtures;
+    @Autowired private MockMvc mockMvc;
+    @Autowired private PaymentStatusBroadcaster broadcaster;
+    @Autowired private TransactionStatusService statusService;
+
+    @Test
+    void pushesTheWebhookStatusToEverySubscriberWithoutHoldingThreads() throws Exception {
+        List<Transaction> orders = fixtures.createPending("Structure flux", 20);
+        MvcResult stream = mockMvc.perform(get("/api/paiements/stream/" + orders.get(0).getOrderId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Cent abonnés par commande : aucun thread créé, aucune interrogation avant le rattrapage
+        int baseline = broadcaster.getSubscriberCount();
+        int threads = Thread.activeCount();
+        for (Transaction tx : orders) {
+            for (int i = 0; i < 100; i++) {
+                broadcaster.subscribe(tx.getOrderId());
+            }
+        }
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(baseline + 2_000);
+        assertThat(Thread.activeCount() - threads).isLessThan(10);
+
+        // Statut final reçu par webhook : poussé puis flux fermés
+        for (Transaction tx : orders) {
+            statusService.transition(tx.getId(), TransactionStatusService.SUCCESS);
+        }
+        assertThat(stream.getResponse().getContentAsString())
+                .contains("event:status")
+                .contains("\"orderId\":\"" + orders.get(0).getOrderId() + "\"")
+                .contains("\"status\":\"SUCCESS\"");
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(baseline - 1);
+
+        // Commande déjà finale : statut envoyé dès l'abonnement
+        MvcResult late = mockMvc.perform(get("/api/paiements/stream/" + orders.get(1).getOrderId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(late.getResponse().getContentAsString()).contains("\"status\":\"SUCCESS\"");
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(baseline - 1);
+    }
+}
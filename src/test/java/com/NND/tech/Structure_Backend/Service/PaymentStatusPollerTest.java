@@ -0,0 +1,92 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.Repository.TransactionRepository;
+import com.NND.tech.Structure_Backend.config.CampostProperties;
+import com.NND.tech.Structure_Backend.model.entity.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class PaymentStatusPollerTest {
+
+    @Autowired private TransactionFixtures fixtures;
+    @Autowired private TransactionRepository transactionRepository;
+    @Autowired private TransactionStatusService statusService;
+
+    @Test
+    void resolvesManyPendingOrdersFromOneSchedulerWithBackoffAndTimeouts() throws Exception {
+        // Référence suffixée par le rang : le bouchon en déduit la parité
+        String run = UUID.randomUUID().toString();
+        List<Transaction> orders = fixtures.create(fixtures.createService("Structure suivi"), 500, (t, i) -> {
+            t.setReference("POLL-" + run + "-" + i);
+            t.setAmount(BigDecimal.valueOf(500));
+            t.setStatus(TransactionStatusService.PENDING);
+        });
+        // CamPost : paiement abouti ou annulé au troisième appel pour les commandes paires, jamais pour les
+        // impaires, dont la moitié reste sur un statut inconnu du service
+        Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+        RestTemplate provider = new RestTemplateBuilder().rootUri("http://campost.test").additionalInterceptors((request, body, execution) -> {
+            String path = request.getURI().getPath();
+            String reference = path.substring(path.lastIndexOf('/') + 1);
+            int call = calls.computeIfAbsent(reference, key -> new AtomicInteger()).incrementAndGet();
+            long rank = Long.parseLong(reference.substring(reference.lastIndexOf('-') + 1));
+            String status = rank % 2 == 1 ? (rank % 4 == 1 ? "CREATED" : "PROCESSING")
+                    : call < 3 ? "CREATED" : rank % 4 == 0 ? "SUCCESS" : "cancelled";
+            MockClientHttpResponse response = new MockClientHttpResponse(
+                    ("{\"status\":\"" + status + "\"}").getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            return response;
+        }).build();
+        CampostProperties props = new CampostProperties();
+        props.setPublicKey("test");
+        PaymentStatusPoller poller = new PaymentStatusPoller(new CampostPaymentService(provider, props),
+                transactionRepository, statusService, new SimpleMeterRegistry(), Duration.ofMillis(50),
+                Duration.ofSeconds(5), Duration.ofMinutes(1), 100, 8);
+        try {
+            // Le suivi rend la main sans appeler CamPost ni attendre
+            List<CompletableFuture<String>> results = new ArrayList<>();
+            for (Transaction tx : orders) {
+                results.add(poller.watch(tx.getOrderId(), 10_000, 1_000));
+            }
+            assertThat(results).noneMatch(CompletableFuture::isDone);
+            assertThat(calls).isEmpty();
+
+            long deadline = System.currentTimeMillis() + 60_000;
+            while (results.stream().anyMatch(r -> !r.isDone()) && System.currentTimeMillis() < deadline) {
+                poller.tick();
+                Thread.sleep(20);
+            }
+            for (int i = 0; i < orders.size(); i++) {
+                Transaction tx = orders.get(i);
+                // Annulation enregistrée comme par le webhook ; statut inconnu : suivi jusqu'à l'échéance
+                String expected = i % 2 == 1 ? "TIMEOUT" : i % 4 == 0 ? "SUCCESS" : "FAILED";
+                assertThat(results.get(i).getNow(null)).isEqualTo(expected);
+                assertThat(transactionRepository.findStatusById(tx.getId()).orElseThrow().getStatus()).isEqualTo(expected);
+            }
+            // Intervalles croissants (1 s, 1,5 s, 2,25 s, 3,4 s) : au plus cinq appels en 10 s par commande
+            assertThat(calls.values()).allMatch(count -> count.get() <= 5);
+        } finally {
+            poller.shutdown();
+        }
+    }
+}
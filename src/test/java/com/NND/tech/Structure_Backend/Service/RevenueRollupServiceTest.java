@@ -0,0 +1,110 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.DTO.ServiceDto;
+import com.NND.tech.Structure_Backend.Repository.RevenueRollupRepository;
+import com.NND.tech.Structure_Backend.model.entity.ServiceEntity;
+import com.NND.tech.Structure_Backend.model.entity.Transaction;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class RevenueRollupServiceTest {
+
+    @Autowired private TransactionFixtures fixtures;
+    @Autowired private RevenueRollupService rollupService;
+    @Autowired private RevenueRollupRepository rollupRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private ServiceService serviceService;
+    @Autowired private TransactionStatusService statusService;
+
+    @Test
+    void writesWaitForTheRebuildLock() throws Exception {
+        ServiceEntity service = fixtures.createService("Rollups verrou");
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            CompletableFuture<Future<?>> pending = new CompletableFuture<>();
+            transactionTemplate.executeWithoutResult(status -> {
+                rollupRepository.lockForRebuild();
+                pending.complete(writer.submit(() -> create(service, 1)));
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                // L'écriture attend toujours la fin de la reconstruction
+                assertThat(pending.join().isDone()).isFalse();
+            });
+            pending.join().get(10, TimeUnit.SECONDS);
+        } finally {
+            writer.shutdownNow();
+        }
+        assertThat(rollupRepository.getTotalsByStructureId(service.getStructure().getId()).getTransactionCount())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void concurrentWritesDuringRebuildsAreCountedOnce() throws Exception {
+        ServiceEntity service = fixtures.createService("Rollups reconstruction");
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                writes.add(pool.submit(() -> create(service, 5)));
+            }
+            for (int i = 0; i < 5; i++) {
+                rollupService.rebuild();
+            }
+            for (Future<?> write : writes) {
+                write.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        RevenueRollupRepository.RevenueTotal totals = rollupRepository.getTotalsByStructureId(service.getStructure().getId());
+        assertThat(totals.getTransactionCount()).isEqualTo(200);
+        assertThat(totals.getAmountMinor()).isEqualTo(200 * 25_000L);
+    }
+
+    @Test
+    void categoryChangeAppliesToTheServiceHistory() {
+        ServiceEntity service = fixtures.createService("Rollups catégorie");
+        List<Transaction> created = fixtures.create(service, 3, (t, i) -> {
+            t.setAmount(BigDecimal.valueOf(250));
+            t.setStatus(TransactionStatusService.PENDING);
+        });
+
+        ServiceDto dto = serviceService.findById(service.getId());
+        dto.setCategory("Coiffure");
+        serviceService.update(service.getId(), dto);
+        // Delta d'une transaction écrite avant le changement de catégorie
+        statusService.transition(created.get(0).getId(), TransactionStatusService.SUCCESS);
+
+        LocalDate today = LocalDate.now();
+        assertThat(rollupRepository.getRevenueByCategoryAndStructureId(today, today, service.getStructure().getId()))
+                .singleElement()
+                .satisfies(row -> {
+                    assertThat(row.getCategory()).isEqualTo("Coiffure");
+                    assertThat(row.getTransactionCount()).isEqualTo(3);
+                    assertThat(row.getAmountMinor()).isEqualTo(3 * 25_000L);
+                });
+    }
+
+    private void create(ServiceEntity service, int count) {
+        fixtures.create(service, count, (t, i) -> t.setAmount(BigDecimal.valueOf(250)));
+    }
+}
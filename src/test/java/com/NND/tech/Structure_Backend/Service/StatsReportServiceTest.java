@@ -0,0 +1,193 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.DTO.StatsReportJobDto;
+import com.NND.tech.Structure_Backend.DTO.StatsReportRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Un seul thread, une place en file : le deuxième rapport attend, le troisième est refusé.
+// Cinq rapports terminés gardés : plus que ce qu'un test en attend à la fois.
+@SpringBootTest(properties = {
+        "app.stats.reports.threads=1",
+        "app.stats.reports.queue-capacity=1",
+        "app.stats.reports.max-active-per-user=2",
+        "app.stats.reports.max-retained=5"})
+@AutoConfigureMockMvc
+class StatsReportServiceTest {
+
+    private static final StatsReportRequest TOP_STRUCTURES =
+            StatsReportRequest.builder().type(StatsReportRequest.Type.TOP_STRUCTURES).build();
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private StatsReportService reportService;
+    @Autowired private ObjectMapper objectMapper;
+    @MockBean private StatsService statsService;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<String[]> submitted = new ArrayList<>();
+
+    @BeforeEach
+    void blockReportsUntilReleased() {
+        when(statsService.getTopPerformingStructures(anyInt(), any(), any())).thenAnswer(invocation -> {
+            release.await(30, TimeUnit.SECONDS);
+            return List.of(Map.of("structureId", 1L));
+        });
+    }
+
+    @AfterEach
+    void finishReports() throws InterruptedException {
+        release.countDown();
+        for (String[] job : submitted) {
+            awaitStatus(job[0], job[1], StatsReportService.STATUS_SUCCEEDED);
+        }
+    }
+
+    @Test
+    void fullQueueIsRejectedWith503() throws Exception {
+        StatsReportJobDto running = submit("alice");
+        awaitStatus("alice", running.getId(), StatsReportService.STATUS_RUNNING);
+        StatsReportJobDto queued = submit("bob");
+
+        assertThatThrownBy(() -> reportService.submit("carol", TOP_STRUCTURES))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+
+        // Le refus ne compte pas parmi les rapports actifs de l'utilisateur
+        release.countDown();
+        awaitStatus("bob", queued.getId(), StatsReportService.STATUS_SUCCEEDED);
+        submit("carol");
+    }
+
+    @Test
+    void perUserLimitIsRejectedWith429() throws Exception {
+        StatsReportJobDto first = submit("dave");
+        awaitStatus("dave", first.getId(), StatsReportService.STATUS_RUNNING);
+        StatsReportJobDto second = submit("dave");
+
+        mockMvc.perform(post("/api/stats/reports").with(user("dave"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(TOP_STRUCTURES)))
+                .andExpect(status().isTooManyRequests());
+
+        release.countDown();
+        awaitStatus("dave", second.getId(), StatsReportService.STATUS_SUCCEEDED);
+        submit("dave");
+    }
+
+    @Test
+    void reportsAreVisibleToTheirOwnerOnly() throws Exception {
+        MvcResult accepted = mockMvc.perform(post("/api/stats/reports").with(user("erin"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(TOP_STRUCTURES)))
+                .andExpect(status().isAccepted())
+                .andReturn();
+        String id = objectMapper.readValue(accepted.getResponse().getContentAsString(), StatsReportJobDto.class).getId();
+        submitted.add(new String[]{"erin", id});
+
+        mockMvc.perform(get("/api/stats/reports/" + id).with(user("erin"))).andExpect(status().isOk());
+        mockMvc.perform(get("/api/stats/reports/" + id).with(user("frank"))).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/stats/reports/" + id + "/events").with(user("frank"))).andExpect(status().isNotFound());
+        release.countDown();
+        awaitStatus("erin", id, StatsReportService.STATUS_SUCCEEDED);
+        mockMvc.perform(get("/api/stats/reports/" + id + "/result").with(user("frank"))).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/stats/reports/" + id + "/result").with(user("erin"))).andExpect(status().isOk());
+        mockMvc.perform(get("/api/stats/reports/unknown").with(user("erin"))).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void progressStreamEndsWithTheReport() throws Exception {
+        StatsReportJobDto job = submit("grace");
+        MvcResult stream = mockMvc.perform(get("/api/stats/reports/" + job.getId() + "/events").with(user("grace")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        release.countDown();
+        // Le flux est fermé par le serveur une fois le rapport terminé
+        stream.getAsyncResult(10_000);
+        assertThat(stream.getResponse().getContentAsString())
+                .contains("event:progress")
+                .contains("\"status\":\"" + StatsReportService.STATUS_SUCCEEDED + "\"");
+
+        // Abonnement à un rapport déjà terminé : état final puis fin immédiate du flux
+        MvcResult late = mockMvc.perform(get("/api/stats/reports/" + job.getId() + "/events").with(user("grace")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        late.getAsyncResult(1_000);
+        assertThat(late.getResponse().getContentAsString())
+                .contains("\"status\":\"" + StatsReportService.STATUS_SUCCEEDED + "\"");
+    }
+
+    @Test
+    void oldestFinishedReportsAreForgottenBeyondTheCap() throws Exception {
+        release.countDown();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            String id = reportService.submit("heidi", TOP_STRUCTURES).getId();
+            awaitStatus("heidi", id, StatsReportService.STATUS_SUCCEEDED);
+            ids.add(id);
+        }
+
+        // L'éviction suit la publication du statut du dernier rapport : elle peut arriver juste après
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (isKnown("heidi", ids.get(0)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThatThrownBy(() -> reportService.getStatus("heidi", ids.get(0)))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+        for (String id : ids.subList(1, ids.size())) {
+            assertThat(reportService.getResult("heidi", id)).isNotNull();
+        }
+    }
+
+    private StatsReportJobDto submit(String owner) {
+        StatsReportJobDto job = reportService.submit(owner, TOP_STRUCTURES);
+        submitted.add(new String[]{owner, job.getId()});
+        return job;
+    }
+
+    private boolean isKnown(String owner, String id) {
+        try {
+            reportService.getStatus(owner, id);
+            return true;
+        } catch (ResponseStatusException e) {
+            return false;
+        }
+    }
+
+    private void awaitStatus(String owner, String id, String expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!expected.equals(reportService.getStatus(owner, id).getStatus()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(reportService.getStatus(owner, id).getStatus()).isEqualTo(expected);
+    }
+}
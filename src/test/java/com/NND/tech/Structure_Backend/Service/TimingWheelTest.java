@@ -0,0 +1,50 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    @Test
+    void firesEachItemOnceWithinOneTickOfItsDeadline() {
+        Random random = new Random(42);
+        TimingWheel<Integer> wheel = new TimingWheel<>(10, 64, 0);
+        Map<Integer, Long> dueAt = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            // Jusqu'à huit tours de roue
+            long due = random.nextInt(64 * 10 * 8);
+            dueAt.put(i, due);
+            wheel.schedule(i, due);
+        }
+        Map<Integer, Long> firedAt = new HashMap<>();
+        for (long now = 0; now <= 64 * 10 * 9; now += 1 + random.nextInt(25)) {
+            List<Integer> due = wheel.advance(now);
+            for (Integer item : due) {
+                assertThat(firedAt.put(item, now)).as("déclenché deux fois : %s", item).isNull();
+            }
+        }
+        assertThat(firedAt).hasSameSizeAs(dueAt);
+        assertThat(wheel.size()).isZero();
+        // Jamais avant l'échéance, au plus un tick (10) plus un pas d'avance (25) après
+        dueAt.forEach((item, due) -> assertThat(firedAt.get(item)).isBetween(due, due + 10 + 25));
+    }
+
+    @Test
+    void longJumpsDrainEveryElapsedDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 1_000);
+        wheel.schedule("past", 0);
+        wheel.schedule("soon", 1_250);
+        wheel.schedule("later", 50_000);
+        assertThat(wheel.advance(1_100)).containsExactly("past");
+        assertThat(wheel.advance(20_000)).containsExactly("soon");
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advance(49_999)).isEmpty();
+        assertThat(wheel.advance(50_000)).containsExactly("later");
+    }
+}
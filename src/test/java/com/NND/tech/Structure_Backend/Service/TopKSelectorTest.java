@@ -0,0 +1,74 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopKSelectorTest {
+
+    private static final Comparator<Long> BY_REVENUE_DESC = Comparator.reverseOrder();
+
+    @Test
+    void selectsTheKLargestInOrder() {
+        List<Long> revenues = randomRevenues(10_000, 42);
+        List<Long> expected = new ArrayList<>(revenues);
+        expected.sort(BY_REVENUE_DESC);
+
+        assertEquals(expected.subList(0, 25), TopKSelector.select(revenues, 25, BY_REVENUE_DESC));
+        assertEquals(expected, TopKSelector.select(revenues, 20_000, BY_REVENUE_DESC));
+        assertTrue(TopKSelector.select(revenues, 0, BY_REVENUE_DESC).isEmpty());
+    }
+
+    /**
+     * Benchmark par nombre de comparaisons (déterministe, contrairement au temps d'exécution) :
+     * le coût de la sélection est quasi linéaire en n et croît avec k, alors que le tri complet
+     * paie n log n quel que soit k.
+     */
+    @Test
+    void costGrowsWithKRatherThanWithFullSort() {
+        List<Long> revenues = randomRevenues(200_000, 7);
+
+        long fullSort = comparisonsOfFullSort(revenues);
+        long top10 = comparisonsOfSelect(revenues, 10);
+        long top1000 = comparisonsOfSelect(revenues, 1_000);
+
+        assertTrue(top10 < fullSort / 5, "top-10 should be far cheaper than a full sort");
+        assertTrue(top10 < top1000, "cost should grow with k");
+        assertTrue(top10 < 2L * revenues.size(), "top-10 should stay close to one comparison per element");
+    }
+
+    private static long comparisonsOfSelect(List<Long> revenues, int k) {
+        AtomicLong comparisons = new AtomicLong();
+        TopKSelector.select(revenues, k, counting(comparisons));
+        return comparisons.get();
+    }
+
+    private static long comparisonsOfFullSort(List<Long> revenues) {
+        AtomicLong comparisons = new AtomicLong();
+        new ArrayList<>(revenues).sort(counting(comparisons));
+        return comparisons.get();
+    }
+
+    private static Comparator<Long> counting(AtomicLong comparisons) {
+        return (a, b) -> {
+            comparisons.incrementAndGet();
+            return BY_REVENUE_DESC.compare(a, b);
+        };
+    }
+
+    private static List<Long> randomRevenues(int n, long seed) {
+        Random random = new Random(seed);
+        List<Long> revenues = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            revenues.add((long) random.nextInt(1_000_000));
+        }
+        return revenues;
+    }
+}
@@ -0,0 +1,220 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.DTO.ImportChunkReport;
+import com.NND.tech.Structure_Backend.DTO.ImportSummary;
+import com.NND.tech.Structure_Backend.DTO.TransactionDto;
+import com.NND.tech.Structure_Backend.DTO.TransactionExportRow;
+import com.NND.tech.Structure_Backend.DTO.TransactionPageDto;
+import com.NND.tech.Structure_Backend.DTO.TransactionSearchRequest;
+import com.NND.tech.Structure_Backend.Repository.RevenueRollupRepository;
+import com.NND.tech.Structure_Backend.Repository.TransactionRepository;
+import com.NND.tech.Structure_Backend.model.entity.ArchiveSegment;
+import com.NND.tech.Structure_Backend.model.entity.ServiceEntity;
+import com.NND.tech.Structure_Backend.model.entity.Transaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest
+class TransactionArchiveServiceTest {
+
+    @Autowired private TransactionFixtures fixtures;
+    @Autowired private TransactionArchiveService archiveService;
+    @Autowired private TransactionService transactionService;
+    @Autowired private BulkImportService importService;
+    @Autowired private RevenueRollupService rollupService;
+    @Autowired private RevenueRollupRepository rollupRepository;
+    @SpyBean private TransactionRepository transactionRepository;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private EntityManager entityManager;
+    @Value("${app.archive.directory}") private Path directory;
+
+    @Test
+    void confirmedColdTransactionsMoveToASegment() throws IOException {
+        LocalDate month = archiveService.cutoff().minusMonths(3);
+        ServiceEntity service = fixtures.createService("Archive déplacement");
+        List<Transaction> cold = List.of(
+                create(service, month.plusDays(9), true),
+                create(service, month.plusDays(2), true),
+                create(service, month.plusDays(5), true));
+        Transaction unconfirmed = create(service, month.plusDays(1), false);
+        Transaction hot = create(service, LocalDate.now(), true);
+
+        archiveService.archive();
+
+        for (Transaction tx : cold) {
+            assertThat(transactionRepository.findById(tx.getId())).isEmpty();
+        }
+        assertThat(transactionRepository.findById(unconfirmed.getId())).isPresent();
+        assertThat(transactionRepository.findById(hot.getId())).isPresent();
+        List<TransactionExportRow> archived = new ArrayList<>();
+        List<ArchiveSegment> segments = archiveService.findSegments(month, month.plusMonths(1).minusDays(1));
+        assertThat(segments).isNotEmpty();
+        for (ArchiveSegment segment : segments) {
+            assertThat(directory.resolve(segment.getFileName())).exists();
+            archiveService.read(segment, row -> {
+                if (service.getStructure().getId().equals(row.getStructureId())) {
+                    archived.add(row);
+                }
+            });
+        }
+        // Segment écrit par date croissante
+        assertThat(archived).extracting(TransactionExportRow::getId)
+                .containsExactly(cold.get(1).getId(), cold.get(2).getId(), cold.get(0).getId());
+        assertThat(archived).allSatisfy(row -> assertThat(row.isConfirmed()).isTrue());
+
+        // Export : la table du plus récent au plus ancien, puis les segments dans leur ordre d'écriture
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long exported = transactionService.export(TransactionSearchRequest.builder()
+                .structureId(service.getStructure().getId()).build(), DataFormat.NDJSON, out);
+        assertThat(exported).isEqualTo(5);
+        List<Long> order = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).lines().toList()) {
+            order.add(objectMapper.readTree(line).get("id").asLong());
+        }
+        assertThat(order).containsExactly(hot.getId(), unconfirmed.getId(),
+                cold.get(1).getId(), cold.get(2).getId(), cold.get(0).getId());
+
+        // Réimport de l'export : références de la table et des segments refusées, rien n'est compté deux fois
+        ImportSummary summary = importService.importTransactions(new ByteArrayInputStream(out.toByteArray()),
+                DataFormat.NDJSON, 100, report -> { });
+        assertThat(summary.getImported()).isZero();
+        assertThat(summary.getRejected()).isEqualTo(5);
+    }
+
+    @Test
+    void reimportedArchivedRowsAreRejected() {
+        LocalDate month = archiveService.cutoff().minusMonths(2);
+        ServiceEntity service = fixtures.createService("Archive réimport");
+        Transaction cold = create(service, month.plusDays(4), true);
+        archiveService.archive();
+        assertThat(transactionRepository.findById(cold.getId())).isEmpty();
+
+        String csv = "reference,amount,transactionDate,serviceId,status\n"
+                + cold.getReference() + ",250," + cold.getTransactionDate() + "," + service.getId() + ",SUCCESS\n"
+                + "ARCHIVE-NEW-" + cold.getId() + ",250," + cold.getTransactionDate() + "," + service.getId() + ",SUCCESS\n";
+        List<ImportChunkReport> reports = new ArrayList<>();
+        importService.importTransactions(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                DataFormat.CSV, 100, reports::add);
+
+        // Seule la référence déjà archivée est refusée : le mois reste ouvert aux lignes nouvelles
+        assertThat(reports.get(0).getImported()).isEqualTo(1);
+        assertThat(reports.get(0).getErrors()).singleElement()
+                .satisfies(error -> assertThat(error.getMessage()).isEqualTo("Référence déjà archivée : " + cold.getReference()));
+        assertThat(transactionRepository.findExistingReferences(List.of(cold.getReference()))).isEmpty();
+    }
+
+    @Test
+    void partialDeleteRollsTheSegmentBack() throws IOException {
+        // Mois plus ancien que tout autre : c'est le premier segment écrit
+        LocalDate month = LocalDate.of(2001, 1, 1);
+        ServiceEntity service = fixtures.createService("Archive annulation");
+        List<Transaction> cold = List.of(create(service, month.plusDays(1), true), create(service, month.plusDays(2), true));
+        List<Path> filesBefore = files();
+        // Une ligne de moins que prévu : comme si une transaction avait changé pendant l'écriture
+        // (suppression faite ici : le dépôt espionné est une interface, sans méthode réelle à appeler)
+        doAnswer(invocation -> entityManager
+                .createQuery("DELETE FROM Transaction t WHERE t.id IN :ids AND t.isConfirmed = true")
+                .setParameter("ids", invocation.getArgument(0))
+                .executeUpdate() - 1)
+                .when(transactionRepository).deleteArchived(anyCollection());
+
+        assertThatThrownBy(archiveService::archive).isInstanceOf(IllegalStateException.class);
+
+        for (Transaction tx : cold) {
+            assertThat(transactionRepository.findById(tx.getId())).isPresent();
+        }
+        assertThat(archiveService.findSegments(month, month.plusMonths(1).minusDays(1))).isEmpty();
+        assertThat(files()).containsExactlyInAnyOrderElementsOf(filesBefore);
+    }
+
+    @Test
+    void rebuildKeepsArchivedMonthsThroughSegmentSummaries() {
+        LocalDate month = archiveService.cutoff().minusMonths(4);
+        ServiceEntity service = fixtures.createService("Archive reconstruction");
+        create(service, month.plusDays(3), true);
+        create(service, month.plusDays(3), true);
+        create(service, month.plusDays(7), false);
+        create(service, LocalDate.now(), true);
+        Long structureId = service.getStructure().getId();
+        rollupService.rebuild();
+        RevenueRollupRepository.RevenueTotal before = rollupRepository.getTotalsByStructureId(structureId);
+        assertThat(before.getTransactionCount()).isEqualTo(4);
+
+        archiveService.archive();
+        rollupService.rebuild();
+
+        RevenueRollupRepository.RevenueTotal after = rollupRepository.getTotalsByStructureId(structureId);
+        assertThat(after.getTransactionCount()).isEqualTo(before.getTransactionCount());
+        assertThat(after.getAmountMinor()).isEqualTo(before.getAmountMinor());
+    }
+
+    @Test
+    void archivedTransactionsStayReachableThroughSearchAndFindById() {
+        LocalDate month = archiveService.cutoff().minusMonths(5);
+        ServiceEntity service = fixtures.createService("Archive lecture");
+        Transaction older = create(service, month.plusDays(2), true);
+        Transaction newer = create(service, month.plusDays(8), true);
+        Transaction unconfirmed = create(service, month.plusDays(5), false);
+        Transaction hot = create(service, LocalDate.now(), true);
+        archiveService.archive();
+        assertThat(transactionRepository.findById(newer.getId())).isEmpty();
+
+        // Table et segments fusionnés dans l'ordre des pages, sans doublon d'une page à l'autre
+        TransactionSearchRequest.TransactionSearchRequestBuilder request = TransactionSearchRequest.builder()
+                .structureId(service.getStructure().getId()).size(2);
+        TransactionPageDto first = transactionService.search(request.build());
+        assertThat(first.getItems()).extracting(TransactionDto::getId).containsExactly(hot.getId(), newer.getId());
+        assertThat(first.getItems()).extracting(TransactionDto::isArchived).containsExactly(false, true);
+        TransactionPageDto second = transactionService.search(request.cursor(first.getNextCursor()).build());
+        assertThat(second.getItems()).extracting(TransactionDto::getId)
+                .containsExactly(unconfirmed.getId(), older.getId());
+        assertThat(second.isHasMore()).isFalse();
+
+        TransactionDto archived = transactionService.findById(older.getId());
+        assertThat(archived.isArchived()).isTrue();
+        assertThat(archived.getReference()).isEqualTo(older.getReference());
+    }
+
+    private List<Path> files() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+
+    private Transaction create(ServiceEntity service, LocalDate day, boolean confirmed) {
+        return fixtures.create(service, 1, (t, i) -> {
+            t.setAmount(BigDecimal.valueOf(250));
+            t.setTransactionDate(day);
+            if (confirmed) {
+                t.confirm();
+            } else {
+                t.setStatus(TransactionStatusService.PENDING);
+            }
+        }).get(0);
+    }
+}
@@ -0,0 +1,101 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.Repository.ServiceRepository;
+import com.NND.tech.Structure_Backend.Repository.StructureRepository;
+import com.NND.tech.Structure_Backend.Repository.TransactionRepository;
+import com.NND.tech.Structure_Backend.event.TransactionChange;
+import com.NND.tech.Structure_Backend.event.TransactionEventPublisher;
+import com.NND.tech.Structure_Backend.event.TransactionSnapshot;
+import com.NND.tech.Structure_Backend.model.entity.ServiceEntity;
+import com.NND.tech.Structure_Backend.model.entity.Structure;
+import com.NND.tech.Structure_Backend.model.entity.Transaction;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Données des tests de transactions : une structure active et son service, puis des transactions
+ * écrites dans une seule transaction et signalées comme le ferait un chemin d'écriture (rollups,
+ * index et filtres restent cohérents avec la table).
+ */
+@Component
+class TransactionFixtures {
+
+    private final TransactionRepository transactionRepository;
+    private final StructureRepository structureRepository;
+    private final ServiceRepository serviceRepository;
+    private final TransactionEventPublisher transactionEventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    TransactionFixtures(TransactionRepository transactionRepository,
+                        StructureRepository structureRepository,
+                        ServiceRepository serviceRepository,
+                        TransactionEventPublisher transactionEventPublisher,
+                        PlatformTransactionManager transactionManager) {
+        this.transactionRepository = transactionRepository;
+        this.structureRepository = structureRepository;
+        this.serviceRepository = serviceRepository;
+        this.transactionEventPublisher = transactionEventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Nouvelle structure active et son service (catégorie "Paiement"), tous deux nommés {@code name}
+     */
+    ServiceEntity createService(String name) {
+        return transactionTemplate.execute(status -> {
+            Structure structure = new Structure();
+            structure.setName(name);
+            structure.setActive(true);
+            structureRepository.save(structure);
+            ServiceEntity service = new ServiceEntity();
+            service.setName(name);
+            service.setCategory("Paiement");
+            service.setStructure(structure);
+            return serviceRepository.save(service);
+        });
+    }
+
+    /**
+     * Transactions PENDING de 500 dans une nouvelle structure, en attente d'un statut CamPost
+     */
+    List<Transaction> createPending(String name, int count) {
+        return create(createService(name), count, (t, i) -> {
+            t.setAmount(BigDecimal.valueOf(500));
+            t.setStatus(TransactionStatusService.PENDING);
+        });
+    }
+
+    /**
+     * Transactions SUCCESS (non confirmées) de 100 datées du jour, à références et orderId uniques
+     * @param customizer ajuste chaque transaction, avec son rang, avant l'enregistrement
+     */
+    List<Transaction> create(ServiceEntity service, int count, ObjIntConsumer<Transaction> customizer) {
+        return transactionTemplate.execute(status -> {
+            List<Transaction> transactions = new ArrayList<>(count);
+            List<TransactionChange> changes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Transaction t = new Transaction();
+                t.setReference("TX-" + UUID.randomUUID());
+                t.setOrderId("ORD-" + UUID.randomUUID());
+                t.setAmount(BigDecimal.valueOf(100));
+                t.setTransactionDate(LocalDate.now());
+                t.setStatus(TransactionStatusService.SUCCESS);
+                t.setStructure(service.getStructure());
+                t.setService(service);
+                customizer.accept(t, i);
+                transactions.add(transactionRepository.save(t));
+                changes.add(new TransactionChange(null, TransactionSnapshot.of(t)));
+            }
+            transactionEventPublisher.publish(changes);
+            return transactions;
+        });
+    }
+}
@@ -0,0 +1,124 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.model.entity.Transaction;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TransactionSearchTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 10);
+
+    @Autowired private TransactionFixtures fixtures;
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+
+    @Test
+    void cursorPagesWalkTiesOnTheSameDateWithoutGapsOrRepeats() throws Exception {
+        // Sept transactions le même jour, trois la veille : les pages de 3 coupent au milieu des égalités
+        List<Transaction> created = create(new int[]{0, 0, 0, 0, 0, 0, 0, 1, 1, 1});
+        Long structureId = created.get(0).getStructure().getId();
+        List<Long> expected = created.stream()
+                .sorted(Comparator.comparing(Transaction::getTransactionDate).thenComparing(Transaction::getId).reversed())
+                .map(Transaction::getId)
+                .toList();
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            MockHttpServletRequestBuilder request = get("/api/transactions/structure/" + structureId).param("size", "3");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            JsonNode page = read(request);
+            pages++;
+            JsonNode items = page.get("items");
+            assertThat(page.get("size").asInt()).isEqualTo(items.size());
+            items.forEach(item -> seen.add(item.get("id").asLong()));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            assertThat(page.get("hasMore").asBoolean()).isEqualTo(cursor != null);
+            if (cursor != null) {
+                // Curseur : "date|id" de la dernière ligne de la page
+                JsonNode last = items.get(items.size() - 1);
+                Transaction lastRow = created.stream().filter(t -> t.getId() == last.get("id").asLong()).findFirst().orElseThrow();
+                assertThat(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8))
+                        .isEqualTo(lastRow.getTransactionDate() + "|" + lastRow.getId());
+            }
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(4);
+        assertThat(seen).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void filteredSearchReturnsAPage() throws Exception {
+        List<Transaction> created = create(new int[]{0, 1, 2, 3});
+        Long structureId = created.get(0).getStructure().getId();
+
+        JsonNode page = read(get("/api/transactions")
+                .param("structureId", String.valueOf(structureId))
+                .param("startDate", DAY.minusDays(2).toString())
+                .param("endDate", DAY.toString())
+                .param("size", "2"));
+        assertThat(page.fieldNames()).toIterable().containsExactlyInAnyOrder("items", "size", "hasMore", "nextCursor");
+        assertThat(page.get("size").asInt()).isEqualTo(2);
+        assertThat(page.get("hasMore").asBoolean()).isTrue();
+        assertThat(page.get("items").get(0).get("structureId").asLong()).isEqualTo(structureId);
+
+        JsonNode last = read(get("/api/transactions")
+                .param("structureId", String.valueOf(structureId))
+                .param("startDate", DAY.minusDays(2).toString())
+                .param("endDate", DAY.toString())
+                .param("size", "2")
+                .param("cursor", page.get("nextCursor").asText()));
+        assertThat(last.get("size").asInt()).isEqualTo(1);
+        assertThat(last.get("hasMore").asBoolean()).isFalse();
+        assertThat(last.get("nextCursor").isNull()).isTrue();
+    }
+
+    @Test
+    void invalidCursorOrPageSizeIsABadRequest() throws Exception {
+        String notACursor = Base64.getUrlEncoder().encodeToString("pas-un-curseur".getBytes(StandardCharsets.UTF_8));
+        for (String cursor : List.of("%%%", notACursor, "MjAyNi0wMy0xMHx4")) {
+            mockMvc.perform(get("/api/transactions").param("cursor", cursor).with(user("search")))
+                    .andExpect(status().isBadRequest());
+        }
+        mockMvc.perform(get("/api/transactions").param("size", "0").with(user("search")))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/transactions/structure/1").param("size", "501").with(user("search")))
+                .andExpect(status().isBadRequest());
+    }
+
+    private JsonNode read(MockHttpServletRequestBuilder request) throws Exception {
+        String body = mockMvc.perform(request.with(user("search")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    // Une transaction par entrée, datée de DAY moins le nombre de jours donné
+    private List<Transaction> create(int[] daysBefore) {
+        return fixtures.create(fixtures.createService("Structure recherche"), daysBefore.length,
+                (t, i) -> t.setTransactionDate(DAY.minusDays(daysBefore[i])));
+    }
+}
@@ -0,0 +1,173 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.DTO.TransactionDto;
+import com.NND.tech.Structure_Backend.DTO.TransactionSearchRequest;
+import com.NND.tech.Structure_Backend.Repository.TransactionRepository;
+import com.NND.tech.Structure_Backend.model.entity.Transaction;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TransactionServiceTest {
+
+    @Autowired private TransactionFixtures fixtures;
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private EntityManager entityManager;
+    @Autowired private TransactionService transactionService;
+    @Autowired private TransactionRepository transactionRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    @Test
+    void duplicateReferenceIsAConflict() {
+        List<Transaction> existing = create(2);
+        TransactionDto change = new TransactionDto();
+        change.setReference(existing.get(0).getReference());
+
+        assertThatThrownBy(() -> transactionService.update(existing.get(1).getId(), change))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        assertThat(transactionRepository.findById(existing.get(1).getId()).orElseThrow().getReference())
+                .isEqualTo(existing.get(1).getReference());
+    }
+
+    @Test
+    void csvExportQuotesCellsAndFoldsLineBreaks() throws IOException {
+        Long id = create(1, "Coupe, \"brushing\"\r\net soin").get(0).getId();
+        Transaction tx = transactionRepository.findById(id).orElseThrow();
+
+        String csv = export(tx.getStructure().getId(), DataFormat.CSV).toString(StandardCharsets.UTF_8);
+
+        String[] lines = csv.split("\n", -1);
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).isEqualTo("id,reference,orderId,amount,transactionDate,createdAt,status,"
+                + "description,serviceId,structureId,confirmed,confirmationDate");
+        assertThat(lines[1]).isEqualTo(String.join(",", tx.getId().toString(), tx.getReference(), tx.getOrderId(),
+                "100.00", tx.getTransactionDate().toString(), tx.getCreatedAt().toString(), "SUCCESS",
+                "\"Coupe, \"\"brushing\"\"  et soin\"", tx.getService().getId().toString(),
+                tx.getStructure().getId().toString(), "false", ""));
+        assertThat(lines[2]).isEmpty();
+    }
+
+    @Test
+    void ndjsonExportWritesOneObjectPerLine() throws IOException {
+        List<Transaction> created = create(3, "ligne\nsuivante");
+
+        String ndjson = export(created.get(0).getStructure().getId(), DataFormat.NDJSON).toString(StandardCharsets.UTF_8);
+
+        List<String> lines = ndjson.lines().toList();
+        assertThat(lines).hasSize(3);
+        List<String> references = new ArrayList<>();
+        for (String line : lines) {
+            JsonNode row = objectMapper.readTree(line);
+            assertThat(row.get("description").asText()).isEqualTo("ligne\nsuivante");
+            assertThat(row.get("structureId").asLong()).isEqualTo(created.get(0).getStructure().getId());
+            references.add(row.get("reference").asText());
+        }
+        assertThat(references).containsExactlyInAnyOrderElementsOf(created.stream().map(Transaction::getReference).toList());
+    }
+
+    @Test
+    void gzipExportIsCompressed() throws Exception {
+        List<Transaction> created = create(2, "gzip");
+
+        MvcResult started = mockMvc.perform(get("/api/transactions/export").with(user("export"))
+                        .param("structureId", String.valueOf(created.get(0).getStructure().getId()))
+                        .param("format", "ndjson")
+                        .param("gzip", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/gzip"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"transactions.ndjson.gz\""))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            List<String> lines = new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+            assertThat(lines).hasSize(2);
+            assertThat(objectMapper.readTree(lines.get(0)).get("description").asText()).isEqualTo("gzip");
+        }
+    }
+
+    @Test
+    void exportDetachesEntitiesAsItStreams() {
+        List<Transaction> created = create(2_500, null);
+        AtomicInteger largestContext = new AtomicInteger();
+
+        long exported = transactionTemplate.execute(status -> {
+            Session session = entityManager.unwrap(Session.class);
+            // Taille du contexte de persistance relevée à chaque écriture dans le flux de sortie
+            OutputStream sampling = new OutputStream() {
+                @Override
+                public void write(int b) {
+                    largestContext.accumulateAndGet(session.getStatistics().getEntityCount(), Math::max);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    write(0);
+                }
+            };
+            try {
+                return transactionService.export(search(created.get(0).getStructure().getId()), DataFormat.CSV, sampling);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(exported).isEqualTo(2_500);
+        // Au plus un bloc de 1000 transactions en mémoire, jamais les 2500
+        assertThat(largestContext.get()).isPositive().isLessThanOrEqualTo(1_000);
+    }
+
+    private ByteArrayOutputStream export(Long structureId, DataFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        transactionService.export(search(structureId), format, out);
+        return out;
+    }
+
+    private static TransactionSearchRequest search(Long structureId) {
+        return TransactionSearchRequest.builder().structureId(structureId).build();
+    }
+
+    private List<Transaction> create(int count) {
+        return create(count, null);
+    }
+
+    private List<Transaction> create(int count, String description) {
+        return fixtures.create(fixtures.createService("Structure transactions"), count,
+                (t, i) -> t.setDescription(description));
+    }
+}
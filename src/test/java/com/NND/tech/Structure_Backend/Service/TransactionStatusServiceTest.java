@@ -0,0 +1,207 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.Repository.RevenueRollupRepository;
+import com.NND.tech.Structure_Backend.Repository.TransactionRepository;
+import com.NND.tech.Structure_Backend.config.CampostProperties;
+import com.NND.tech.Structure_Backend.model.entity.DailyRevenueRollup;
+import com.NND.tech.Structure_Backend.model.entity.ServiceEntity;
+import com.NND.tech.Structure_Backend.model.entity.Structure;
+import com.NND.tech.Structure_Backend.model.entity.Transaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TransactionStatusServiceTest {
+
+    @Autowired private TransactionFixtures fixtures;
+    @Autowired private TransactionStatusService statusService;
+    @Autowired private TransactionRepository transactionRepository;
+    @Autowired private RevenueRollupRepository revenueRollupRepository;
+
+    private Structure structure;
+    private ServiceEntity service;
+
+    @BeforeAll
+    void seed() {
+        service = fixtures.createService("Structure statuts");
+        structure = service.getStructure();
+    }
+
+    @Test
+    void concurrentWritersNeverLoseOrOverwriteAFinalStatus() throws Exception {
+        List<Long> successOrTimeout = createPending(150);
+        List<Long> successOrFailure = createPending(150);
+        List<Runnable> writes = new ArrayList<>();
+        for (Long id : successOrTimeout) {
+            writes.add(() -> statusService.transition(id, "CREATED"));
+            writes.add(() -> statusService.transition(id, "TIMEOUT"));
+            writes.add(() -> statusService.transition(id, "SUCCESS"));
+        }
+        for (Long id : successOrFailure) {
+            writes.add(() -> statusService.transition(id, "TIMEOUT"));
+            writes.add(() -> statusService.transition(id, "SUCCESS"));
+            writes.add(() -> statusService.transition(id, "FAILED"));
+        }
+        Collections.shuffle(writes);
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (Runnable write : writes) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    write.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Un SUCCESS reçu avant ou après le TIMEOUT l'emporte toujours
+        for (Long id : successOrTimeout) {
+            Transaction tx = transactionRepository.findById(id).orElseThrow();
+            assertThat(tx.getStatus()).isEqualTo("SUCCESS");
+            assertThat(tx.isConfirmed()).isTrue();
+            assertThat(tx.getConfirmationDate()).isNotNull();
+        }
+        // Un seul statut final gagne, avec les attributs qui vont avec
+        for (Long id : successOrFailure) {
+            Transaction tx = transactionRepository.findById(id).orElseThrow();
+            assertThat(tx.getStatus()).isIn("SUCCESS", "FAILED");
+            assertThat(tx.isConfirmed()).isEqualTo("SUCCESS".equals(tx.getStatus()));
+            assertThat(tx.getConfirmationDate() != null).isEqualTo(tx.isConfirmed());
+        }
+        // Chaque transition appliquée a publié un delta exact : les rollups suivent la table
+        assertThat(rollupCountsByStatus()).isEqualTo(tableCountsByStatus());
+    }
+
+    @Test
+    void pollingHoldsNoLockWhileWaitingForTheProvider() throws Exception {
+        Long id = createPending(1).get(0);
+        String orderId = transactionRepository.findById(id).orElseThrow().getOrderId();
+        ExecutorService webhook = Executors.newSingleThreadExecutor();
+        try {
+            // Le webhook SUCCESS arrive pendant l'appel distant du polling, qui répondra FAILED
+            RestTemplate provider = new RestTemplateBuilder().rootUri("http://campost.test").additionalInterceptors((request, body, execution) -> {
+                try {
+                    assertThat(webhook.submit(() -> statusService.transition(id, "SUCCESS")).get(5, TimeUnit.SECONDS))
+                            .contains("SUCCESS");
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                MockClientHttpResponse response = new MockClientHttpResponse(
+                        "{\"status\":\"FAILED\"}".getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+                response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                return response;
+            }).build();
+            CampostProperties props = new CampostProperties();
+            props.setPublicKey("test");
+            PaymentStatusPoller poller = new PaymentStatusPoller(new CampostPaymentService(provider, props),
+                    transactionRepository, statusService, new SimpleMeterRegistry(), Duration.ofMillis(50),
+                    Duration.ofSeconds(1), Duration.ofMinutes(1), 10, 2);
+            try {
+                CompletableFuture<String> result = poller.watch(orderId, 5_000, 1_000);
+                long deadline = System.currentTimeMillis() + 10_000;
+                while (!result.isDone() && System.currentTimeMillis() < deadline) {
+                    poller.tick();
+                    Thread.sleep(20);
+                }
+                assertThat(result.get(1, TimeUnit.SECONDS)).isEqualTo("SUCCESS");
+            } finally {
+                poller.shutdown();
+            }
+            assertThat(transactionRepository.findById(id).orElseThrow().getStatus()).isEqualTo("SUCCESS");
+        } finally {
+            webhook.shutdownNow();
+        }
+    }
+
+    @Test
+    void finalStatusesAreTerminal() {
+        assertThat(TransactionStatusService.isAllowed(null, "SUCCESS")).isTrue();
+        assertThat(TransactionStatusService.isAllowed("PENDING", "CREATED")).isTrue();
+        assertThat(TransactionStatusService.isAllowed("CREATED", "TIMEOUT")).isTrue();
+        assertThat(TransactionStatusService.isAllowed("TIMEOUT", "SUCCESS")).isTrue();
+        assertThat(TransactionStatusService.isAllowed("TIMEOUT", "CREATED")).isFalse();
+        assertThat(TransactionStatusService.isAllowed("SUCCESS", "TIMEOUT")).isFalse();
+        assertThat(TransactionStatusService.isAllowed("SUCCESS", "FAILED")).isFalse();
+        assertThat(TransactionStatusService.isAllowed("FAILED", "SUCCESS")).isFalse();
+        assertThat(TransactionStatusService.isAllowed("SUCCESS", "SUCCESS")).isFalse();
+    }
+
+    @Test
+    void providerStatusesAreNormalizedAndUnknownOnesStayOpen() {
+        assertThat(TransactionStatusService.normalize(" cancelled ")).isEqualTo("FAILED");
+        assertThat(TransactionStatusService.normalize("success")).isEqualTo("SUCCESS");
+        assertThat(TransactionStatusService.normalize("EXPIRED")).isNull();
+        assertThat(TransactionStatusService.isFinal("EXPIRED")).isFalse();
+        assertThat(TransactionStatusService.isAllowed("EXPIRED", "SUCCESS")).isTrue();
+        assertThat(TransactionStatusService.isAllowed("PENDING", null)).isFalse();
+
+        List<Long> ids = createPending(3);
+        assertThat(statusService.transition(ids.get(0), "EXPIRED")).contains("PENDING");
+        assertThat(statusService.transition(ids.get(0), "Cancelled")).contains("FAILED");
+        assertThat(statusService.transitionAll(Map.of(ids.get(1), "CANCELLED", ids.get(2), "EXPIRED")))
+                .containsEntry(ids.get(1), "FAILED")
+                .containsEntry(ids.get(2), "PENDING");
+        assertThat(transactionRepository.findStatusById(ids.get(0)).orElseThrow().getStatus()).isEqualTo("FAILED");
+    }
+
+    private List<Long> createPending(int count) {
+        return fixtures.create(service, count, (t, i) -> {
+            t.setAmount(BigDecimal.valueOf(1_000 + i));
+            t.setStatus(TransactionStatusService.PENDING);
+        }).stream().map(Transaction::getId).toList();
+    }
+
+    private Map<String, List<Long>> rollupCountsByStatus() {
+        return revenueRollupRepository.findAll().stream()
+                .filter(r -> structure.getId().equals(r.getStructureId()) && r.getTransactionCount() != 0)
+                .collect(Collectors.groupingBy(DailyRevenueRollup::getStatus, Collectors.collectingAndThen(
+                        Collectors.toList(), rows -> List.of(
+                                rows.stream().mapToLong(DailyRevenueRollup::getTransactionCount).sum(),
+                                rows.stream().mapToLong(DailyRevenueRollup::getAmountMinor).sum()))));
+    }
+
+    private Map<String, List<Long>> tableCountsByStatus() {
+        return transactionRepository.findAll().stream()
+                .filter(t -> structure.getId().equals(t.getStructure().getId()))
+                .collect(Collectors.groupingBy(Transaction::getStatus, Collectors.collectingAndThen(
+                        Collectors.toList(), rows -> List.of(
+                                (long) rows.size(),
+                                rows.stream().mapToLong(t -> MinorUnits.of(t.getAmount())).sum()))));
+    }
+}
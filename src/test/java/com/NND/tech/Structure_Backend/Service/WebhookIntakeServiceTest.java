@@ -0,0 +1,122 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import com.NND.tech.Structure_Backend.DTO.CampostWebhookEvent;
+import com.NND.tech.Structure_Backend.Repository.TransactionRepository;
+import com.NND.tech.Structure_Backend.Repository.WebhookDeliveryRepository;
+import com.NND.tech.Structure_Backend.model.entity.Transaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class WebhookIntakeServiceTest {
+
+    @Autowired private TransactionFixtures fixtures;
+    @Autowired private WebhookIntakeService intake;
+    @Autowired private MeterRegistry meterRegistry;
+    @Autowired private TransactionRepository transactionRepository;
+    @Autowired private WebhookDeliveryRepository deliveryRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private ObjectMapper objectMapper;
+
+    @Test
+    void burstIsAcknowledgedThenAppliedInCoalescedBatches() throws Exception {
+        List<Transaction> orders = fixtures.createPending("Structure webhooks", 100);
+        double coalescedBefore = meterRegistry.counter("payments.webhooks.coalesced").count();
+        double processedBefore = meterRegistry.counter("payments.webhooks.processed").count();
+        double receivedBefore = meterRegistry.counter("payments.webhooks.received").count();
+        double repliedFromMemoryBefore = meterRegistry.counter("payments.webhooks.duplicates", "source", "memory").count();
+        double appliedBefore = meterRegistry.counter("payments.status.transitions", "outcome", "applied").count();
+
+        // Rafale : dix livraisons par commande ; le premier statut final l'emporte
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < orders.size(); i++) {
+                Transaction tx = orders.get(i);
+                String status = round == 0 ? "CREATED" : (i % 2 == 0) == (round == 1) ? "SUCCESS" : "CANCELLED";
+                // Une commande sur quatre n'est notifiée que par orderId
+                String key = i % 4 == 3 ? "\"orderId\":\"" + tx.getOrderId() + "\""
+                        : "\"reference\":\"" + tx.getReference() + "\"";
+                deliver("{" + key + ",\"status\":\"" + status + "\",\"event\":\"payment.updated\"}");
+            }
+        }
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (intake.getQueueDepth() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        intake.drain();
+        assertThat(intake.getQueueDepth()).isZero();
+        // Livraisons identiques déjà appliquées : acquittées dès la réception, sans passer par le journal
+        double received = meterRegistry.counter("payments.webhooks.received").count() - receivedBefore;
+        assertThat(received + meterRegistry.counter("payments.webhooks.duplicates", "source", "memory").count()
+                - repliedFromMemoryBefore).isGreaterThanOrEqualTo(1_000);
+        assertThat(meterRegistry.counter("payments.webhooks.processed").count() - processedBefore).isEqualTo(received);
+        // Une seule écriture par commande : les autres livraisons sont fusionnées dans le lot ou rejetées
+        assertThat(meterRegistry.counter("payments.status.transitions", "outcome", "applied").count() - appliedBefore).isEqualTo(100);
+        assertThat(meterRegistry.counter("payments.webhooks.coalesced").count() - coalescedBefore).isPositive();
+        for (int i = 0; i < orders.size(); i++) {
+            Transaction stored = transactionRepository.findById(orders.get(i).getId()).orElseThrow();
+            assertThat(stored.getStatus()).isEqualTo(i % 2 == 0 ? "SUCCESS" : "FAILED");
+            assertThat(stored.isConfirmed()).isEqualTo(i % 2 == 0);
+        }
+    }
+
+    @Test
+    void replayedDeliveriesAreAcknowledgedWithoutDatabaseWrites() throws Exception {
+        List<Transaction> orders = fixtures.createPending("Structure webhooks", 100);
+        List<String> payloads = new ArrayList<>();
+        for (Transaction tx : orders) {
+            payloads.add("{\"reference\":\"" + tx.getReference() + "\",\"status\":\"SUCCESS\",\"timestamp\":\"2026-10-18T10:00:00Z\"}");
+        }
+        for (String payload : payloads) {
+            deliver(payload);
+        }
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (intake.getQueueDepth() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        intake.drain();
+
+        double received = meterRegistry.counter("payments.webhooks.received").count();
+        double applied = meterRegistry.counter("payments.status.transitions", "outcome", "applied").count();
+        double rejected = meterRegistry.counter("payments.status.transitions", "outcome", "rejected").count();
+        double repliedFromMemory = meterRegistry.counter("payments.webhooks.duplicates", "source", "memory").count();
+        List<CampostWebhookEvent> events = new ArrayList<>();
+        for (String payload : payloads) {
+            events.add(objectMapper.readValue(payload, CampostWebhookEvent.class));
+        }
+        for (int round = 0; round < 1_000; round++) {
+            for (int i = 0; i < events.size(); i++) {
+                intake.accept(events.get(i), payloads.get(i));
+            }
+        }
+
+        // 100 000 renvois : ni journal, ni transition, ni lecture de transactions
+        assertThat(meterRegistry.counter("payments.webhooks.duplicates", "source", "memory").count() - repliedFromMemory)
+                .isEqualTo(100_000);
+        assertThat(meterRegistry.counter("payments.webhooks.received").count()).isEqualTo(received);
+        assertThat(meterRegistry.counter("payments.status.transitions", "outcome", "applied").count()).isEqualTo(applied);
+        assertThat(meterRegistry.counter("payments.status.transitions", "outcome", "rejected").count()).isEqualTo(rejected);
+        assertThat(intake.getQueueDepth()).isZero();
+
+        // Après un redémarrage (cache vide), la table reconnaît encore les livraisons
+        WebhookDeduplicator restarted = new WebhookDeduplicator(deliveryRepository, transactionManager,
+                new SimpleMeterRegistry(), 1_000, Duration.ofDays(7));
+        List<String> keys = events.stream().map(WebhookDeduplicator::key).toList();
+        assertThat(restarted.findApplied(keys)).containsExactlyInAnyOrderElementsOf(keys);
+    }
+
+    private void deliver(String payload) throws Exception {
+        intake.accept(objectMapper.readValue(payload, CampostWebhookEvent.class), payload);
+    }
+}
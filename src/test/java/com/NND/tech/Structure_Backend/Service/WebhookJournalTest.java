@@ -0,0 +1,139 @@
+package com.NND.tech.Structure_Backend.Service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WebhookJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void concurrentAppendsSurviveReopenAndConsumedSegmentsAreDeleted() throws Exception {
+        List<String> consumed = new ArrayList<>();
+        // Petits segments : plusieurs dizaines de bascules pendant les ajouts
+        try (WebhookJournal journal = new WebhookJournal(directory, 4_096)) {
+            ExecutorService writers = Executors.newFixedThreadPool(8);
+            List<Future<?>> done = new ArrayList<>();
+            for (int w = 0; w < 8; w++) {
+                int writer = w;
+                done.add(writers.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        journal.append(("{\"writer\":" + writer + ",\"seq\":" + i + "}").getBytes(StandardCharsets.UTF_8));
+                    }
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get();
+            }
+            writers.shutdown();
+            assertThat(journal.depth()).isEqualTo(4_000);
+
+            // Moitié consommée ; un lot relu sans validation est rendu à nouveau
+            WebhookJournal.Batch unacknowledged = journal.read(100);
+            assertThat(journal.read(100).records()).hasSize(100)
+                    .first().isEqualTo(unacknowledged.records().get(0));
+            for (int batches = 0; batches < 20; batches++) {
+                WebhookJournal.Batch batch = journal.read(100);
+                batch.records().forEach(record -> consumed.add(new String(record, StandardCharsets.UTF_8)));
+                journal.commit(batch);
+            }
+            assertThat(journal.depth()).isEqualTo(2_000);
+        }
+
+        try (WebhookJournal journal = new WebhookJournal(directory, 4_096)) {
+            assertThat(journal.depth()).isEqualTo(2_000);
+            WebhookJournal.Batch batch;
+            while (!(batch = journal.read(300)).records().isEmpty()) {
+                batch.records().forEach(record -> consumed.add(new String(record, StandardCharsets.UTF_8)));
+                journal.commit(batch);
+            }
+            assertThat(journal.depth()).isZero();
+        }
+        Set<String> unique = new HashSet<>(consumed);
+        assertThat(consumed).hasSize(4_000);
+        assertThat(unique).hasSize(4_000);
+        // Chaque écrivain est relu dans son ordre d'ajout
+        for (int writer = 0; writer < 8; writer++) {
+            String prefix = "{\"writer\":" + writer + ",";
+            List<String> own = consumed.stream().filter(record -> record.startsWith(prefix)).toList();
+            for (int i = 0; i < own.size(); i++) {
+                assertThat(own.get(i)).isEqualTo(prefix + "\"seq\":" + i + "}");
+            }
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.filter(file -> file.getFileName().toString().startsWith("segment-"))).hasSize(1);
+        }
+    }
+
+    @Test
+    void tornTailIsDiscardedOnReopen() throws Exception {
+        try (WebhookJournal journal = new WebhookJournal(directory, 1 << 20)) {
+            for (int i = 0; i < 3; i++) {
+                journal.append(("event-" + i).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(file -> file.getFileName().toString().startsWith("segment-")).findFirst().orElseThrow();
+        }
+        // Arrêt brutal pendant un ajout : en-tête écrit, contenu partiel
+        Files.write(segment, new byte[]{0, 0, 0, 42, 1, 2, 3, 4, 'x'}, StandardOpenOption.APPEND);
+
+        try (WebhookJournal journal = new WebhookJournal(directory, 1 << 20)) {
+            assertThat(journal.depth()).isEqualTo(3);
+            journal.append("event-3".getBytes(StandardCharsets.UTF_8));
+            assertThat(journal.read(10).records()).extracting(record -> new String(record, StandardCharsets.UTF_8))
+                    .containsExactly("event-0", "event-1", "event-2", "event-3");
+            // Un second journal sur le même répertoire est refusé
+            assertThatThrownBy(() -> new WebhookJournal(directory, 1 << 20)).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void corruptRecordIsSkippedWithoutBlockingTheQueue() throws Exception {
+        try (WebhookJournal journal = new WebhookJournal(directory, 1 << 20)) {
+            for (int i = 0; i < 3; i++) {
+                journal.append(("event-" + i).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(file -> file.getFileName().toString().startsWith("segment-")).findFirst().orElseThrow();
+        }
+        // Un octet altéré dans le contenu du deuxième enregistrement (en-tête de 8 octets, contenu de 7)
+        byte[] content = Files.readAllBytes(segment);
+        content[15 + 8 + 3] ^= 0x20;
+        Files.write(segment, content);
+
+        try (WebhookJournal journal = new WebhookJournal(directory, 1 << 20)) {
+            // Les enregistrements qui suivent sont conservés à la réouverture
+            assertThat(journal.depth()).isEqualTo(3);
+            WebhookJournal.Batch batch = journal.read(10);
+            assertThat(batch.records()).extracting(record -> new String(record, StandardCharsets.UTF_8))
+                    .containsExactly("event-0", "event-2");
+            assertThat(batch.skipped()).isEqualTo(1);
+            journal.commit(batch);
+            assertThat(journal.depth()).isZero();
+            journal.append("event-3".getBytes(StandardCharsets.UTF_8));
+            assertThat(journal.read(10).records()).extracting(record -> new String(record, StandardCharsets.UTF_8))
+                    .containsExactly("event-3");
+        }
+    }
+}